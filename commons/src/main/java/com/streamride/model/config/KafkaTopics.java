@@ -2,9 +2,23 @@ package com.streamride.model.config;
 
 public class KafkaTopics {
     public static final String RIDES_EVENTS = "rides.events";
+
+    /**
+     * Legacy topic carrying every analytics message type; only written when
+     * the processor's legacy output is enabled.
+     */
     public static final String RIDES_ANALYTICS = "rides.analytics";
-    
+
+    // Per-type analytics topics, log-compacted so the latest value per key survives
+    public static final String ANALYTICS_METRICS = "rides.analytics.metrics";             // key: city
+    public static final String ANALYTICS_CITY_ACTIVE_RIDES = "rides.analytics.city-active-rides"; // key: city
+    public static final String ANALYTICS_TOP_CITIES = "rides.analytics.top-cities";       // key: single ranking key
+    public static final String ANALYTICS_ANOMALIES = "rides.analytics.anomalies";         // key: city
+    public static final String ANALYTICS_PERCENTILES = "rides.analytics.percentiles";     // key: city:window type
+    public static final String ANALYTICS_ACTIVE_DRIVERS = "rides.analytics.active-drivers"; // key: city
+    public static final String ANALYTICS_HEATMAP = "rides.analytics.heatmap";             // key: geohash cell
+
     private KafkaTopics() {
         // Utility class
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package com.streamride.model.serde;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary encoding of {@link RideEvent}.
+ *
+ * Layout (version 1, big-endian):
+ * <pre>
+ *   u8   magic (0xB5, never a valid first byte of JSON)
+ *   u8   version
+ *   u16  presence bitmap, one bit per nullable field
+ *   u8   event type ordinal                      (if present)
+ *   u16  city dictionary code, 0xFFFF = inline    (if present)
+ *   i64  timestamp, epoch millis                 (if present)
+ *   f64  latitude, longitude, fare estimate      (each if present)
+ *   i32  duration minutes                        (if present)
+ *   f64  distance                                (if present)
+ *   str  inline city (escape only), rideId, driverId, riderId
+ * </pre>
+ * Strings are a u16 byte length followed by UTF-8 bytes. A requested ride
+ * with a UUID ride ID and dictionary city is 99 bytes, against about 300
+ * for the JSON form.
+ *
+ * The city dictionary is append-only: existing codes never change, and adding
+ * cities requires bumping {@link #VERSION} so older readers reject the new
+ * codes instead of misreading them. {@link EventType} is encoded by ordinal,
+ * so new constants must likewise only be appended.
+ *
+ * {@link RideEvent#getTimestamp()} is zone-less; it is encoded as if it were UTC,
+ * which round-trips exactly.
+ */
+public final class RideEventBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xB5;
+    public static final byte VERSION = 1;
+
+    public static final List<String> CITY_DICTIONARY = List.of(
+            "Bangalore", "Hyderabad", "Mumbai", "Delhi", "Chennai",
+            "Kolkata", "Pune", "Ahmedabad", "Jaipur", "Lucknow");
+
+    private static final int INLINE_CITY = 0xFFFF;
+    private static final int HEADER_SIZE = 4;
+
+    private static final int EVENT_TYPE = 1;
+    private static final int CITY = 1 << 1;
+    private static final int TIMESTAMP = 1 << 2;
+    private static final int LATITUDE = 1 << 3;
+    private static final int LONGITUDE = 1 << 4;
+    private static final int FARE = 1 << 5;
+    private static final int DURATION = 1 << 6;
+    private static final int DISTANCE = 1 << 7;
+    private static final int RIDE_ID = 1 << 8;
+    private static final int DRIVER_ID = 1 << 9;
+    private static final int RIDER_ID = 1 << 10;
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final Map<String, Integer> CITY_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < CITY_DICTIONARY.size(); i++) {
+            CITY_CODES.put(CITY_DICTIONARY.get(i), i);
+        }
+    }
+
+    private RideEventBinaryCodec() {
+        // Utility class
+    }
+
+    /**
+     * @param data serialized payload
+     * @return true if the payload starts with the binary format's magic byte
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(RideEvent event) {
+        Integer cityCode = event.getCity() == null ? null : CITY_CODES.get(event.getCity());
+        boolean inlineCity = event.getCity() != null && cityCode == null;
+
+        int presence = 0;
+        int size = HEADER_SIZE;
+        if (event.getEventType() != null) { presence |= EVENT_TYPE; size += 1; }
+        if (event.getCity() != null) { presence |= CITY; size += 2; }
+        if (event.getTimestamp() != null) { presence |= TIMESTAMP; size += 8; }
+        if (event.getLatitude() != null) { presence |= LATITUDE; size += 8; }
+        if (event.getLongitude() != null) { presence |= LONGITUDE; size += 8; }
+        if (event.getFareEstimate() != null) { presence |= FARE; size += 8; }
+        if (event.getDurationMinutes() != null) { presence |= DURATION; size += 4; }
+        if (event.getDistance() != null) { presence |= DISTANCE; size += 8; }
+        if (inlineCity) { size += stringSize(event.getCity()); }
+        if (event.getRideId() != null) { presence |= RIDE_ID; size += stringSize(event.getRideId()); }
+        if (event.getDriverId() != null) { presence |= DRIVER_ID; size += stringSize(event.getDriverId()); }
+        if (event.getRiderId() != null) { presence |= RIDER_ID; size += stringSize(event.getRiderId()); }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putShort((short) presence);
+        if ((presence & EVENT_TYPE) != 0) buffer.put((byte) event.getEventType().ordinal());
+        if ((presence & CITY) != 0) buffer.putShort((short) (inlineCity ? INLINE_CITY : cityCode));
+        if ((presence & TIMESTAMP) != 0) {
+            buffer.putLong(event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if ((presence & LATITUDE) != 0) buffer.putDouble(event.getLatitude());
+        if ((presence & LONGITUDE) != 0) buffer.putDouble(event.getLongitude());
+        if ((presence & FARE) != 0) buffer.putDouble(event.getFareEstimate());
+        if ((presence & DURATION) != 0) buffer.putInt(event.getDurationMinutes());
+        if ((presence & DISTANCE) != 0) buffer.putDouble(event.getDistance());
+        if (inlineCity) putString(buffer, event.getCity());
+        if ((presence & RIDE_ID) != 0) putString(buffer, event.getRideId());
+        if ((presence & DRIVER_ID) != 0) putString(buffer, event.getDriverId());
+        if ((presence & RIDER_ID) != 0) putString(buffer, event.getRiderId());
+        return buffer.array();
+    }
+
+    public static RideEvent decode(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != MAGIC) {
+                throw new SerializationException("Not a binary RideEvent payload");
+            }
+            byte version = buffer.get();
+            if (version < 1 || version > VERSION) {
+                throw new SerializationException("Unsupported RideEvent format version " + version);
+            }
+            int presence = buffer.getShort() & 0xFFFF;
+
+            RideEvent event = new RideEvent();
+            if ((presence & EVENT_TYPE) != 0) event.setEventType(EVENT_TYPES[buffer.get()]);
+            int cityCode = (presence & CITY) != 0 ? buffer.getShort() & 0xFFFF : -1;
+            if (cityCode >= 0 && cityCode != INLINE_CITY) {
+                if (cityCode >= CITY_DICTIONARY.size()) {
+                    throw new SerializationException("Unknown city code " + cityCode);
+                }
+                event.setCity(CITY_DICTIONARY.get(cityCode));
+            }
+            if ((presence & TIMESTAMP) != 0) {
+                long millis = buffer.getLong();
+                event.setTimestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                        (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+            }
+            if ((presence & LATITUDE) != 0) event.setLatitude(buffer.getDouble());
+            if ((presence & LONGITUDE) != 0) event.setLongitude(buffer.getDouble());
+            if ((presence & FARE) != 0) event.setFareEstimate(buffer.getDouble());
+            if ((presence & DURATION) != 0) event.setDurationMinutes(buffer.getInt());
+            if ((presence & DISTANCE) != 0) event.setDistance(buffer.getDouble());
+            if (cityCode == INLINE_CITY) event.setCity(getString(buffer));
+            if ((presence & RIDE_ID) != 0) event.setRideId(getString(buffer));
+            if ((presence & DRIVER_ID) != 0) event.setDriverId(getString(buffer));
+            if ((presence & RIDER_ID) != 0) event.setRiderId(getString(buffer));
+            return event;
+        } catch (RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw e;
+            }
+            throw new SerializationException("Malformed binary RideEvent payload", e);
+        }
+    }
+
+    private static int stringSize(String value) {
+        int bytes = utf8Length(value);
+        if (bytes > 0xFFFF) {
+            throw new SerializationException("String field too long for binary RideEvent: " + bytes + " bytes");
+        }
+        return 2 + bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        int length = value.length();
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        // ASCII fast path avoids an intermediate byte[] for the common ID formats
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else {
+                ascii = false;
+            }
+        }
+        if (!ascii) {
+            buffer.position(start + 2);
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.putShort(start, (short) (buffer.position() - start - 2));
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.streamride.model.serde;
+
+import com.streamride.model.RideEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka deserializer for {@link RideEvent} in the {@link RideEventBinaryCodec} format.
+ *
+ * Payloads without the binary magic byte are handed to an optional fallback
+ * (typically the JSON deserializer), so a topic holding both formats during a
+ * rollout can be read by one consumer.
+ */
+public class RideEventBinaryDeserializer implements Deserializer<RideEvent> {
+
+    private final Deserializer<RideEvent> fallback;
+
+    public RideEventBinaryDeserializer() {
+        this(null);
+    }
+
+    public RideEventBinaryDeserializer(Deserializer<RideEvent> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (fallback != null) {
+            fallback.configure(configs, isKey);
+        }
+    }
+
+    @Override
+    public RideEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public RideEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (RideEventBinaryCodec.isBinary(data)) {
+            return RideEventBinaryCodec.decode(data);
+        }
+        if (fallback == null) {
+            throw new SerializationException("Payload on " + topic + " is not a binary RideEvent");
+        }
+        return headers == null ? fallback.deserialize(topic, data) : fallback.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.streamride.model.serde;
+
+import com.streamride.model.RideEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing {@link RideEvent} in the {@link RideEventBinaryCodec} format.
+ */
+public class RideEventBinarySerializer implements Serializer<RideEvent> {
+
+    @Override
+    public byte[] serialize(String topic, RideEvent event) {
+        return event == null ? null : RideEventBinaryCodec.encode(event);
+    }
+}
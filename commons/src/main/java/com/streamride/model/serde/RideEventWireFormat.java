@@ -0,0 +1,14 @@
+package com.streamride.model.serde;
+
+/**
+ * Wire formats available for {@link com.streamride.model.RideEvent} on rides.events.
+ * Selected with the {@code streamride.serialization.format} property.
+ */
+public enum RideEventWireFormat {
+    BINARY,
+    JSON;
+
+    public static RideEventWireFormat parse(String value) {
+        return value == null || value.isBlank() ? BINARY : valueOf(value.trim().toUpperCase());
+    }
+}
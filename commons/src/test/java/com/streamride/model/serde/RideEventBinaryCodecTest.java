@@ -0,0 +1,153 @@
+package com.streamride.model.serde;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideEventBinaryCodecTest {
+
+    @ParameterizedTest
+    @EnumSource(EventType.class)
+    void fullEventRoundTrips(EventType type) {
+        RideEvent event = fullEvent(type);
+
+        assertEquals(event, RideEventBinaryCodec.decode(RideEventBinaryCodec.encode(event)));
+    }
+
+    @Test
+    void allFieldsNullRoundTrips() {
+        byte[] data = RideEventBinaryCodec.encode(new RideEvent());
+
+        // Header only: magic, version and an empty presence bitmap
+        assertEquals(4, data.length);
+        assertEquals(new RideEvent(), RideEventBinaryCodec.decode(data));
+    }
+
+    @Test
+    void absentFieldsStayNull() {
+        RideEvent event = RideEvent.builder()
+                .eventType(EventType.DRIVER_LOCATION_UPDATE)
+                .driverId("DRIVER-7")
+                .latitude(18.52)
+                .longitude(73.85)
+                .build();
+
+        assertEquals(event, RideEventBinaryCodec.decode(RideEventBinaryCodec.encode(event)));
+    }
+
+    @Test
+    void cityOutsideTheDictionaryIsWrittenInline() {
+        RideEvent known = fullEvent(EventType.RIDE_REQUESTED);
+        RideEvent unknown = fullEvent(EventType.RIDE_REQUESTED);
+        unknown.setCity("Kochi");
+
+        byte[] data = RideEventBinaryCodec.encode(unknown);
+
+        assertEquals(RideEventBinaryCodec.encode(known).length + 2 + "Kochi".length(), data.length);
+        assertEquals(unknown, RideEventBinaryCodec.decode(data));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"S\u00E3o Paulo", "M\u00FCnchen", "\u092C\u0947\u0902\u0917\u0932\u0941\u0930\u0941", "\u6771\u4EAC", "Z\u00FCrich \uD83D\uDE95"})
+    void nonAsciiStringsRoundTrip(String value) {
+        RideEvent event = fullEvent(EventType.RIDE_STARTED);
+        event.setCity(value);
+        event.setRideId("ride-" + value);
+        event.setDriverId(value + "-driver");
+        event.setRiderId(value);
+
+        byte[] data = RideEventBinaryCodec.encode(event);
+
+        assertEquals(event, RideEventBinaryCodec.decode(data));
+        // No slack: the length prefixes count UTF-8 bytes, not chars
+        int ascii = RideEventBinaryCodec.encode(fullEvent(EventType.RIDE_STARTED)).length;
+        int utf8 = value.getBytes(StandardCharsets.UTF_8).length;
+        int expected = ascii - (2 + "RIDE-0001".length()) - (2 + "DRIVER-42".length()) - (2 + "RIDER-137".length())
+                + (2 + utf8) + (2 + "ride-".length() + utf8) + (2 + utf8 + "-driver".length()) + (2 + utf8);
+        assertEquals(expected, data.length);
+    }
+
+    @Test
+    void typicalEventSize() {
+        RideEvent event = RideEvent.random("RIDE_REQUESTED", "Pune");
+        event.setDriverId("DRIVER-42");
+        event.setRiderId("RIDER-137");
+
+        // The size quoted in the codec's javadoc
+        assertEquals(99, RideEventBinaryCodec.encode(event).length);
+    }
+
+    @Test
+    void isBinaryChecksTheMagicByte() {
+        assertTrue(RideEventBinaryCodec.isBinary(RideEventBinaryCodec.encode(new RideEvent())));
+        assertFalse(RideEventBinaryCodec.isBinary("{\"city\":\"Pune\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(RideEventBinaryCodec.isBinary(new byte[0]));
+        assertFalse(RideEventBinaryCodec.isBinary(null));
+    }
+
+    @Test
+    void rejectsBadMagic() {
+        byte[] data = RideEventBinaryCodec.encode(fullEvent(EventType.RIDE_REQUESTED));
+        data[0] = '{';
+
+        SerializationException e = assertThrows(SerializationException.class, () -> RideEventBinaryCodec.decode(data));
+        assertTrue(e.getMessage().contains("Not a binary"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(bytes = {0, 2, -1})
+    void rejectsUnknownVersion(byte version) {
+        byte[] data = RideEventBinaryCodec.encode(fullEvent(EventType.RIDE_REQUESTED));
+        data[1] = version;
+
+        SerializationException e = assertThrows(SerializationException.class, () -> RideEventBinaryCodec.decode(data));
+        assertTrue(e.getMessage().contains("version " + version));
+    }
+
+    @Test
+    void rejectsUnknownCityCode() {
+        int code = RideEventBinaryCodec.CITY_DICTIONARY.size();
+        // Magic, version, presence = city only, city code
+        byte[] data = {RideEventBinaryCodec.MAGIC, RideEventBinaryCodec.VERSION, 0, 1 << 1, 0, (byte) code};
+
+        SerializationException e = assertThrows(SerializationException.class, () -> RideEventBinaryCodec.decode(data));
+        assertTrue(e.getMessage().contains("Unknown city code " + code));
+    }
+
+    @Test
+    void rejectsTruncatedPayload() {
+        byte[] data = RideEventBinaryCodec.encode(fullEvent(EventType.RIDE_COMPLETED));
+
+        assertThrows(SerializationException.class,
+                () -> RideEventBinaryCodec.decode(Arrays.copyOf(data, data.length - 3)));
+    }
+
+    private static RideEvent fullEvent(EventType type) {
+        return RideEvent.builder()
+                .eventType(type)
+                .rideId("RIDE-0001")
+                .driverId("DRIVER-42")
+                .riderId("RIDER-137")
+                .city("Pune")
+                .timestamp(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000))
+                .latitude(18.5204)
+                .longitude(73.8567)
+                .fareEstimate(212.5)
+                .durationMinutes(23)
+                .distance(7.4)
+                .build();
+    }
+}
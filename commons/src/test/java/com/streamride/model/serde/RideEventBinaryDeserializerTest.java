@@ -0,0 +1,131 @@
+package com.streamride.model.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideEventBinaryDeserializerTest {
+
+    private static final String TOPIC = "rides.events";
+    private static final byte[] JSON = ("{\"eventType\":\"RIDE_REQUESTED\",\"rideId\":\"RIDE-0001\","
+            + "\"riderId\":\"RIDER-137\",\"city\":\"Pune\",\"fareEstimate\":212.5}").getBytes(StandardCharsets.UTF_8);
+
+    private final RecordingJsonDeserializer json = new RecordingJsonDeserializer();
+    private final RideEventBinaryDeserializer deserializer = new RideEventBinaryDeserializer(json);
+
+    @Test
+    void binaryPayloadIsDecodedWithoutTheFallback() {
+        RideEvent event = RideEvent.builder()
+                .eventType(EventType.RIDE_STARTED)
+                .rideId("RIDE-0001")
+                .driverId("DRIVER-42")
+                .city("Pune")
+                .build();
+
+        assertEquals(event, deserializer.deserialize(TOPIC, RideEventBinaryCodec.encode(event)));
+        assertTrue(json.calls.isEmpty());
+    }
+
+    @Test
+    void jsonPayloadGoesToTheFallback() {
+        RideEvent event = deserializer.deserialize(TOPIC, JSON);
+
+        assertEquals(EventType.RIDE_REQUESTED, event.getEventType());
+        assertEquals("RIDE-0001", event.getRideId());
+        assertEquals("RIDER-137", event.getRiderId());
+        assertEquals("Pune", event.getCity());
+        assertEquals(212.5, event.getFareEstimate());
+        assertNull(event.getDriverId());
+        assertEquals(List.of("deserialize"), json.calls);
+    }
+
+    @Test
+    void headersArePassedToTheFallback() {
+        Headers headers = new RecordHeaders().add("__TypeId__", "RideEvent".getBytes(StandardCharsets.UTF_8));
+
+        RideEvent event = deserializer.deserialize(TOPIC, headers, JSON);
+
+        assertEquals("Pune", event.getCity());
+        assertEquals(List.of("deserializeWithHeaders"), json.calls);
+        assertSame(headers, json.headers);
+    }
+
+    @Test
+    void jsonPayloadWithoutFallbackIsRejected() {
+        RideEventBinaryDeserializer binaryOnly = new RideEventBinaryDeserializer();
+
+        SerializationException e = assertThrows(SerializationException.class,
+                () -> binaryOnly.deserialize(TOPIC, JSON));
+        assertTrue(e.getMessage().contains(TOPIC));
+    }
+
+    @Test
+    void nullPayloadIsNull() {
+        assertNull(deserializer.deserialize(TOPIC, null));
+        assertNull(new RideEventBinaryDeserializer().deserialize(TOPIC, null));
+        assertTrue(json.calls.isEmpty());
+    }
+
+    @Test
+    void configureAndCloseReachTheFallback() {
+        deserializer.configure(Map.of(), false);
+        deserializer.close();
+
+        assertEquals(List.of("configure", "close"), json.calls);
+    }
+
+    private static class RecordingJsonDeserializer implements Deserializer<RideEvent> {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final List<String> calls = new ArrayList<>();
+        private Headers headers;
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            calls.add("configure");
+        }
+
+        @Override
+        public RideEvent deserialize(String topic, byte[] data) {
+            calls.add("deserialize");
+            return read(data);
+        }
+
+        @Override
+        public RideEvent deserialize(String topic, Headers headers, byte[] data) {
+            calls.add("deserializeWithHeaders");
+            this.headers = headers;
+            return read(data);
+        }
+
+        @Override
+        public void close() {
+            calls.add("close");
+        }
+
+        private RideEvent read(byte[] data) {
+            try {
+                return mapper.readValue(data, RideEvent.class);
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package com.streamride.dashboardservice.config;
 
+import com.streamride.dashboardservice.websocket.ConflatingOutboundInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ConflatingOutboundInterceptor conflatingInterceptor;
+
+    @Value("${streamride.websocket.outbound.threads:4}")
+    private int outboundThreads;
+
+    @Value("${streamride.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${streamride.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    public WebSocketConfig(ConflatingOutboundInterceptor conflatingInterceptor) {
+        this.conflatingInterceptor = conflatingInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -24,4 +43,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Fan-out runs on a fixed-size pool; conflation keeps a slow session to
+     * one thread and one pending frame per destination.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundThreads)
+                .maxPoolSize(outboundThreads)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(conflatingInterceptor);
+    }
+
+    /**
+     * The interceptor also decorates the handler to track session lifetimes;
+     * it enforces the write deadline itself, since conflation leaves the
+     * transport's send time limit without concurrent sends to act on.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(conflatingInterceptor);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.streamride.dashboardservice.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Warm start of the dashboard from the compacted analytics topics.
+ *
+ * Every newly assigned partition is rewound to its beginning and its end
+ * offset at assignment time is recorded. The bootstrap is complete once the
+ * listener has applied a record at or past every recorded end offset, at
+ * which point the in-memory state holds the latest value per key and the
+ * instance reports ready. Compaction keeps the logs small, so this takes
+ * roughly one record per city, cell or ranking.
+ *
+ * A partition whose tail holds no records (transaction markers, say) would
+ * never be reached, so the bootstrap also completes after a timeout.
+ *
+ * Rebalance callbacks and {@link #onRecord} run on the consumer threads and
+ * are synchronized while the bootstrap is in progress; {@link #isComplete()}
+ * may be called from any thread.
+ */
+@Component
+@Slf4j
+public class AnalyticsBootstrap implements ConsumerAwareRebalanceListener {
+
+    private final long timeoutMs;
+
+    // Guarded by this
+    private final Map<TopicPartition, Long> pending = new HashMap<>();
+    private final Set<TopicPartition> rewound = new HashSet<>();
+
+    private volatile boolean complete;
+    private volatile long startedAt = -1;
+    private volatile int pendingPartitions;
+    private volatile long recordsReplayed;
+
+    public AnalyticsBootstrap(@Value("${streamride.bootstrap.timeout-ms:60000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public synchronized void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<TopicPartition> fresh = partitions.stream().filter(rewound::add).toList();
+        if (fresh.isEmpty()) {
+            return;
+        }
+        consumer.seekToBeginning(fresh);
+        if (complete) {
+            // Partitions added after going live are replayed without gating readiness
+            return;
+        }
+        if (startedAt < 0) {
+            startedAt = System.currentTimeMillis();
+        }
+        consumer.endOffsets(fresh).forEach((partition, end) -> {
+            if (consumer.position(partition) < end) {
+                pending.put(partition, end);
+            }
+        });
+        log.info("Bootstrapping {} analytics partitions, {} with records to replay", fresh.size(), pending.size());
+        updateProgress();
+    }
+
+    @Override
+    public synchronized void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    @Override
+    public synchronized void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    /**
+     * Notes that a record has been applied to the dashboard state.
+     */
+    public void onRecord(ConsumerRecord<?, ?> record) {
+        if (complete) {
+            return;
+        }
+        synchronized (this) {
+            recordReplayed(record);
+        }
+    }
+
+    private void recordReplayed(ConsumerRecord<?, ?> record) {
+        recordsReplayed++;
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Long end = pending.get(partition);
+        if (end != null && record.offset() + 1 >= end) {
+            pending.remove(partition);
+            updateProgress();
+        }
+    }
+
+    /**
+     * @return true once the dashboard state has caught up with the compacted
+     * topics, or the bootstrap timed out
+     */
+    public boolean isComplete() {
+        if (!complete && startedAt >= 0 && System.currentTimeMillis() - startedAt > timeoutMs) {
+            log.warn("Analytics bootstrap timed out after {} ms with {} partitions pending; going live",
+                    timeoutMs, pendingPartitions);
+            complete = true;
+        }
+        return complete;
+    }
+
+    public int getPendingPartitions() {
+        return pendingPartitions;
+    }
+
+    public long getRecordsReplayed() {
+        return recordsReplayed;
+    }
+
+    private void forget(Collection<TopicPartition> partitions) {
+        rewound.removeAll(partitions);
+        partitions.forEach(pending::remove);
+        if (!complete && startedAt >= 0) {
+            updateProgress();
+        }
+    }
+
+    private void updateProgress() {
+        pendingPartitions = pending.size();
+        if (pending.isEmpty() && !complete) {
+            complete = true;
+            log.info("Analytics bootstrap complete: {} records in {} ms", recordsReplayed,
+                    System.currentTimeMillis() - startedAt);
+        }
+    }
+}
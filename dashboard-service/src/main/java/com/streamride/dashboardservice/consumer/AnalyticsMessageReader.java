@@ -0,0 +1,50 @@
+package com.streamride.dashboardservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.streamride.dashboardservice.model.*;
+import com.streamride.model.config.KafkaTopics;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Typed deserialization of analytics records, run on the consumer thread.
+ *
+ * Each per-type topic carries a single message type, so the raw UTF-8 bytes
+ * are parsed straight to that type with a reader prepared once per topic;
+ * only the legacy multiplexed topic needs polymorphic deserialization.
+ */
+@Component
+public class AnalyticsMessageReader {
+
+    private static final Map<String, Class<? extends AnalyticsMessage>> MESSAGE_TYPES = Map.of(
+            KafkaTopics.ANALYTICS_METRICS, MetricsMessage.class,
+            KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES, CityActiveRidesMessage.class,
+            KafkaTopics.ANALYTICS_TOP_CITIES, TopActiveCitiesMessage.class,
+            KafkaTopics.ANALYTICS_ANOMALIES, AnomalyMessage.class,
+            KafkaTopics.ANALYTICS_PERCENTILES, RidePercentilesMessage.class,
+            KafkaTopics.ANALYTICS_ACTIVE_DRIVERS, ActiveDriversMessage.class,
+            KafkaTopics.ANALYTICS_HEATMAP, HeatmapMessage.class);
+
+    private final Map<String, ObjectReader> readers;
+    private final ObjectReader polymorphicReader;
+
+    public AnalyticsMessageReader(ObjectMapper objectMapper) {
+        this.readers = MESSAGE_TYPES.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(
+                        Map.Entry::getKey, entry -> objectMapper.readerFor(entry.getValue())));
+        this.polymorphicReader = objectMapper.readerFor(AnalyticsMessage.class);
+    }
+
+    /**
+     * @param topic topic the record was read from
+     * @param value record value, UTF-8 JSON
+     * @return the message, typed by its topic
+     */
+    public AnalyticsMessage read(String topic, byte[] value) throws IOException {
+        return readers.getOrDefault(topic, polymorphicReader).readValue(value);
+    }
+}
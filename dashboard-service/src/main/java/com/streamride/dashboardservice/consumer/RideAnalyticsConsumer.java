@@ -1,26 +1,102 @@
 package com.streamride.dashboardservice.consumer;
 
+import com.streamride.dashboardservice.model.AnalyticsMessage;
 import com.streamride.dashboardservice.service.MetricsAggregatorService;
 import com.streamride.model.config.KafkaTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes the per-type, log-compacted analytics topics the dashboard shows.
+ * Each topic carries one message type, keyed by city, cell or ranking. Every
+ * partition is replayed from the beginning first; see {@link AnalyticsBootstrap}.
+ *
+ * Records arrive in poll batches. Within a batch only the newest record per
+ * (topic, key) is deserialized and applied, so a consumer that has fallen
+ * behind skips superseded state instead of working through it. Anomalies are
+ * events rather than state and are all applied.
+ */
 @Component
 @Slf4j
 public class RideAnalyticsConsumer {
 
+    private record LatestKey(String topic, String key) {
+    }
+
     private final MetricsAggregatorService metricsAggregator;
+    private final AnalyticsMessageReader reader;
+    private final AnalyticsBootstrap bootstrap;
+    private final Counter applied;
+    private final Counter superseded;
 
     @Autowired
-    public RideAnalyticsConsumer(MetricsAggregatorService metricsAggregator) {
+    public RideAnalyticsConsumer(MetricsAggregatorService metricsAggregator, AnalyticsMessageReader reader,
+                                 AnalyticsBootstrap bootstrap, MeterRegistry meterRegistry) {
         this.metricsAggregator = metricsAggregator;
+        this.reader = reader;
+        this.bootstrap = bootstrap;
+        this.applied = Counter.builder("streamride.dashboard.records.applied")
+                .description("Analytics records deserialized and applied")
+                .register(meterRegistry);
+        this.superseded = Counter.builder("streamride.dashboard.records.superseded")
+                .description("Analytics records skipped for a newer record with the same key in the batch")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = {
+            KafkaTopics.ANALYTICS_METRICS,
+            KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES,
+            KafkaTopics.ANALYTICS_TOP_CITIES,
+            KafkaTopics.ANALYTICS_ANOMALIES,
+            KafkaTopics.ANALYTICS_PERCENTILES,
+            KafkaTopics.ANALYTICS_ACTIVE_DRIVERS,
+            KafkaTopics.ANALYTICS_HEATMAP
+    })
+    public void consume(List<ConsumerRecord<String, byte[]>> records) {
+        Map<LatestKey, ConsumerRecord<String, byte[]>> latest = new LinkedHashMap<>();
+        List<ConsumerRecord<String, byte[]>> events = new ArrayList<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.key() == null || KafkaTopics.ANALYTICS_ANOMALIES.equals(record.topic())) {
+                events.add(record);
+            } else {
+                latest.put(new LatestKey(record.topic(), record.key()), record);
+            }
+        }
+
+        latest.values().forEach(this::apply);
+        events.forEach(this::apply);
+        // Skipped records count as consumed for the bootstrap as well
+        records.forEach(bootstrap::onRecord);
+
+        int skipped = records.size() - latest.size() - events.size();
+        superseded.increment(skipped);
+        log.debug("Applied {} of {} analytics records", records.size() - skipped, records.size());
     }
 
-    @KafkaListener(topics = KafkaTopics.RIDES_ANALYTICS, groupId = "dashboard-service")
-    public void consume(String message) {
-        log.debug("Received message from rides.analytics: {}", message);
+    private void apply(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return;
+        }
+        AnalyticsMessage message;
+        try {
+            message = reader.read(record.topic(), record.value());
+        } catch (Exception e) {
+            // Offsets identify the record; payloads stay out of the logs
+            log.error("Unreadable analytics record {}-{}@{}: {}", record.topic(), record.partition(),
+                    record.offset(), e.getMessage());
+            return;
+        }
         metricsAggregator.processAnalyticsMessage(message);
+        applied.increment();
     }
 }
@@ -1,22 +1,36 @@
 package com.streamride.dashboardservice.controller;
 
 import com.streamride.dashboardservice.model.DashboardMetrics;
+import com.streamride.dashboardservice.model.HeatmapMessage;
+import com.streamride.dashboardservice.model.HistoryMetric;
+import com.streamride.dashboardservice.model.MetricHistory;
+import com.streamride.dashboardservice.model.RidePercentilesMessage;
+import com.streamride.dashboardservice.service.MetricHistoryService;
 import com.streamride.dashboardservice.service.MetricsAggregatorService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.List;
+
 @RestController
 @Slf4j
 public class MetricsRestController {
 
+    private static final int MAX_HISTORY_POINTS = 5000;
+
     private final MetricsAggregatorService metricsAggregator;
+    private final MetricHistoryService metricHistory;
 
     @Autowired
-    public MetricsRestController(MetricsAggregatorService metricsAggregator) {
+    public MetricsRestController(MetricsAggregatorService metricsAggregator,
+                                 MetricHistoryService metricHistory) {
         this.metricsAggregator = metricsAggregator;
+        this.metricHistory = metricHistory;
     }
 
     /**
@@ -29,6 +43,46 @@ public class MetricsRestController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Get the latest duration and fare percentiles per city
+     */
+    @GetMapping("/metrics/percentiles")
+    public ResponseEntity<List<RidePercentilesMessage>> getPercentiles() {
+        return ResponseEntity.ok(metricsAggregator.getLatestPercentiles());
+    }
+
+    /**
+     * Get heatmap cells at the given geohash precision
+     */
+    @GetMapping("/metrics/heatmap")
+    public ResponseEntity<List<HeatmapMessage>> getHeatmap(@RequestParam(defaultValue = "5") int precision) {
+        return ResponseEntity.ok(metricsAggregator.getHeatmap(precision));
+    }
+
+    /**
+     * Get a city metric's history, downsampled to at most the requested
+     * number of points. The range defaults to the last hour.
+     */
+    @GetMapping("/metrics/history")
+    public ResponseEntity<MetricHistory> getHistory(@RequestParam("city") String city,
+                                                    @RequestParam("metric") String metric,
+                                                    @RequestParam(name = "from", required = false) Long from,
+                                                    @RequestParam(name = "to", required = false) Long to,
+                                                    @RequestParam(name = "points", defaultValue = "500") int points) {
+        HistoryMetric historyMetric = HistoryMetric.fromName(metric);
+        if (historyMetric == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - Duration.ofHours(1).toMillis();
+        int maxPoints = Math.max(3, Math.min(points, MAX_HISTORY_POINTS));
+        MetricHistory history = metricHistory.query(city, historyMetric, start, end, maxPoints);
+        if (history == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(history);
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,31 @@
+package com.streamride.dashboardservice.controller;
+
+import com.streamride.dashboardservice.model.CityMetricsFrame;
+import com.streamride.dashboardservice.service.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+@Controller
+@Slf4j
+public class MetricsStompController {
+
+    private final WebSocketService webSocketService;
+
+    @Autowired
+    public MetricsStompController(WebSocketService webSocketService) {
+        this.webSocketService = webSocketService;
+    }
+
+    /**
+     * Reply once with a city's keyframe, for clients that just subscribed to
+     * /topic/metrics/{city} or saw a gap in its sequence numbers
+     */
+    @SubscribeMapping("/metrics/{city}")
+    public CityMetricsFrame sync(@DestinationVariable("city") String city) {
+        log.debug("STOMP - sync requested for {}", city);
+        return webSocketService.syncFrame(city);
+    }
+}
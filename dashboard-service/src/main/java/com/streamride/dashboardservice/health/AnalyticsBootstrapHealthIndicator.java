@@ -0,0 +1,30 @@
+package com.streamride.dashboardservice.health;
+
+import com.streamride.dashboardservice.consumer.AnalyticsBootstrap;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the instance out of service until the analytics bootstrap is done.
+ * Part of the readiness group, so a new replica takes traffic only once its
+ * state has caught up with the compacted topics.
+ */
+@Component
+public class AnalyticsBootstrapHealthIndicator implements HealthIndicator {
+
+    private final AnalyticsBootstrap bootstrap;
+
+    public AnalyticsBootstrapHealthIndicator(AnalyticsBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = bootstrap.isComplete() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("pendingPartitions", bootstrap.getPendingPartitions())
+                .withDetail("recordsReplayed", bootstrap.getRecordsReplayed())
+                .build();
+    }
+}
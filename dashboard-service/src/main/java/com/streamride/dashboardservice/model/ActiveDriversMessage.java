@@ -0,0 +1,22 @@
+package com.streamride.dashboardservice.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Message containing the approximate number of distinct drivers and riders
+ * seen in a city over a rolling window. The message with city
+ * {@link #ALL_CITIES} counts across all cities.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ActiveDriversMessage extends AnalyticsMessage {
+
+    public static final String ALL_CITIES = "ALL";
+
+    private String city;
+    private Long windowStart;
+    private Long windowEnd;
+    private Long activeDrivers;
+    private Long activeRiders;
+}
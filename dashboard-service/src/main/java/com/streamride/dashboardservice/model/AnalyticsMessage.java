@@ -15,7 +15,10 @@ import lombok.Data;
         @JsonSubTypes.Type(value = TopActiveCitiesMessage.class, name = "TOP_ACTIVE_CITIES"),
         @JsonSubTypes.Type(value = CityActiveRidesMessage.class, name = "CITY_ACTIVE_RIDES"),
         @JsonSubTypes.Type(value = MetricsMessage.class, name = "METRICS"),
-        @JsonSubTypes.Type(value = AnomalyMessage.class, name = "ANOMALY")
+        @JsonSubTypes.Type(value = AnomalyMessage.class, name = "ANOMALY"),
+        @JsonSubTypes.Type(value = RidePercentilesMessage.class, name = "RIDE_PERCENTILES"),
+        @JsonSubTypes.Type(value = ActiveDriversMessage.class, name = "ACTIVE_DRIVERS"),
+        @JsonSubTypes.Type(value = HeatmapMessage.class, name = "HEATMAP")
 })
 public abstract class AnalyticsMessage {
     private String type;
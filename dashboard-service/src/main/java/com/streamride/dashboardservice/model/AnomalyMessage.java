@@ -1,11 +1,13 @@
 package com.streamride.dashboardservice.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 /**
  * Message indicating an anomaly has been detected.
- * Currently used for rides exceeding the duration threshold.
+ * Sent for completed rides whose duration, fare or distance is a z-score
+ * outlier against the city's streaming baseline.
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -13,5 +15,11 @@ public class AnomalyMessage extends AnalyticsMessage {
     private String city;
     private String rideId;
     private Integer duration;
+    private String metric;
+    private Double value;
+    private Double mean;
+    private Double stdDev;
+    @JsonProperty("zScore") // Lombok's getZScore would otherwise map to "zscore"
+    private Double zScore;
     private String message;
 }
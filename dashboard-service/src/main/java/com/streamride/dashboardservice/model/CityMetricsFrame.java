@@ -0,0 +1,36 @@
+package com.streamride.dashboardservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Frame pushed to /topic/metrics/{city}.
+ *
+ * Frames of a city are numbered consecutively. A keyframe carries every
+ * field; any other frame carries only the fields that changed since the
+ * previous frame and applies on top of it. A client that sees a gap in
+ * {@code seq} discards its state and waits for the next keyframe, or
+ * subscribes to /app/metrics/{city} for one immediately.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CityMetricsFrame {
+
+    private String city;
+    private long seq;
+    private boolean keyframe;
+
+    private Long activeRides;
+    private Long activeDrivers;
+    private Long activeRiders;
+
+    private Instant timestamp;
+}
@@ -0,0 +1,8 @@
+package com.streamride.dashboardservice.model;
+
+/**
+ * Current metrics of one city as held by the aggregator.
+ * Fields are null until the city's first message of that type.
+ */
+public record CityMetricsSnapshot(Long activeRides, Long activeDrivers, Long activeRiders) {
+}
@@ -15,7 +15,9 @@ import java.util.List;
 public class DashboardMetrics {
 
     private Long activeRides;
+    private Long activeDrivers;
     private Double averageDuration;
+    private Double averageWaitSeconds;
     private List<CityMetrics> topCities;
 
     private Instant timestamp;
@@ -0,0 +1,18 @@
+package com.streamride.dashboardservice.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Message containing ride lifecycle counts for one geohash cell.
+ * Sent by the processor-service for cells that changed since the last publication.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class HeatmapMessage extends AnalyticsMessage {
+    private String cell;
+    private Integer precision;
+    private Long requested;
+    private Long started;
+    private Long completed;
+}
@@ -0,0 +1,44 @@
+package com.streamride.dashboardservice.model;
+
+import java.util.function.Function;
+
+/**
+ * Per-city metrics kept in the time-series history, by their query name.
+ */
+public enum HistoryMetric {
+
+    ACTIVE_RIDES("activeRides", CityMetricsSnapshot::activeRides),
+    ACTIVE_DRIVERS("activeDrivers", CityMetricsSnapshot::activeDrivers),
+    ACTIVE_RIDERS("activeRiders", CityMetricsSnapshot::activeRiders);
+
+    private final String metricName;
+    private final Function<CityMetricsSnapshot, Long> extractor;
+
+    HistoryMetric(String metricName, Function<CityMetricsSnapshot, Long> extractor) {
+        this.metricName = metricName;
+        this.extractor = extractor;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * @return the metric's value in the snapshot, or null if not yet reported
+     */
+    public Long valueOf(CityMetricsSnapshot snapshot) {
+        return extractor.apply(snapshot);
+    }
+
+    /**
+     * @return the metric with that query name, or null if there is none
+     */
+    public static HistoryMetric fromName(String name) {
+        for (HistoryMetric metric : values()) {
+            if (metric.metricName.equals(name)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.streamride.dashboardservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of a history range query. Points are held as parallel arrays,
+ * oldest first, to keep the response small.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricHistory {
+
+    private String city;
+    private String metric;
+    // Bucket width the points were read at, before downsampling
+    private long resolutionMs;
+
+    // Bucket start times, epoch millis, and the mean value of each bucket
+    private long[] timestamps;
+    private double[] values;
+}
@@ -5,7 +5,8 @@ import lombok.EqualsAndHashCode;
 
 /**
  * Message containing aggregated metrics across all cities.
- * Includes active rides, completed rides, and average duration.
+ * Includes active rides, completed and expired rides, average duration, and the
+ * request-to-start wait and start-to-complete duration measured from event times.
  */
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -13,4 +14,7 @@ public class MetricsMessage extends AnalyticsMessage {
     private Long activeRides;
     private Long ridesCompleted;
     private Double avgDuration;
+    private Long ridesExpired;
+    private Double avgWaitSeconds;
+    private Double avgMeasuredDuration;
 }
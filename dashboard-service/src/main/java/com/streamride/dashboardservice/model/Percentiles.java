@@ -0,0 +1,15 @@
+package com.streamride.dashboardservice.model;
+
+import lombok.Data;
+
+/**
+ * Percentiles of a distribution, as estimated by the processor-service sketches.
+ * All fields are null when the window had no samples.
+ */
+@Data
+public class Percentiles {
+    private Double p50;
+    private Double p95;
+    private Double p99;
+    private Double max;
+}
@@ -0,0 +1,20 @@
+package com.streamride.dashboardservice.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Message containing ride duration and fare percentiles for one city and window.
+ * Sent by the processor-service when a tumbling or hopping window closes.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RidePercentilesMessage extends AnalyticsMessage {
+    private String city;
+    private String window;
+    private Long windowStart;
+    private Long windowEnd;
+    private Long rides;
+    private Percentiles durationMinutes;
+    private Percentiles fare;
+}
@@ -0,0 +1,91 @@
+package com.streamride.dashboardservice.service;
+
+import com.streamride.dashboardservice.model.CityMetrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Active ride counts per city with a running total and a ranking.
+ *
+ * An update replaces the city's entry in a tree ordered by count, highest
+ * first, so it costs O(log n), and the total is adjusted by the difference
+ * instead of being re-summed. Reading the top K walks the first K entries.
+ *
+ * Not thread-safe; {@link MetricsAggregatorService} serializes writers.
+ */
+class ActiveRidesIndex {
+
+    private record Entry(String city, long activeRides) {
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::activeRides).reversed()
+            .thenComparing(Entry::city);
+
+    private final Map<String, Entry> byCity = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING);
+    private long total;
+
+    /**
+     * @return true if the city's count changed
+     */
+    boolean update(String city, long activeRides) {
+        Entry next = new Entry(city, activeRides);
+        Entry previous = byCity.put(city, next);
+        if (previous != null) {
+            if (previous.activeRides() == activeRides) {
+                return false;
+            }
+            ranking.remove(previous);
+            total -= previous.activeRides();
+        }
+        ranking.add(next);
+        total += activeRides;
+        return true;
+    }
+
+    /**
+     * @return the city's active rides, or null if the city is unknown
+     */
+    Long get(String city) {
+        Entry entry = byCity.get(city);
+        return entry == null ? null : entry.activeRides();
+    }
+
+    Set<String> cities() {
+        return byCity.keySet();
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * @return the k cities with the most active rides, highest first
+     */
+    List<CityMetrics> top(int k) {
+        List<CityMetrics> top = new ArrayList<>(k);
+        Iterator<Entry> entries = ranking.iterator();
+        while (top.size() < k && entries.hasNext()) {
+            Entry entry = entries.next();
+            top.add(CityMetrics.builder()
+                    .city(entry.city())
+                    .activeRides(entry.activeRides())
+                    .build());
+        }
+        return List.copyOf(top);
+    }
+
+    void clear() {
+        byCity.clear();
+        ranking.clear();
+        total = 0;
+    }
+}
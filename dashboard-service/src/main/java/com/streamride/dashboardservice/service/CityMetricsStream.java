@@ -0,0 +1,89 @@
+package com.streamride.dashboardservice.service;
+
+import com.streamride.dashboardservice.model.CityMetricsFrame;
+import com.streamride.dashboardservice.model.CityMetricsSnapshot;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Frame sequence of one city's topic.
+ *
+ * Remembers the values as of the last frame sent, so each delta holds only
+ * what changed since then and a sync request can return the state that the
+ * following deltas apply to. Frames omit null fields, so a delta cannot
+ * express a field going back to null, as after a reset; that change is sent
+ * as a keyframe instead.
+ *
+ * Not thread-safe; {@link WebSocketService} serializes access.
+ */
+class CityMetricsStream {
+
+    private final String city;
+    private long seq;
+    private CityMetricsSnapshot lastSent;
+
+    CityMetricsStream(String city) {
+        this.city = city;
+    }
+
+    /**
+     * @return the fields that changed since the last frame, a keyframe if a
+     *         field was cleared, or null if nothing changed
+     */
+    CityMetricsFrame delta(CityMetricsSnapshot current, Instant now) {
+        if (lastSent == null
+                || cleared(lastSent.activeRides(), current.activeRides())
+                || cleared(lastSent.activeDrivers(), current.activeDrivers())
+                || cleared(lastSent.activeRiders(), current.activeRiders())) {
+            return keyframe(current, now);
+        }
+        CityMetricsFrame.CityMetricsFrameBuilder frame = CityMetricsFrame.builder();
+        boolean changed = false;
+        if (!Objects.equals(current.activeRides(), lastSent.activeRides())) {
+            frame.activeRides(current.activeRides());
+            changed = true;
+        }
+        if (!Objects.equals(current.activeDrivers(), lastSent.activeDrivers())) {
+            frame.activeDrivers(current.activeDrivers());
+            changed = true;
+        }
+        if (!Objects.equals(current.activeRiders(), lastSent.activeRiders())) {
+            frame.activeRiders(current.activeRiders());
+            changed = true;
+        }
+        if (!changed) {
+            return null;
+        }
+        lastSent = current;
+        return frame.city(city).seq(++seq).keyframe(false).timestamp(now).build();
+    }
+
+    CityMetricsFrame keyframe(CityMetricsSnapshot current, Instant now) {
+        lastSent = current;
+        return full(++seq, current, now);
+    }
+
+    /**
+     * @return the state as of the last frame, under that frame's number
+     */
+    CityMetricsFrame sync(Instant now) {
+        return full(seq, lastSent == null ? new CityMetricsSnapshot(null, null, null) : lastSent, now);
+    }
+
+    private static boolean cleared(Long previous, Long current) {
+        return previous != null && current == null;
+    }
+
+    private CityMetricsFrame full(long seq, CityMetricsSnapshot values, Instant now) {
+        return CityMetricsFrame.builder()
+                .city(city)
+                .seq(seq)
+                .keyframe(true)
+                .activeRides(values.activeRides())
+                .activeDrivers(values.activeDrivers())
+                .activeRiders(values.activeRiders())
+                .timestamp(now)
+                .build();
+    }
+}
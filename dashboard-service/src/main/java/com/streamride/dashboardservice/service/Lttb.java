@@ -0,0 +1,71 @@
+package com.streamride.dashboardservice.service;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling.
+ *
+ * Keeps the first and last points and, from each of the buckets in
+ * between, the point forming the largest triangle with the point kept from
+ * the previous bucket and the mean of the next bucket. Peaks and troughs
+ * survive, unlike with averaging or every-nth sampling.
+ */
+final class Lttb {
+
+    private Lttb() {
+        // Utility class
+    }
+
+    /**
+     * Downsample in place: the kept points are moved to the front of the
+     * arrays in order.
+     *
+     * @param length    number of points in the arrays
+     * @param threshold number of points to keep, at least 3
+     * @return number of points kept
+     */
+    static int downsample(long[] timestamps, double[] values, int length, int threshold) {
+        if (threshold >= length || threshold < 3) {
+            return length;
+        }
+        double every = (double) (length - 2) / (threshold - 2);
+        int kept = 1;
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = (int) (bucket * every) + 1;
+            int end = (int) ((bucket + 1) * every) + 1;
+
+            // Mean of the next bucket, or the last point for the final bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, length);
+            double meanT = 0;
+            double meanV = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                meanT += timestamps[i];
+                meanV += values[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            meanT /= nextCount;
+            meanV /= nextCount;
+
+            double previousT = timestamps[previous];
+            double previousV = values[previous];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousT - meanT) * (values[i] - previousV)
+                        - (previousT - timestamps[i]) * (meanV - previousV));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            // selected >= kept, so earlier kept points are never overwritten
+            timestamps[kept] = timestamps[selected];
+            values[kept] = values[selected];
+            previous = kept;
+            kept++;
+        }
+        timestamps[kept] = timestamps[length - 1];
+        values[kept] = values[length - 1];
+        return kept + 1;
+    }
+}
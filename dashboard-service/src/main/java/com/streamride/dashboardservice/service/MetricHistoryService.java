@@ -0,0 +1,234 @@
+package com.streamride.dashboardservice.service;
+
+import com.streamride.dashboardservice.consumer.AnalyticsBootstrap;
+import com.streamride.dashboardservice.model.CityMetricsSnapshot;
+import com.streamride.dashboardservice.model.HistoryMetric;
+import com.streamride.dashboardservice.model.MetricHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory history of the per-city metrics.
+ *
+ * The aggregator's current values are sampled on a fixed interval into
+ * per-city, per-metric {@link TimeSeriesRing}s at 1 second, 1 minute and
+ * 1 hour resolution. A bucket costs 20 bytes, so with the default bucket
+ * counts, covering an hour, a day and a month, one metric's rings take about
+ * 115 KB. They are allocated when the metric first reports a value, so a
+ * city costs up to about 345 KB with all three metrics.
+ *
+ * To bound the total, at most {@code max-cities} cities are tracked, about
+ * 170 MB at the default of 500. A city whose metrics have not changed for
+ * {@code idle-eviction-ms}, or that the aggregator no longer reports, is
+ * treated as having stopped reporting: its history is dropped and its slot
+ * freed for another city. An idle city is tracked again once its metrics
+ * change.
+ *
+ * A range query reads the finest resolution that still covers its start
+ * and downsamples the result to the requested number of points with
+ * {@link Lttb}.
+ */
+@Service
+@Slf4j
+public class MetricHistoryService {
+
+    private static final long SECOND = Duration.ofSeconds(1).toMillis();
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    /**
+     * Rings of one city and metric, finest resolution first.
+     * Guarded by its own monitor: sampling and queries run on different threads.
+     */
+    private static final class Series {
+        private final TimeSeriesRing[] rings;
+
+        private Series(int secondBuckets, int minuteBuckets, int hourBuckets) {
+            this.rings = new TimeSeriesRing[] {
+                    new TimeSeriesRing(SECOND, secondBuckets),
+                    new TimeSeriesRing(MINUTE, minuteBuckets),
+                    new TimeSeriesRing(HOUR, hourBuckets)
+            };
+        }
+    }
+
+    /**
+     * History of one city. The series map is read by queries while sampling
+     * adds to it; the change tracking is only touched by sampling.
+     */
+    private static final class CityHistory {
+        private final Map<HistoryMetric, Series> series = new ConcurrentHashMap<>();
+        private CityMetricsSnapshot lastValues;
+        private long lastChanged;
+    }
+
+    private final MetricsAggregatorService metricsAggregator;
+    private final AnalyticsBootstrap bootstrap;
+    private final int secondBuckets;
+    private final int minuteBuckets;
+    private final int hourBuckets;
+    private final int maxCities;
+    private final long idleEvictionMs;
+
+    private final Map<String, CityHistory> history = new ConcurrentHashMap<>();
+    // Sampling thread only: values of cities evicted as idle, tracked again once they change
+    private final Map<String, CityMetricsSnapshot> idle = new HashMap<>();
+    private boolean capReported;
+
+    @Autowired
+    public MetricHistoryService(MetricsAggregatorService metricsAggregator,
+                                AnalyticsBootstrap bootstrap,
+                                @Value("${streamride.history.second-buckets:3600}") int secondBuckets,
+                                @Value("${streamride.history.minute-buckets:1440}") int minuteBuckets,
+                                @Value("${streamride.history.hour-buckets:720}") int hourBuckets,
+                                @Value("${streamride.history.max-cities:500}") int maxCities,
+                                @Value("${streamride.history.idle-eviction-ms:3600000}") long idleEvictionMs) {
+        this.metricsAggregator = metricsAggregator;
+        this.bootstrap = bootstrap;
+        this.secondBuckets = secondBuckets;
+        this.minuteBuckets = minuteBuckets;
+        this.hourBuckets = hourBuckets;
+        this.maxCities = maxCities;
+        this.idleEvictionMs = idleEvictionMs;
+    }
+
+    /**
+     * Sample every city's current metrics. Values replayed during the
+     * bootstrap are transient, so sampling starts once it is complete.
+     */
+    @Scheduled(fixedRateString = "${streamride.history.sample-interval-ms:1000}")
+    public void sample() {
+        if (!bootstrap.isComplete()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> cities = metricsAggregator.getCities();
+        Map<String, CityMetricsSnapshot> metrics = metricsAggregator.getCityMetrics(cities);
+        evict(cities, now);
+        for (Map.Entry<String, CityMetricsSnapshot> city : metrics.entrySet()) {
+            CityMetricsSnapshot current = city.getValue();
+            CityHistory cityHistory = history.get(city.getKey());
+            if (cityHistory == null) {
+                if (current.equals(idle.get(city.getKey()))) {
+                    continue;
+                }
+                if (history.size() >= maxCities) {
+                    reportCap();
+                    continue;
+                }
+                idle.remove(city.getKey());
+                cityHistory = new CityHistory();
+                cityHistory.lastChanged = now;
+                history.put(city.getKey(), cityHistory);
+            }
+            if (!current.equals(cityHistory.lastValues)) {
+                cityHistory.lastValues = current;
+                cityHistory.lastChanged = now;
+            }
+            for (HistoryMetric metric : HistoryMetric.values()) {
+                Long value = metric.valueOf(current);
+                if (value == null) {
+                    continue;
+                }
+                Series series = cityHistory.series.computeIfAbsent(metric,
+                        m -> new Series(secondBuckets, minuteBuckets, hourBuckets));
+                synchronized (series) {
+                    for (TimeSeriesRing ring : series.rings) {
+                        ring.add(now, value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a metric's history over a time range.
+     *
+     * @param city      city name
+     * @param metric    metric
+     * @param from      range start, epoch millis, inclusive
+     * @param to        range end, epoch millis, inclusive
+     * @param maxPoints maximum number of points to return, at least 3
+     * @return the points in the range, none if the metric has not reported
+     *         yet, or null if the city has no history
+     */
+    public MetricHistory query(String city, HistoryMetric metric, long from, long to, int maxPoints) {
+        CityHistory cityHistory = history.get(city);
+        if (cityHistory == null) {
+            return null;
+        }
+        Series series = cityHistory.series.get(metric);
+        if (series == null) {
+            return MetricHistory.builder()
+                    .city(city)
+                    .metric(metric.getMetricName())
+                    .resolutionMs(SECOND)
+                    .timestamps(new long[0])
+                    .values(new double[0])
+                    .build();
+        }
+        TimeSeriesRing ring;
+        long[] timestamps;
+        double[] values;
+        int length;
+        synchronized (series) {
+            ring = select(series, from);
+            timestamps = new long[ring.size()];
+            values = new double[ring.size()];
+            length = ring.copyRange(from, to, timestamps, values);
+        }
+        length = Lttb.downsample(timestamps, values, length, maxPoints);
+        return MetricHistory.builder()
+                .city(city)
+                .metric(metric.getMetricName())
+                .resolutionMs(ring.resolutionMs())
+                .timestamps(Arrays.copyOf(timestamps, length))
+                .values(Arrays.copyOf(values, length))
+                .build();
+    }
+
+    /**
+     * @return the finest ring that reaches back to the start of the range or
+     *         has not yet overwritten any bucket, or the coarsest ring
+     */
+    private static TimeSeriesRing select(Series series, long from) {
+        for (TimeSeriesRing ring : series.rings) {
+            if (ring.oldest() <= from || !ring.isFull()) {
+                return ring;
+            }
+        }
+        return series.rings[series.rings.length - 1];
+    }
+
+    private void evict(Set<String> cities, long now) {
+        idle.keySet().retainAll(cities);
+        for (Iterator<Map.Entry<String, CityHistory>> it = history.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, CityHistory> city = it.next();
+            if (!cities.contains(city.getKey())) {
+                it.remove();
+            } else if (now - city.getValue().lastChanged > idleEvictionMs) {
+                idle.put(city.getKey(), city.getValue().lastValues);
+                it.remove();
+            }
+        }
+    }
+
+    private void reportCap() {
+        if (!capReported) {
+            capReported = true;
+            log.warn("Metric history is tracking the maximum of {} cities; further cities get no history"
+                    + " until tracked ones stop reporting", maxCities);
+        }
+    }
+}
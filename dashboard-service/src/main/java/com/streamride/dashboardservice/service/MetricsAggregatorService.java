@@ -1,56 +1,77 @@
 package com.streamride.dashboardservice.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamride.dashboardservice.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Service responsible for aggregating analytics metrics from Kafka messages.
  * Uses strongly-typed POJOs for message deserialization to separate
  * deserialization logic from business logic.
+ *
+ * Dashboard metrics are maintained incrementally: the active ride total and
+ * ranking live in an {@link ActiveRidesIndex}. The driver total is the
+ * processor's global estimate, merged from the city sketches so that a driver
+ * seen in several cities counts once; it is not the sum of the city
+ * estimates. Writers update them under a lock and then publish an immutable
+ * {@link DashboardMetrics} snapshot through a volatile field, so readers never
+ * block and a read costs nothing beyond the reference.
+ *
+ * A change listener is told which city changed, or null when only global
+ * metrics did, so pushes can be driven by changes instead of a timer.
  */
 @Service
 @Slf4j
 public class MetricsAggregatorService {
 
-    private final ObjectMapper objectMapper;
+    private static final int TOP_CITIES = 5;
 
-    // Thread-safe storage for metrics
-    private final Map<String, Long> cityActiveRides = new ConcurrentHashMap<>();
-    private volatile Long globalActiveRides = 0L;
-    private volatile Double averageDuration = 0.0;
-    private volatile Instant lastUpdate = Instant.now();
+    // Thread-safe storage for per-key messages
+    private final Map<String, RidePercentilesMessage> latestPercentiles = new ConcurrentHashMap<>();
+    private final Map<String, HeatmapMessage> heatmapCells = new ConcurrentHashMap<>();
+
+    // Guarded by this; read only through the published snapshot
+    private final ActiveRidesIndex activeRides = new ActiveRidesIndex();
+    private final Map<String, Long> cityActiveDrivers = new HashMap<>();
+    private final Map<String, Long> cityActiveRiders = new HashMap<>();
+    private long globalActiveDrivers;
+    private double averageDuration;
+    private double averageWaitSeconds;
+
+    // Treat as immutable: it is shared by every reader
+    private volatile DashboardMetrics snapshot = emptySnapshot();
+
+    private volatile Consumer<String> changeListener = city -> { };
 
     /**
-     * Constructor with ObjectMapper injection.
-     * Uses the shared singleton ObjectMapper bean to avoid redundant
-     * instantiations.
+     * Register the listener for state changes. It is called on the consumer
+     * thread with the lock held, so it must only record the change.
      *
-     * @param objectMapper shared ObjectMapper instance
+     * @param listener receives the changed city, or null for global metrics
      */
-    public MetricsAggregatorService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public void onChange(Consumer<String> listener) {
+        this.changeListener = listener;
     }
 
     /**
-     * Process incoming analytics message from Kafka.
-     * Deserializes the message to the appropriate POJO type and delegates
-     * to specific processing methods.
+     * Process an analytics message from Kafka, already deserialized to its
+     * type on the consumer thread.
      *
-     * @param message JSON string containing analytics data
+     * @param analyticsMessage analytics message
      */
-    public void processAnalyticsMessage(String message) {
+    public void processAnalyticsMessage(AnalyticsMessage analyticsMessage) {
         try {
-            // Deserialize to base class - Jackson automatically determines the correct
-            // subtype
-            AnalyticsMessage analyticsMessage = objectMapper.readValue(message, AnalyticsMessage.class);
-
             // Delegate to specific processing methods based on message type
             if (analyticsMessage instanceof TopActiveCitiesMessage msg) {
                 processTopCities(msg);
@@ -60,30 +81,43 @@ public class MetricsAggregatorService {
                 processMetrics(msg);
             } else if (analyticsMessage instanceof AnomalyMessage msg) {
                 processAnomaly(msg);
+            } else if (analyticsMessage instanceof RidePercentilesMessage msg) {
+                processRidePercentiles(msg);
+            } else if (analyticsMessage instanceof ActiveDriversMessage msg) {
+                processActiveDrivers(msg);
+            } else if (analyticsMessage instanceof HeatmapMessage msg) {
+                heatmapCells.put(msg.getCell(), msg);
             } else {
                 log.debug("Unknown message type: {}", analyticsMessage.getType());
             }
-
-            this.lastUpdate = Instant.now();
         } catch (Exception e) {
-            log.error("Error processing analytics message: {}", message, e);
+            log.error("Error processing {} message", analyticsMessage.getType(), e);
         }
     }
 
     /**
      * Process top active cities message.
-     * Updates the city active rides map with the top cities data.
+     * Updates the active rides of the ranked cities. Cities outside the
+     * ranking keep the count from their own CITY_ACTIVE_RIDES messages.
      *
      * @param message TOP_ACTIVE_CITIES message
      */
-    private void processTopCities(TopActiveCitiesMessage message) {
+    private synchronized void processTopCities(TopActiveCitiesMessage message) {
         try {
-            cityActiveRides.clear();
+            List<String> changed = new ArrayList<>();
             if (message.getCities() != null) {
-                message.getCities()
-                        .forEach(cityCount -> cityActiveRides.put(cityCount.getCity(), cityCount.getCount()));
+                for (CityCount cityCount : message.getCities()) {
+                    if (cityCount.getCity() != null && cityCount.getCount() != null
+                            && activeRides.update(cityCount.getCity(), cityCount.getCount())) {
+                        changed.add(cityCount.getCity());
+                    }
+                }
+            }
+            if (!changed.isEmpty()) {
+                publishSnapshot();
+                changed.forEach(changeListener);
             }
-            log.debug("Processed top cities: {} cities", cityActiveRides.size());
+            log.debug("Processed top cities: {} changed", changed);
         } catch (Exception e) {
             log.error("Error processing top cities", e);
         }
@@ -95,10 +129,13 @@ public class MetricsAggregatorService {
      *
      * @param message CITY_ACTIVE_RIDES message
      */
-    private void processCityActiveRides(CityActiveRidesMessage message) {
+    private synchronized void processCityActiveRides(CityActiveRidesMessage message) {
         try {
-            cityActiveRides.put(message.getCity(), message.getActiveRides());
-            updateGlobalActiveRides();
+            if (message.getCity() != null && message.getActiveRides() != null
+                    && activeRides.update(message.getCity(), message.getActiveRides())) {
+                publishSnapshot();
+                changeListener.accept(message.getCity());
+            }
             log.debug("Updated active rides for {}: {}", message.getCity(), message.getActiveRides());
         } catch (Exception e) {
             log.error("Error processing city active rides", e);
@@ -107,14 +144,21 @@ public class MetricsAggregatorService {
 
     /**
      * Process metrics message.
-     * Updates the global average duration metric.
+     * Updates the average duration and wait time metrics.
      *
      * @param message METRICS message
      */
-    private void processMetrics(MetricsMessage message) {
+    private synchronized void processMetrics(MetricsMessage message) {
         try {
-            this.averageDuration = message.getAvgDuration();
-            log.debug("Updated average duration: {}", averageDuration);
+            if (message.getAvgDuration() != null) {
+                this.averageDuration = message.getAvgDuration();
+            }
+            if (message.getAvgWaitSeconds() != null) {
+                this.averageWaitSeconds = message.getAvgWaitSeconds();
+            }
+            publishSnapshot();
+            changeListener.accept(null);
+            log.debug("Updated average duration: {}, wait: {}s", averageDuration, averageWaitSeconds);
         } catch (Exception e) {
             log.error("Error processing metrics", e);
         }
@@ -128,53 +172,164 @@ public class MetricsAggregatorService {
      */
     private void processAnomaly(AnomalyMessage message) {
         try {
-            log.warn("ANOMALY DETECTED - City: {}, Ride ID: {}, Duration: {} minutes",
-                    message.getCity(), message.getRideId(), message.getDuration());
+            log.warn("ANOMALY DETECTED - City: {}, Ride ID: {}, {}",
+                    message.getCity(), message.getRideId(), message.getMessage());
         } catch (Exception e) {
             log.error("Error processing anomaly", e);
         }
     }
 
     /**
-     * Update global active rides count by summing all city counts.
+     * Process ride percentiles message.
+     * Keeps the most recent closed window per city and window type.
+     *
+     * @param message RIDE_PERCENTILES message
      */
-    private void updateGlobalActiveRides() {
-        this.globalActiveRides = cityActiveRides.values().stream()
-                .mapToLong(Long::longValue)
-                .sum();
+    private void processRidePercentiles(RidePercentilesMessage message) {
+        try {
+            latestPercentiles.merge(message.getCity() + ":" + message.getWindow(), message,
+                    (current, next) -> next.getWindowEnd() >= current.getWindowEnd() ? next : current);
+            log.debug("Updated {} percentiles for {}", message.getWindow(), message.getCity());
+        } catch (Exception e) {
+            log.error("Error processing ride percentiles", e);
+        }
+    }
+
+    /**
+     * Process active drivers message.
+     * Updates the approximate distinct driver count for a specific city, or
+     * the global count for the message covering all cities.
+     *
+     * @param message ACTIVE_DRIVERS message
+     */
+    private synchronized void processActiveDrivers(ActiveDriversMessage message) {
+        try {
+            if (ActiveDriversMessage.ALL_CITIES.equals(message.getCity())) {
+                globalActiveDrivers = message.getActiveDrivers() == null ? 0 : message.getActiveDrivers();
+                publishSnapshot();
+                changeListener.accept(null);
+                log.debug("Updated global active drivers: {}", globalActiveDrivers);
+                return;
+            }
+            cityActiveDrivers.put(message.getCity(), message.getActiveDrivers() == null ? 0 : message.getActiveDrivers());
+            if (message.getActiveRiders() != null) {
+                cityActiveRiders.put(message.getCity(), message.getActiveRiders());
+            }
+            changeListener.accept(message.getCity());
+            log.debug("Updated active drivers for {}: {}", message.getCity(), message.getActiveDrivers());
+        } catch (Exception e) {
+            log.error("Error processing active drivers", e);
+        }
+    }
+
+    /**
+     * Publish a new snapshot of the dashboard metrics. Caller holds the lock.
+     * Costs O(K) for the top cities; the totals are already maintained.
+     */
+    private void publishSnapshot() {
+        this.snapshot = DashboardMetrics.builder()
+                .activeRides(activeRides.total())
+                .activeDrivers(globalActiveDrivers)
+                .averageDuration(averageDuration)
+                .averageWaitSeconds(averageWaitSeconds)
+                .topCities(activeRides.top(TOP_CITIES))
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    private static DashboardMetrics emptySnapshot() {
+        return DashboardMetrics.builder()
+                .activeRides(0L)
+                .activeDrivers(0L)
+                .averageDuration(0.0)
+                .averageWaitSeconds(0.0)
+                .topCities(List.of())
+                .timestamp(Instant.now())
+                .build();
     }
 
     /**
      * Get current dashboard metrics.
-     * Returns aggregated metrics for the dashboard UI.
+     * Returns the latest published snapshot without locking; callers must
+     * not modify it.
      *
      * @return current dashboard metrics
      */
     public DashboardMetrics getCurrentMetrics() {
-        List<CityMetrics> topCities = cityActiveRides.entrySet().stream()
-                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-                .limit(5)
-                .map(e -> CityMetrics.builder()
-                        .city(e.getKey())
-                        .activeRides(e.getValue())
-                        .build())
-                .toList();
+        return snapshot;
+    }
 
-        return DashboardMetrics.builder()
-                .activeRides(globalActiveRides)
-                .averageDuration(averageDuration)
-                .topCities(topCities)
-                .timestamp(lastUpdate)
-                .build();
+    /**
+     * Get the current metrics of one city.
+     *
+     * @param city city name
+     * @return the city's metrics; fields are null until first reported
+     */
+    public synchronized CityMetricsSnapshot getCityMetrics(String city) {
+        return new CityMetricsSnapshot(activeRides.get(city), cityActiveDrivers.get(city),
+                cityActiveRiders.get(city));
+    }
+
+    /**
+     * Get the current metrics of several cities under one acquisition of the
+     * lock.
+     *
+     * @param cities city names
+     * @return each city's metrics; fields are null until first reported
+     */
+    public synchronized Map<String, CityMetricsSnapshot> getCityMetrics(Collection<String> cities) {
+        Map<String, CityMetricsSnapshot> metrics = new HashMap<>();
+        for (String city : cities) {
+            metrics.put(city, getCityMetrics(city));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return every city with active rides or drivers reported
+     */
+    public synchronized Set<String> getCities() {
+        Set<String> cities = new HashSet<>(activeRides.cities());
+        cities.addAll(cityActiveDrivers.keySet());
+        return cities;
+    }
+
+    /**
+     * Get the latest ride percentiles.
+     *
+     * @return most recent closed window per city and window type
+     */
+    public List<RidePercentilesMessage> getLatestPercentiles() {
+        return List.copyOf(latestPercentiles.values());
+    }
+
+    /**
+     * Get the heatmap cells at one geohash precision.
+     *
+     * @param precision geohash length
+     * @return latest counts of every known cell at that precision
+     */
+    public List<HeatmapMessage> getHeatmap(int precision) {
+        return heatmapCells.values().stream()
+                .filter(cell -> cell.getPrecision() != null && cell.getPrecision() == precision)
+                .toList();
     }
 
     /**
      * Reset metrics (for testing).
      */
-    public void reset() {
-        cityActiveRides.clear();
-        globalActiveRides = 0L;
+    public synchronized void reset() {
+        Set<String> cities = getCities();
+        activeRides.clear();
+        latestPercentiles.clear();
+        cityActiveDrivers.clear();
+        cityActiveRiders.clear();
+        heatmapCells.clear();
+        globalActiveDrivers = 0;
         averageDuration = 0.0;
-        lastUpdate = Instant.now();
+        averageWaitSeconds = 0.0;
+        snapshot = emptySnapshot();
+        cities.forEach(changeListener);
+        changeListener.accept(null);
     }
 }
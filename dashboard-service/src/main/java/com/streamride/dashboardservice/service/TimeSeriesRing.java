@@ -0,0 +1,103 @@
+package com.streamride.dashboardservice.service;
+
+/**
+ * Fixed-size ring of time buckets at one resolution.
+ *
+ * Each bucket holds the sum and count of the samples that fell into it, so
+ * its value is their mean. Bucket start times, sums and counts live in
+ * parallel primitive arrays allocated once; when the ring is full the
+ * oldest bucket is overwritten. Buckets are contiguous in time: a sample
+ * that skips ahead advances the ring past the buckets it skipped, leaving
+ * them empty, so a bucket's position always matches its start time. A
+ * sample older than the newest bucket is added to its bucket if that is
+ * still held, and dropped otherwise.
+ *
+ * Not thread-safe; {@link MetricHistoryService} serializes access.
+ */
+class TimeSeriesRing {
+
+    private final long resolutionMs;
+    private final long[] starts;
+    private final double[] sums;
+    private final int[] counts;
+    // Index of the newest bucket and number of buckets held
+    private int head = -1;
+    private int size;
+
+    TimeSeriesRing(long resolutionMs, int capacity) {
+        this.resolutionMs = resolutionMs;
+        this.starts = new long[capacity];
+        this.sums = new double[capacity];
+        this.counts = new int[capacity];
+    }
+
+    void add(long timestamp, double value) {
+        long start = timestamp - Math.floorMod(timestamp, resolutionMs);
+        if (size == 0 || start > starts[head]) {
+            long ahead = size == 0 ? 1 : (start - starts[head]) / resolutionMs;
+            if (ahead > starts.length) {
+                // Every bucket held is out of reach of the new one
+                size = 0;
+                ahead = 1;
+            }
+            for (long skipped = ahead - 1; skipped > 0; skipped--) {
+                advance(start - skipped * resolutionMs, 0, 0);
+            }
+            advance(start, value, 1);
+            return;
+        }
+        long behind = (starts[head] - start) / resolutionMs;
+        if (behind >= size) {
+            return;
+        }
+        int index = Math.floorMod(head - (int) behind, starts.length);
+        sums[index] += value;
+        counts[index]++;
+    }
+
+    private void advance(long start, double sum, int count) {
+        head = (head + 1) % starts.length;
+        size = Math.min(size + 1, starts.length);
+        starts[head] = start;
+        sums[head] = sum;
+        counts[head] = count;
+    }
+
+    long resolutionMs() {
+        return resolutionMs;
+    }
+
+    /**
+     * @return start of the oldest bucket held, or Long.MAX_VALUE if empty
+     */
+    long oldest() {
+        return size == 0 ? Long.MAX_VALUE : starts[Math.floorMod(head - size + 1, starts.length)];
+    }
+
+    /**
+     * Copy the non-empty buckets starting in [from, to], oldest first.
+     *
+     * @return number of buckets written to the output arrays
+     */
+    int copyRange(long from, long to, long[] timestamps, double[] values) {
+        int n = 0;
+        for (int i = size - 1; i >= 0 && n < timestamps.length; i--) {
+            int index = Math.floorMod(head - i, starts.length);
+            long start = starts[index];
+            if (start >= from && start <= to && counts[index] > 0) {
+                timestamps[n] = start;
+                values[n] = sums[index] / counts[index];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == starts.length;
+    }
+}
@@ -1,37 +1,225 @@
 package com.streamride.dashboardservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamride.dashboardservice.consumer.AnalyticsBootstrap;
+import com.streamride.dashboardservice.model.CityMetricsFrame;
+import com.streamride.dashboardservice.model.CityMetricsSnapshot;
 import com.streamride.dashboardservice.model.DashboardMetrics;
+import com.streamride.dashboardservice.websocket.CitySubscriptions;
+import com.streamride.dashboardservice.websocket.ConflatingOutboundInterceptor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes dashboard metrics to WebSocket clients.
+ *
+ * /topic/metrics carries the full {@link DashboardMetrics} snapshot and
+ * /topic/metrics/{city} carries {@link CityMetricsFrame}s: numbered deltas
+ * holding only the fields that changed, plus a full keyframe per city every
+ * keyframe interval. City frames are built only for cities with a live
+ * subscription; see {@link CitySubscriptions}. A city that loses its last
+ * subscriber loses its frame sequence too, and starts a new one with a
+ * keyframe.
+ *
+ * Pushes are driven by changes in the aggregator: the first change after a
+ * push schedules the next one no earlier than the minimum push interval,
+ * and changes in between are folded into it. Nothing is pushed while the
+ * analytics bootstrap is replaying; the first keyframe after it completes
+ * brings every client up to date.
+ */
 @Service
 @Slf4j
 public class WebSocketService {
 
+    private static final String METRICS_DESTINATION = "/topic/metrics";
+
     private final SimpMessagingTemplate messagingTemplate;
     private final MetricsAggregatorService metricsAggregator;
+    private final AnalyticsBootstrap bootstrap;
+    private final CitySubscriptions subscriptions;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final long minPushIntervalMs;
+
+    private final Set<String> changedCities = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pushScheduled = new AtomicBoolean();
+    private volatile long lastPushMillis;
+
+    // Guarded by this
+    private final Map<String, CityMetricsStream> streams = new HashMap<>();
+    private DashboardMetrics lastSnapshot;
+    private byte[] lastPayload;
 
     @Autowired
     public WebSocketService(SimpMessagingTemplate messagingTemplate,
-                            MetricsAggregatorService metricsAggregator) {
+                            MetricsAggregatorService metricsAggregator,
+                            AnalyticsBootstrap bootstrap,
+                            CitySubscriptions subscriptions,
+                            ObjectMapper objectMapper,
+                            TaskScheduler taskScheduler,
+                            @Value("${streamride.websocket.min-push-interval-ms:250}") long minPushIntervalMs) {
         this.messagingTemplate = messagingTemplate;
         this.metricsAggregator = metricsAggregator;
+        this.bootstrap = bootstrap;
+        this.subscriptions = subscriptions;
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        this.minPushIntervalMs = minPushIntervalMs;
+    }
+
+    @PostConstruct
+    void listenForChanges() {
+        metricsAggregator.onChange(this::onChange);
+    }
+
+    /**
+     * Record a change and schedule a push if none is pending.
+     * Called on the consumer thread.
+     *
+     * @param city changed city, or null if only global metrics changed
+     */
+    private void onChange(String city) {
+        if (city != null) {
+            changedCities.add(city);
+        }
+        if (pushScheduled.compareAndSet(false, true)) {
+            long now = System.currentTimeMillis();
+            long at = Math.max(now, lastPushMillis + minPushIntervalMs);
+            taskScheduler.schedule(this::pushChanges, Instant.ofEpochMilli(at));
+        }
     }
 
     /**
-     * Broadcast metrics to all connected WebSocket clients every 5 seconds
+     * Push the snapshot if it changed and a delta frame for every changed,
+     * subscribed city.
      */
-    @Scheduled(fixedRate = 5000)
-    public void broadcastMetrics() {
+    synchronized void pushChanges() {
+        // Cleared first so that a change during this push schedules another
+        pushScheduled.set(false);
+        if (!bootstrap.isComplete()) {
+            log.debug("Analytics bootstrap in progress, deferring push");
+            return;
+        }
+        lastPushMillis = System.currentTimeMillis();
         try {
-            DashboardMetrics metrics = metricsAggregator.getCurrentMetrics();
-            messagingTemplate.convertAndSend("/topic/metrics", metrics);
-            log.debug("Broadcasted metrics to WebSocket clients: {}", metrics);
+            pushSnapshot(false);
+            Set<String> subscribed = subscriptions.cities();
+            Set<String> changed = new HashSet<>();
+            for (Iterator<String> cities = changedCities.iterator(); cities.hasNext(); ) {
+                String city = cities.next();
+                cities.remove();
+                if (subscribed.contains(city)) {
+                    changed.add(city);
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            Instant now = Instant.now();
+            Map<String, CityMetricsSnapshot> metrics = metricsAggregator.getCityMetrics(changed);
+            for (Map.Entry<String, CityMetricsSnapshot> city : metrics.entrySet()) {
+                CityMetricsFrame frame = stream(city.getKey()).delta(city.getValue(), now);
+                if (frame != null) {
+                    sendFrame(frame);
+                }
+            }
         } catch (Exception e) {
-            log.error("Error broadcasting metrics", e);
+            log.error("Error pushing metrics", e);
+        }
+    }
+
+    /**
+     * Push the snapshot and a keyframe for every subscribed city, whether or
+     * not anything changed, so clients that joined or missed frames catch up.
+     */
+    @Scheduled(fixedRateString = "${streamride.websocket.keyframe-interval-ms:5000}")
+    public synchronized void pushKeyframes() {
+        if (!bootstrap.isComplete()) {
+            log.debug("Analytics bootstrap in progress, skipping keyframes");
+            return;
         }
+        try {
+            pushSnapshot(true);
+            Set<String> subscribed = subscriptions.cities();
+            streams.keySet().retainAll(subscribed);
+            changedCities.removeAll(subscribed);
+            Instant now = Instant.now();
+            Map<String, CityMetricsSnapshot> metrics = metricsAggregator.getCityMetrics(subscribed);
+            for (Map.Entry<String, CityMetricsSnapshot> city : metrics.entrySet()) {
+                sendFrame(stream(city.getKey()).keyframe(city.getValue(), now));
+            }
+            log.debug("Pushed keyframes for {} cities", streams.size());
+        } catch (Exception e) {
+            log.error("Error pushing keyframes", e);
+        }
+    }
+
+    /**
+     * @param city city name
+     * @return the city's state as of its last frame, as a keyframe with that
+     *         frame's sequence number
+     */
+    public synchronized CityMetricsFrame syncFrame(String city) {
+        // Not added to the streams: the city comes from the client
+        CityMetricsStream stream = streams.get(city);
+        return (stream != null ? stream : new CityMetricsStream(city)).sync(Instant.now());
+    }
+
+    /**
+     * Send the snapshot, serialized once and only when it changed; the broker
+     * hands the same bytes to every subscribed session.
+     */
+    private void pushSnapshot(boolean force) throws JsonProcessingException {
+        DashboardMetrics metrics = metricsAggregator.getCurrentMetrics();
+        if (metrics == lastSnapshot && !force) {
+            return;
+        }
+        if (metrics != lastSnapshot) {
+            lastPayload = objectMapper.writeValueAsBytes(metrics);
+            lastSnapshot = metrics;
+        }
+        send(METRICS_DESTINATION, lastPayload);
+        log.debug("Broadcasted metrics to WebSocket clients: {}", metrics);
+    }
+
+    private CityMetricsStream stream(String city) {
+        return streams.computeIfAbsent(city, CityMetricsStream::new);
+    }
+
+    private void sendFrame(CityMetricsFrame frame) throws JsonProcessingException {
+        send(CitySubscriptions.CITY_DESTINATION_PREFIX + frame.getCity(), objectMapper.writeValueAsBytes(frame));
+    }
+
+    private void send(String destination, byte[] payload) {
+        messagingTemplate.send(destination, jsonMessage(payload));
+    }
+
+    private static Message<byte[]> jsonMessage(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(ConflatingOutboundInterceptor.PUBLISHED_AT, System.nanoTime());
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
     }
 }
@@ -0,0 +1,83 @@
+package com.streamride.dashboardservice.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cities with at least one live subscription to /topic/metrics/{city}.
+ *
+ * Maintained from the STOMP subscribe, unsubscribe and disconnect events, so
+ * per-city frames are only built for cities that someone is watching. An
+ * UNSUBSCRIBE frame names only the subscription id, hence the per-session
+ * map from subscription id to city.
+ *
+ * Thread-safe.
+ */
+@Component
+public class CitySubscriptions {
+
+    public static final String CITY_DESTINATION_PREFIX = "/topic/metrics/";
+
+    // Guarded by this
+    private final Map<String, Map<String, String>> citiesBySession = new HashMap<>();
+    private final Map<String, Integer> subscribers = new HashMap<>();
+
+    @EventListener
+    public synchronized void onSubscribe(SessionSubscribeEvent event) {
+        Message<byte[]> message = event.getMessage();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (sessionId == null || subscriptionId == null || destination == null
+                || !destination.startsWith(CITY_DESTINATION_PREFIX)) {
+            return;
+        }
+        String city = destination.substring(CITY_DESTINATION_PREFIX.length());
+        Map<String, String> cities = citiesBySession.computeIfAbsent(sessionId, id -> new HashMap<>());
+        String previous = cities.put(subscriptionId, city);
+        if (previous != null) {
+            release(previous);
+        }
+        subscribers.merge(city, 1, Integer::sum);
+    }
+
+    @EventListener
+    public synchronized void onUnsubscribe(SessionUnsubscribeEvent event) {
+        Message<byte[]> message = event.getMessage();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        Map<String, String> cities = citiesBySession.get(sessionId);
+        String city = cities == null ? null : cities.remove(subscriptionId);
+        if (city != null) {
+            release(city);
+        }
+    }
+
+    @EventListener
+    public synchronized void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> cities = citiesBySession.remove(event.getSessionId());
+        if (cities != null) {
+            cities.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * @return the cities with at least one subscriber
+     */
+    public synchronized Set<String> cities() {
+        return Set.copyOf(subscribers.keySet());
+    }
+
+    private void release(String city) {
+        subscribers.computeIfPresent(city, (c, count) -> count > 1 ? count - 1 : null);
+    }
+}
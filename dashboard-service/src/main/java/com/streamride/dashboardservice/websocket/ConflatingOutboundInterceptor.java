@@ -0,0 +1,235 @@
+package com.streamride.dashboardservice.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session conflation of broker messages on the client outbound channel.
+ *
+ * Each session has at most one MESSAGE frame being written at a time. Frames
+ * that arrive for a session while its write is in progress are parked, one
+ * per destination, and a newer frame replaces the parked one. When the write
+ * completes the parked frames are sent on. A slow client therefore receives
+ * the latest state per destination instead of a growing backlog, and
+ * occupies at most one outbound thread. Other frame types (CONNECTED,
+ * RECEIPT, ERROR, heartbeats) are never held back.
+ *
+ * Because a session never has two frames written at once, the transport's
+ * own send time limit would never trigger. Instead a write that has not
+ * completed within the write deadline gets its session closed, which fails
+ * the write and frees the outbound thread. Sessions are tracked from
+ * connection to close through the handler decorator, and frames for a
+ * session that has already closed pass through untracked.
+ *
+ * Records fan-out latency from {@link #PUBLISHED_AT} to the frame being
+ * written, and counts sent and dropped frames.
+ */
+@Component
+@Slf4j
+public class ConflatingOutboundInterceptor implements ExecutorChannelInterceptor,
+        WebSocketHandlerDecoratorFactory {
+
+    /**
+     * Message header carrying the {@link System#nanoTime()} at which a
+     * broadcast was published.
+     */
+    public static final String PUBLISHED_AT = "streamridePublishedAt";
+
+    private static final class SessionState {
+        private final Closeable connection;
+        // Broker messages carry no id header, so frames are tracked by reference
+        private Message<?> inFlight;
+        private boolean writing;
+        private long writingSince;
+        private boolean closing;
+        private final Map<String, Message<?>> parked = new LinkedHashMap<>();
+
+        private SessionState(Closeable connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final long writeDeadlineNanos;
+    private final Timer fanoutLatency;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter stalled;
+
+    public ConflatingOutboundInterceptor(MeterRegistry meterRegistry,
+                                         @Value("${streamride.websocket.write-deadline-ms:10000}") long writeDeadlineMs) {
+        this.writeDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(writeDeadlineMs);
+        this.fanoutLatency = Timer.builder("streamride.websocket.fanout.latency")
+                .description("Time from publishing a broadcast to its frame being written to a session")
+                .register(meterRegistry);
+        this.sent = Counter.builder("streamride.websocket.frames.sent")
+                .description("MESSAGE frames written to WebSocket sessions")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("streamride.websocket.frames.dropped")
+                .description("MESSAGE frames replaced by a newer frame before a slow session could take them")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("streamride.websocket.sessions.stalled")
+                .description("Sessions closed for exceeding the write deadline")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                opened(session.getId(), () -> session.close(CloseStatus.SESSION_NOT_RELIABLE));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                try {
+                    super.afterConnectionClosed(session, closeStatus);
+                } finally {
+                    closed(session.getId());
+                }
+            }
+        };
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (sessionId == null || destination == null
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            // Already closed; the handler drops frames for unknown sessions
+            return message;
+        }
+        synchronized (state) {
+            if (state.closing) {
+                dropped.increment();
+                return null;
+            }
+            if (state.inFlight == null) {
+                state.inFlight = message;
+            }
+            if (state.inFlight == message) {
+                // A new frame, or a parked frame handed on by the previous write
+                state.writing = true;
+                state.writingSince = System.nanoTime();
+                return message;
+            }
+            if (state.parked.put(destination, message) != null) {
+                dropped.increment();
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId == null ? null : sessions.get(sessionId);
+        if (state == null) {
+            return;
+        }
+        Message<?> next;
+        synchronized (state) {
+            if (state.inFlight != message) {
+                // Parked or not subject to conflation
+                return;
+            }
+            recordSent(message, ex);
+            state.writing = false;
+            Iterator<Message<?>> parked = state.parked.values().iterator();
+            if (!parked.hasNext()) {
+                state.inFlight = null;
+                return;
+            }
+            next = parked.next();
+            parked.remove();
+            state.inFlight = next;
+        }
+        channel.send(next);
+    }
+
+    /**
+     * Closes every session whose current write has exceeded the write
+     * deadline. Parked frames of such a session are dropped.
+     */
+    @Scheduled(fixedDelayString = "${streamride.websocket.write-deadline-check-ms:1000}")
+    public void closeStalledSessions() {
+        long now = System.nanoTime();
+        sessions.forEach((sessionId, state) -> {
+            synchronized (state) {
+                if (state.closing || !state.writing || now - state.writingSince < writeDeadlineNanos) {
+                    return;
+                }
+                state.closing = true;
+                dropped.increment(state.parked.size());
+                state.parked.clear();
+            }
+            stalled.increment();
+            log.warn("Closing session {}: frame not written within {} ms", sessionId,
+                    TimeUnit.NANOSECONDS.toMillis(writeDeadlineNanos));
+            try {
+                state.connection.close();
+            } catch (IOException e) {
+                log.debug("Failed to close stalled session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    void opened(String sessionId, Closeable connection) {
+        sessions.put(sessionId, new SessionState(connection));
+    }
+
+    void closed(String sessionId) {
+        SessionState state = sessions.remove(sessionId);
+        if (state != null) {
+            synchronized (state) {
+                dropped.increment(state.parked.size());
+                state.parked.clear();
+            }
+        }
+    }
+
+    private void recordSent(Message<?> message, Exception ex) {
+        if (ex != null) {
+            log.debug("Failed to write frame to session {}: {}",
+                    SimpMessageHeaderAccessor.getSessionId(message.getHeaders()), ex.getMessage());
+            return;
+        }
+        sent.increment();
+        Long publishedAt = message.getHeaders().get(PUBLISHED_AT, Long.class);
+        if (publishedAt != null) {
+            fanoutLatency.record(System.nanoTime() - publishedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
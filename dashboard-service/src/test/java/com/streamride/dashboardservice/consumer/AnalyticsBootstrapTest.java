@@ -0,0 +1,126 @@
+package com.streamride.dashboardservice.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsBootstrapTest {
+
+    private static final TopicPartition METRICS = new TopicPartition("metrics", 0);
+    private static final TopicPartition DRIVERS = new TopicPartition("drivers", 0);
+    private static final long NO_TIMEOUT = 60_000;
+
+    private MockConsumer<String, byte[]> consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        consumer.assign(List.of(METRICS, DRIVERS));
+        consumer.updateBeginningOffsets(Map.of(METRICS, 0L, DRIVERS, 0L));
+        consumer.updateEndOffsets(Map.of(METRICS, 3L, DRIVERS, 2L));
+    }
+
+    @Test
+    void assignedPartitionsAreRewound() {
+        consumer.seek(METRICS, 3);
+        consumer.seek(DRIVERS, 2);
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(NO_TIMEOUT);
+
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS, DRIVERS));
+
+        assertEquals(0, consumer.position(METRICS));
+        assertEquals(0, consumer.position(DRIVERS));
+        assertEquals(2, bootstrap.getPendingPartitions());
+    }
+
+    @Test
+    void completesOnceEveryEndOffsetIsReached() {
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(NO_TIMEOUT);
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS, DRIVERS));
+
+        bootstrap.onRecord(record(METRICS, 2));
+        assertFalse(bootstrap.isComplete());
+        assertEquals(1, bootstrap.getPendingPartitions());
+
+        bootstrap.onRecord(record(DRIVERS, 0));
+        assertFalse(bootstrap.isComplete());
+
+        bootstrap.onRecord(record(DRIVERS, 1));
+        assertTrue(bootstrap.isComplete());
+        assertEquals(0, bootstrap.getPendingPartitions());
+        assertEquals(3, bootstrap.getRecordsReplayed());
+    }
+
+    @Test
+    void emptyPartitionsCompleteImmediately() {
+        consumer.updateEndOffsets(Map.of(METRICS, 0L, DRIVERS, 0L));
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(NO_TIMEOUT);
+
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS, DRIVERS));
+
+        assertTrue(bootstrap.isComplete());
+    }
+
+    @Test
+    void revokedPartitionsNoLongerGateReadiness() {
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(NO_TIMEOUT);
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS, DRIVERS));
+        bootstrap.onRecord(record(METRICS, 2));
+
+        bootstrap.onPartitionsRevokedAfterCommit(consumer, List.of(DRIVERS));
+
+        assertTrue(bootstrap.isComplete());
+    }
+
+    @Test
+    void partitionsAssignedAfterGoingLiveAreRewoundWithoutGating() {
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(NO_TIMEOUT);
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS));
+        bootstrap.onRecord(record(METRICS, 2));
+        assertTrue(bootstrap.isComplete());
+
+        consumer.seek(DRIVERS, 2);
+        bootstrap.onPartitionsAssigned(consumer, List.of(DRIVERS));
+
+        assertEquals(0, consumer.position(DRIVERS));
+        assertTrue(bootstrap.isComplete());
+        assertEquals(0, bootstrap.getPendingPartitions());
+    }
+
+    @Test
+    void timesOutWhenEndOffsetsAreNeverReached() throws InterruptedException {
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(10);
+        bootstrap.onPartitionsAssigned(consumer, List.of(METRICS, DRIVERS));
+        assertFalse(bootstrap.isComplete());
+
+        Thread.sleep(50);
+
+        assertTrue(bootstrap.isComplete());
+        // Records after the timeout are no longer tracked
+        bootstrap.onRecord(record(METRICS, 2));
+        assertEquals(0, bootstrap.getRecordsReplayed());
+    }
+
+    @Test
+    void notCompleteBeforeAnyAssignment() throws InterruptedException {
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(10);
+
+        Thread.sleep(50);
+
+        assertFalse(bootstrap.isComplete());
+    }
+
+    private static ConsumerRecord<String, byte[]> record(TopicPartition partition, long offset) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "key", new byte[0]);
+    }
+}
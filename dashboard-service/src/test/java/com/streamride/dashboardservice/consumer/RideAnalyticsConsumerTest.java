@@ -0,0 +1,123 @@
+package com.streamride.dashboardservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamride.dashboardservice.model.AnalyticsMessage;
+import com.streamride.dashboardservice.model.AnomalyMessage;
+import com.streamride.dashboardservice.model.CityActiveRidesMessage;
+import com.streamride.dashboardservice.service.MetricsAggregatorService;
+import com.streamride.model.config.KafkaTopics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RideAnalyticsConsumerTest {
+
+    private final List<AnalyticsMessage> processed = new ArrayList<>();
+    private final List<ConsumerRecord<?, ?>> replayed = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RideAnalyticsConsumer consumer;
+    private long offset;
+
+    @BeforeEach
+    void setUp() {
+        MetricsAggregatorService aggregator = new MetricsAggregatorService() {
+            @Override
+            public void processAnalyticsMessage(AnalyticsMessage message) {
+                processed.add(message);
+            }
+        };
+        AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(60_000) {
+            @Override
+            public void onRecord(ConsumerRecord<?, ?> record) {
+                replayed.add(record);
+            }
+        };
+        consumer = new RideAnalyticsConsumer(aggregator, new AnalyticsMessageReader(new ObjectMapper()),
+                bootstrap, registry);
+    }
+
+    @Test
+    void appliesOnlyTheLatestValuePerTopicAndKey() {
+        consumer.consume(List.of(
+                activeRides("A", 5),
+                activeRides("B", 3),
+                activeRides("A", 7),
+                activeRides("A", 9)));
+
+        assertEquals(List.of("A:9", "B:3"), processed.stream()
+                .map(m -> ((CityActiveRidesMessage) m).getCity() + ":" + ((CityActiveRidesMessage) m).getActiveRides())
+                .toList());
+        assertEquals(2, registry.counter("streamride.dashboard.records.applied").count());
+        assertEquals(2, registry.counter("streamride.dashboard.records.superseded").count());
+    }
+
+    @Test
+    void sameKeyOnDifferentTopicsIsNotCoalesced() {
+        consumer.consume(List.of(
+                activeRides("A", 5),
+                anomaly("A", "r1")));
+
+        assertEquals(2, processed.size());
+    }
+
+    @Test
+    void appliesEveryAnomaly() {
+        consumer.consume(List.of(
+                anomaly("A", "r1"),
+                activeRides("A", 5),
+                anomaly("A", "r2"),
+                anomaly("A", "r3")));
+
+        assertEquals(List.of("r1", "r2", "r3"), processed.stream()
+                .filter(AnomalyMessage.class::isInstance)
+                .map(m -> ((AnomalyMessage) m).getRideId())
+                .toList());
+        assertEquals(4, processed.size());
+    }
+
+    @Test
+    void skipsTombstonesAndUnreadableRecords() {
+        consumer.consume(List.of(
+                activeRides("A", 5),
+                record(KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES, "A", null),
+                record(KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES, "B", "not json")));
+
+        assertEquals(List.of(), processed);
+        assertEquals(0, registry.counter("streamride.dashboard.records.applied").count());
+    }
+
+    @Test
+    void passesEveryRecordToTheBootstrap() {
+        List<ConsumerRecord<String, byte[]>> batch = List.of(
+                activeRides("A", 5),
+                activeRides("A", 7),
+                record(KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES, "B", null),
+                anomaly("A", "r1"));
+
+        consumer.consume(batch);
+
+        assertEquals(batch, replayed);
+    }
+
+    private ConsumerRecord<String, byte[]> activeRides(String city, long activeRides) {
+        return record(KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES, city,
+                "{\"type\":\"CITY_ACTIVE_RIDES\",\"city\":\"" + city + "\",\"activeRides\":" + activeRides + "}");
+    }
+
+    private ConsumerRecord<String, byte[]> anomaly(String city, String rideId) {
+        return record(KafkaTopics.ANALYTICS_ANOMALIES, city,
+                "{\"type\":\"ANOMALY\",\"city\":\"" + city + "\",\"rideId\":\"" + rideId + "\"}");
+    }
+
+    private ConsumerRecord<String, byte[]> record(String topic, String key, String json) {
+        byte[] value = json == null ? null : json.getBytes(StandardCharsets.UTF_8);
+        return new ConsumerRecord<>(topic, 0, offset++, key, value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.streamride.dashboardservice.service;
+
+import com.streamride.dashboardservice.model.CityMetricsFrame;
+import com.streamride.dashboardservice.model.CityMetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityMetricsStreamTest {
+
+    private static final Instant NOW = Instant.EPOCH;
+
+    private final CityMetricsStream stream = new CityMetricsStream("Pune");
+
+    @Test
+    void firstDeltaIsAKeyframe() {
+        CityMetricsFrame frame = stream.delta(new CityMetricsSnapshot(5L, null, null), NOW);
+
+        assertTrue(frame.isKeyframe());
+        assertEquals(1, frame.getSeq());
+        assertEquals("Pune", frame.getCity());
+        assertEquals(5L, frame.getActiveRides());
+    }
+
+    @Test
+    void deltaCarriesOnlyChangedFields() {
+        stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+
+        CityMetricsFrame frame = stream.delta(new CityMetricsSnapshot(5L, 12L, 3L), NOW);
+
+        assertFalse(frame.isKeyframe());
+        assertEquals(2, frame.getSeq());
+        assertNull(frame.getActiveRides());
+        assertEquals(12L, frame.getActiveDrivers());
+        assertNull(frame.getActiveRiders());
+    }
+
+    @Test
+    void unchangedValuesProduceNoFrameAndKeepTheSequence() {
+        stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+
+        assertNull(stream.delta(new CityMetricsSnapshot(5L, 10L, 3L), NOW));
+        assertEquals(2, stream.delta(new CityMetricsSnapshot(6L, 10L, 3L), NOW).getSeq());
+    }
+
+    @Test
+    void clearedFieldIsSentAsAKeyframe() {
+        stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+
+        CityMetricsFrame frame = stream.delta(new CityMetricsSnapshot(5L, null, null), NOW);
+
+        assertTrue(frame.isKeyframe());
+        assertEquals(2, frame.getSeq());
+        assertEquals(5L, frame.getActiveRides());
+        assertNull(frame.getActiveDrivers());
+    }
+
+    @Test
+    void keyframesAdvanceTheSequenceAndCarryEveryField() {
+        stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+
+        CityMetricsFrame frame = stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+
+        assertTrue(frame.isKeyframe());
+        assertEquals(2, frame.getSeq());
+        assertEquals(5L, frame.getActiveRides());
+        assertEquals(10L, frame.getActiveDrivers());
+        assertEquals(3L, frame.getActiveRiders());
+    }
+
+    @Test
+    void syncReturnsTheLastSentStateUnderItsSequenceNumber() {
+        stream.keyframe(new CityMetricsSnapshot(5L, 10L, 3L), NOW);
+        stream.delta(new CityMetricsSnapshot(7L, 10L, 3L), NOW);
+
+        CityMetricsFrame sync = stream.sync(NOW);
+
+        assertTrue(sync.isKeyframe());
+        assertEquals(2, sync.getSeq());
+        assertEquals(7L, sync.getActiveRides());
+        assertEquals(10L, sync.getActiveDrivers());
+        // The sync frame does not take a sequence number of its own
+        assertEquals(3, stream.delta(new CityMetricsSnapshot(8L, 10L, 3L), NOW).getSeq());
+    }
+
+    @Test
+    void syncBeforeAnyFrameIsEmpty() {
+        CityMetricsFrame sync = stream.sync(NOW);
+
+        assertEquals(0, sync.getSeq());
+        assertNull(sync.getActiveRides());
+        assertEquals(1, stream.delta(new CityMetricsSnapshot(1L, null, null), NOW).getSeq());
+    }
+}
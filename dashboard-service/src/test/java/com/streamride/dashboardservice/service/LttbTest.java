@@ -0,0 +1,93 @@
+package com.streamride.dashboardservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTest {
+
+    private static final int LENGTH = 1_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 10, 100, 999})
+    void keepsFirstAndLastAndThresholdPointsInOrder(int threshold) {
+        long[] timestamps = timestamps(LENGTH);
+        double[] values = sine(LENGTH);
+        double first = values[0];
+        double last = values[LENGTH - 1];
+
+        int kept = Lttb.downsample(timestamps, values, LENGTH, threshold);
+
+        assertEquals(threshold, kept);
+        assertEquals(0, timestamps[0]);
+        assertEquals(first, values[0]);
+        assertEquals(LENGTH - 1, timestamps[kept - 1]);
+        assertEquals(last, values[kept - 1]);
+        for (int i = 1; i < kept; i++) {
+            assertTrue(timestamps[i] > timestamps[i - 1], "timestamps out of order at " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {LENGTH, LENGTH + 1, 2, 0})
+    void leavesPointsUntouchedWhenNothingToDrop(int threshold) {
+        long[] timestamps = timestamps(LENGTH);
+        double[] values = sine(LENGTH);
+
+        int kept = Lttb.downsample(timestamps, values, LENGTH, threshold);
+
+        assertEquals(LENGTH, kept);
+        assertArrayEquals(timestamps(LENGTH), timestamps);
+        assertArrayEquals(sine(LENGTH), values);
+    }
+
+    @Test
+    void onlyConsidersTheGivenLength() {
+        long[] timestamps = timestamps(LENGTH);
+        double[] values = sine(LENGTH);
+
+        int kept = Lttb.downsample(timestamps, values, 100, 10);
+
+        assertEquals(10, kept);
+        assertEquals(99, timestamps[kept - 1]);
+    }
+
+    @Test
+    void keepsIsolatedPeaks() {
+        long[] timestamps = timestamps(LENGTH);
+        double[] values = new double[LENGTH];
+        values[333] = 50;
+        values[777] = -50;
+
+        int kept = Lttb.downsample(timestamps, values, LENGTH, 20);
+
+        boolean peak = false;
+        boolean trough = false;
+        for (int i = 0; i < kept; i++) {
+            peak |= timestamps[i] == 333 && values[i] == 50;
+            trough |= timestamps[i] == 777 && values[i] == -50;
+        }
+        assertTrue(peak, "peak dropped");
+        assertTrue(trough, "trough dropped");
+    }
+
+    private static long[] timestamps(int length) {
+        long[] timestamps = new long[length];
+        for (int i = 0; i < length; i++) {
+            timestamps[i] = i;
+        }
+        return timestamps;
+    }
+
+    private static double[] sine(int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = Math.sin(i / 25.0) * 100 + i % 7;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,92 @@
+package com.streamride.dashboardservice.service;
+
+import com.streamride.dashboardservice.consumer.AnalyticsBootstrap;
+import com.streamride.dashboardservice.model.CityActiveRidesMessage;
+import com.streamride.dashboardservice.model.HistoryMetric;
+import com.streamride.dashboardservice.model.MetricHistory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetricHistoryServiceTest {
+
+    private static final long NO_EVICTION = Long.MAX_VALUE;
+
+    private final MetricsAggregatorService aggregator = new MetricsAggregatorService();
+    private final AnalyticsBootstrap bootstrap = new AnalyticsBootstrap(60_000) {
+        @Override
+        public boolean isComplete() {
+            return true;
+        }
+    };
+
+    @Test
+    void metricWithoutValuesHasEmptyHistory() {
+        MetricHistoryService history = history(10, NO_EVICTION);
+        activeRides("Pune", 5);
+
+        history.sample();
+
+        assertEquals(1, query(history, "Pune", HistoryMetric.ACTIVE_RIDES).getValues().length);
+        assertEquals(0, query(history, "Pune", HistoryMetric.ACTIVE_DRIVERS).getValues().length);
+        assertNull(query(history, "Delhi", HistoryMetric.ACTIVE_RIDES));
+    }
+
+    @Test
+    void citiesBeyondTheCapGetNoHistory() {
+        MetricHistoryService history = history(1, NO_EVICTION);
+        activeRides("Pune", 5);
+        history.sample();
+        activeRides("Delhi", 3);
+
+        history.sample();
+
+        assertNotNull(query(history, "Pune", HistoryMetric.ACTIVE_RIDES));
+        assertNull(query(history, "Delhi", HistoryMetric.ACTIVE_RIDES));
+    }
+
+    @Test
+    void idleCitiesAreEvictedUntilTheyChange() throws InterruptedException {
+        MetricHistoryService history = history(1, 0);
+        activeRides("Pune", 5);
+        history.sample();
+        Thread.sleep(5);
+
+        history.sample();
+        assertNull(query(history, "Pune", HistoryMetric.ACTIVE_RIDES));
+
+        // The freed slot goes to the next city that reports
+        activeRides("Delhi", 3);
+        history.sample();
+        assertNotNull(query(history, "Delhi", HistoryMetric.ACTIVE_RIDES));
+    }
+
+    @Test
+    void citiesNoLongerReportedAreDropped() {
+        MetricHistoryService history = history(10, NO_EVICTION);
+        activeRides("Pune", 5);
+        history.sample();
+
+        aggregator.reset();
+        history.sample();
+
+        assertNull(query(history, "Pune", HistoryMetric.ACTIVE_RIDES));
+    }
+
+    private MetricHistoryService history(int maxCities, long idleEvictionMs) {
+        return new MetricHistoryService(aggregator, bootstrap, 60, 60, 24, maxCities, idleEvictionMs);
+    }
+
+    private void activeRides(String city, long activeRides) {
+        CityActiveRidesMessage message = new CityActiveRidesMessage();
+        message.setCity(city);
+        message.setActiveRides(activeRides);
+        aggregator.processAnalyticsMessage(message);
+    }
+
+    private static MetricHistory query(MetricHistoryService history, String city, HistoryMetric metric) {
+        return history.query(city, metric, 0, Long.MAX_VALUE, 100);
+    }
+}
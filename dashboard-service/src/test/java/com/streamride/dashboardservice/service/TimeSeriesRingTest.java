@@ -0,0 +1,120 @@
+package com.streamride.dashboardservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSeriesRingTest {
+
+    private static final long RESOLUTION = 1_000;
+
+    @Test
+    void samplesInOneBucketAreAveraged() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 4);
+        ring.add(1_000, 2);
+        ring.add(1_500, 4);
+        ring.add(1_999, 6);
+
+        assertPoints(ring, new long[] {1_000}, new double[] {4});
+    }
+
+    @Test
+    void fullRingOverwritesTheOldestBuckets() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 3);
+        for (int i = 0; i < 5; i++) {
+            ring.add(i * RESOLUTION, i);
+        }
+
+        assertTrue(ring.isFull());
+        assertEquals(2 * RESOLUTION, ring.oldest());
+        assertPoints(ring, new long[] {2_000, 3_000, 4_000}, new double[] {2, 3, 4});
+    }
+
+    @Test
+    void skippedBucketsAreHeldEmpty() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 5);
+        ring.add(0, 1);
+        ring.add(3_000, 4);
+
+        assertEquals(4, ring.size());
+        assertEquals(0, ring.oldest());
+        assertPoints(ring, new long[] {0, 3_000}, new double[] {1, 4});
+
+        // The ring keeps the gap's buckets, so a late sample lands in place
+        ring.add(1_200, 2);
+        assertPoints(ring, new long[] {0, 1_000, 3_000}, new double[] {1, 2, 4});
+    }
+
+    @Test
+    void gapsCountTowardsCapacity() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 3);
+        ring.add(0, 1);
+        ring.add(3_000, 4);
+
+        assertTrue(ring.isFull());
+        assertEquals(1_000, ring.oldest());
+        assertPoints(ring, new long[] {3_000}, new double[] {4});
+    }
+
+    @Test
+    void gapBeyondCapacityStartsOver() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 3);
+        ring.add(0, 1);
+        ring.add(1_000, 2);
+        ring.add(100_000, 3);
+
+        assertEquals(1, ring.size());
+        assertFalse(ring.isFull());
+        assertEquals(100_000, ring.oldest());
+        assertPoints(ring, new long[] {100_000}, new double[] {3});
+
+        // And the ring keeps working from there
+        ring.add(101_000, 5);
+        ring.add(100_500, 5);
+        assertPoints(ring, new long[] {100_000, 101_000}, new double[] {4, 5});
+    }
+
+    @Test
+    void lateSampleOutsideTheRingIsDropped() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 2);
+        ring.add(5_000, 5);
+        ring.add(6_000, 6);
+
+        ring.add(4_000, 100);
+
+        assertPoints(ring, new long[] {5_000, 6_000}, new double[] {5, 6});
+    }
+
+    @Test
+    void copyRangeFiltersByBucketStart() {
+        TimeSeriesRing ring = new TimeSeriesRing(RESOLUTION, 10);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i * RESOLUTION, i);
+        }
+        long[] timestamps = new long[10];
+        double[] values = new double[10];
+
+        int n = ring.copyRange(2_500, 5_000, timestamps, values);
+
+        assertArrayEquals(new long[] {3_000, 4_000, 5_000}, Arrays.copyOf(timestamps, n));
+        assertArrayEquals(new double[] {3, 4, 5}, Arrays.copyOf(values, n));
+    }
+
+    @Test
+    void emptyRingHasNoOldestBucket() {
+        assertEquals(Long.MAX_VALUE, new TimeSeriesRing(RESOLUTION, 3).oldest());
+    }
+
+    private static void assertPoints(TimeSeriesRing ring, long[] expectedTimestamps, double[] expectedValues) {
+        long[] timestamps = new long[ring.size()];
+        double[] values = new double[ring.size()];
+        int n = ring.copyRange(Long.MIN_VALUE, Long.MAX_VALUE, timestamps, values);
+        assertArrayEquals(expectedTimestamps, Arrays.copyOf(timestamps, n));
+        assertArrayEquals(expectedValues, Arrays.copyOf(values, n));
+    }
+}
@@ -0,0 +1,149 @@
+package com.streamride.dashboardservice.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflatingOutboundInterceptorTest {
+
+    private static final String SESSION = "s1";
+    private static final long NO_DEADLINE = 60_000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Message<?>> handedOn = new ArrayList<>();
+    private final MessageChannel channel = (message, timeout) -> handedOn.add(message);
+    private final AtomicInteger closes = new AtomicInteger();
+
+    private ConflatingOutboundInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ConflatingOutboundInterceptor(registry, NO_DEADLINE);
+        interceptor.opened(SESSION, closes::incrementAndGet);
+    }
+
+    @Test
+    void framesArrivingDuringAWriteAreParkedAndReplaced() {
+        Message<?> first = frame("/topic/a", "1");
+        Message<?> second = frame("/topic/a", "2");
+        Message<?> third = frame("/topic/a", "3");
+
+        assertSame(first, interceptor.beforeHandle(first, channel, null));
+        assertNull(interceptor.beforeHandle(second, channel, null));
+        assertNull(interceptor.beforeHandle(third, channel, null));
+
+        assertEquals(1, registry.counter("streamride.websocket.frames.dropped").count());
+    }
+
+    @Test
+    void completedWriteHandsOnParkedFramesInArrivalOrder() {
+        Message<?> first = frame("/topic/a", "1");
+        Message<?> parkedA = frame("/topic/a", "2");
+        Message<?> parkedB = frame("/topic/b", "3");
+        interceptor.beforeHandle(first, channel, null);
+        interceptor.beforeHandle(parkedA, channel, null);
+        interceptor.beforeHandle(parkedB, channel, null);
+        // Dropped frames are reported as handled too, and must not hand anything on
+        interceptor.afterMessageHandled(parkedA, channel, null, null);
+        assertEquals(List.of(), handedOn);
+
+        interceptor.afterMessageHandled(first, channel, null, null);
+        assertEquals(List.of(parkedA), handedOn);
+        assertSame(parkedA, interceptor.beforeHandle(parkedA, channel, null));
+
+        interceptor.afterMessageHandled(parkedA, channel, null, null);
+        assertEquals(List.of(parkedA, parkedB), handedOn);
+        assertSame(parkedB, interceptor.beforeHandle(parkedB, channel, null));
+
+        interceptor.afterMessageHandled(parkedB, channel, null, null);
+        assertEquals(2, handedOn.size());
+        assertEquals(3, registry.counter("streamride.websocket.frames.sent").count());
+
+        // Idle again: the next frame is written straight away
+        Message<?> next = frame("/topic/a", "4");
+        assertSame(next, interceptor.beforeHandle(next, channel, null));
+    }
+
+    @Test
+    void otherFrameTypesAreNeverHeldBack() {
+        interceptor.beforeHandle(frame("/topic/a", "1"), channel, null);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+        accessor.setSessionId(SESSION);
+        Message<?> heartbeat = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        assertSame(heartbeat, interceptor.beforeHandle(heartbeat, channel, null));
+    }
+
+    @Test
+    void closedSessionsAreNotTrackedAgain() {
+        Message<?> first = frame("/topic/a", "1");
+        interceptor.beforeHandle(first, channel, null);
+        interceptor.beforeHandle(frame("/topic/a", "2"), channel, null);
+
+        interceptor.closed(SESSION);
+
+        assertEquals(1, registry.counter("streamride.websocket.frames.dropped").count());
+        // Late frames pass through untracked instead of recreating the session state
+        Message<?> late = frame("/topic/a", "3");
+        Message<?> later = frame("/topic/a", "4");
+        assertSame(late, interceptor.beforeHandle(late, channel, null));
+        assertSame(later, interceptor.beforeHandle(later, channel, null));
+        interceptor.afterMessageHandled(first, channel, null, null);
+        assertEquals(List.of(), handedOn);
+    }
+
+    @Test
+    void stalledWriteClosesTheSession() throws InterruptedException {
+        interceptor = new ConflatingOutboundInterceptor(registry, 10);
+        interceptor.opened(SESSION, closes::incrementAndGet);
+        interceptor.opened("idle", closes::incrementAndGet);
+        interceptor.beforeHandle(frame("/topic/a", "1"), channel, null);
+        interceptor.beforeHandle(frame("/topic/b", "2"), channel, null);
+
+        Thread.sleep(50);
+        interceptor.closeStalledSessions();
+        interceptor.closeStalledSessions();
+
+        assertEquals(1, closes.get());
+        assertEquals(1, registry.counter("streamride.websocket.sessions.stalled").count());
+        assertEquals(1, registry.counter("streamride.websocket.frames.dropped").count());
+        // Frames for a session being closed are dropped rather than parked
+        assertNull(interceptor.beforeHandle(frame("/topic/a", "3"), channel, null));
+    }
+
+    @Test
+    void completedWritesDoNotCountAgainstTheDeadline() throws InterruptedException {
+        interceptor = new ConflatingOutboundInterceptor(registry, 10);
+        interceptor.opened(SESSION, closes::incrementAndGet);
+        Message<?> first = frame("/topic/a", "1");
+        interceptor.beforeHandle(first, channel, null);
+        interceptor.afterMessageHandled(first, channel, null, null);
+
+        Thread.sleep(50);
+        interceptor.closeStalledSessions();
+
+        assertEquals(0, closes.get());
+        assertTrue(handedOn.isEmpty());
+    }
+
+    private static Message<?> frame(String destination, String payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,44 @@
+package com.streamride.processorservice.aggregator;
+
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.serde.CityStatsSerde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-pass aggregator for per-city ride statistics.
+ *
+ * Input is the stream of lifecycle deltas from {@link RideLifecycleAggregator},
+ * which keeps the city key of rides.events, so grouping by its key creates no
+ * repartition topic. Every delta is folded into one {@link CityStats} value in
+ * one store; active rides, completed rides and average duration are derived
+ * from it by the other aggregators.
+ */
+@Component
+public class CityStatsAggregator {
+
+    public static final String CITY_STATS_STORE = "city-stats-store";
+
+    /**
+     * Builds the KTable of per-city statistics.
+     *
+     * @param deltas per-city lifecycle deltas, keyed and partitioned by city
+     * @return KTable mapping city name to its statistics
+     */
+    public KTable<String, CityStats> build(KStream<String, CityStats> deltas) {
+        return deltas
+                .groupByKey(Grouped.with(Serdes.String(), new CityStatsSerde()))
+                .aggregate(
+                        CityStats::new,
+                        (city, delta, stats) -> stats.add(delta),
+                        Materialized.<String, CityStats, KeyValueStore<Bytes, byte[]>>as(CITY_STATS_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(new CityStatsSerde()));
+    }
+}
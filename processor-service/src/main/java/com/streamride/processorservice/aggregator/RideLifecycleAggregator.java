@@ -0,0 +1,83 @@
+package com.streamride.processorservice.aggregator;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.model.RideLifecycle;
+import com.streamride.processorservice.processor.RideLifecycleProcessor;
+import com.streamride.processorservice.serde.RideLifecycleSerde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Ride-level lifecycle tracking that feeds the per-city statistics.
+ *
+ * rides.events is keyed by city and every event of a ride carries the same
+ * city, so all of a ride's events already land in one task. The lifecycle
+ * state is kept there, keyed by ride ID ({@link RideLifecycleProcessor}),
+ * and the per-city deltas keep the city key, so
+ * {@link CityStatsAggregator} folds them into the shared table without any
+ * repartition topic.
+ */
+@Component
+public class RideLifecycleAggregator {
+
+    public static final String LIFECYCLE_STORE = "ride-lifecycle-store";
+    public static final String EXPIRY_STORE = "ride-expiry-index";
+
+    private final long requestedTtlMs;
+    private final long startedTtlMs;
+    private final long completedRetentionMs;
+    private final Duration expiryInterval;
+
+    public RideLifecycleAggregator(@Value("${streamride.lifecycle.requested-ttl-ms:1800000}") long requestedTtlMs,
+                                   @Value("${streamride.lifecycle.started-ttl-ms:14400000}") long startedTtlMs,
+                                   @Value("${streamride.lifecycle.completed-retention-ms:600000}") long completedRetentionMs,
+                                   @Value("${streamride.lifecycle.expiry-interval-ms:10000}") long expiryIntervalMs) {
+        this.requestedTtlMs = requestedTtlMs;
+        this.startedTtlMs = startedTtlMs;
+        this.completedRetentionMs = completedRetentionMs;
+        this.expiryInterval = Duration.ofMillis(expiryIntervalMs);
+    }
+
+    /**
+     * Builds the stream of per-city statistics deltas.
+     *
+     * @param events source stream of ride events, keyed by city
+     * @return deltas, still keyed and partitioned by city
+     */
+    public KStream<String, CityStats> build(KStream<String, RideEvent> events) {
+        return events
+                .filter((k, v) -> v.getEventType() != EventType.DRIVER_LOCATION_UPDATE
+                        && v.getRideId() != null && v.getCity() != null)
+                .processValues(new RideLifecycleSupplier());
+    }
+
+    private class RideLifecycleSupplier implements FixedKeyProcessorSupplier<String, RideEvent, CityStats> {
+        @Override
+        public FixedKeyProcessor<String, RideEvent, CityStats> get() {
+            return new RideLifecycleProcessor(LIFECYCLE_STORE, EXPIRY_STORE,
+                    requestedTtlMs, startedTtlMs, completedRetentionMs, expiryInterval);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, RideLifecycle>> lifecycle = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(LIFECYCLE_STORE), Serdes.String(), new RideLifecycleSerde());
+            StoreBuilder<KeyValueStore<Bytes, byte[]>> expiry = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(EXPIRY_STORE), Serdes.Bytes(), Serdes.ByteArray());
+            return Set.of(lifecycle, expiry);
+        }
+    }
+}
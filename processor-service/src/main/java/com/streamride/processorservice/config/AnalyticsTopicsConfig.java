@@ -0,0 +1,66 @@
+package com.streamride.processorservice.config;
+
+import com.streamride.model.config.KafkaTopics;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+/**
+ * Declares the per-type analytics topics.
+ *
+ * The state topics are log-compacted: a consumer rebuilds the latest state by
+ * reading a log that holds roughly one record per key. Small segments and a
+ * low dirty ratio keep the uncompacted tail short. Anomalies are events
+ * rather than state, and compaction would collapse anomalies sharing a key,
+ * so their topic is only time-bounded.
+ */
+@Configuration
+public class AnalyticsTopicsConfig {
+
+    @Value("${streamride.analytics.topics.partitions:3}")
+    private int partitions;
+
+    @Value("${streamride.analytics.topics.replicas:1}")
+    private int replicas;
+
+    @Value("${streamride.analytics.topics.segment-ms:600000}")
+    private long segmentMs;
+
+    @Value("${streamride.analytics.topics.min-cleanable-dirty-ratio:0.1}")
+    private double minCleanableDirtyRatio;
+
+    @Value("${streamride.analytics.topics.anomaly-retention-ms:86400000}")
+    private long anomalyRetentionMs;
+
+    @Bean
+    public KafkaAdmin.NewTopics analyticsTopics() {
+        return new KafkaAdmin.NewTopics(
+                compacted(KafkaTopics.ANALYTICS_METRICS).build(),
+                compacted(KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES).build(),
+                // Single ranking key, one partition is all it can use
+                compacted(KafkaTopics.ANALYTICS_TOP_CITIES).partitions(1).build(),
+                compacted(KafkaTopics.ANALYTICS_PERCENTILES).build(),
+                compacted(KafkaTopics.ANALYTICS_ACTIVE_DRIVERS).build(),
+                compacted(KafkaTopics.ANALYTICS_HEATMAP).build(),
+                TopicBuilder.name(KafkaTopics.ANALYTICS_ANOMALIES)
+                        .partitions(partitions)
+                        .replicas(replicas)
+                        .config(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE)
+                        .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(anomalyRetentionMs))
+                        .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(segmentMs))
+                        .build());
+    }
+
+    private TopicBuilder compacted(String name) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
+                .replicas(replicas)
+                .compact()
+                .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(segmentMs))
+                .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, String.valueOf(minCleanableDirtyRatio));
+    }
+}
@@ -0,0 +1,139 @@
+package com.streamride.processorservice.config;
+
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.Statistics;
+import org.rocksdb.StatsLevel;
+import org.rocksdb.WriteBufferManager;
+
+import java.util.Map;
+
+/**
+ * Bounds the off-heap memory of every RocksDB store in this instance.
+ *
+ * By default each RocksDB instance (one per store per partition, and one per
+ * segment of windowed stores) gets its own block cache and memtables, so
+ * memory grows with the number of stores and tasks. Here all instances share
+ * one LRU block cache, and memtables are charged against that same cache
+ * through one {@link WriteBufferManager}, so the total is capped by
+ * {@value #TOTAL_OFF_HEAP_BYTES_CONFIG}. Index and filter blocks live in the
+ * cache too, at high priority, so they are not evicted by data blocks.
+ *
+ * Kafka Streams instantiates this class per store, so the shared resources are
+ * static and created once from the first store's configuration. They are
+ * never closed: they live as long as the process. Block-cache hit and miss
+ * counts come from one shared {@link Statistics} object, read by
+ * {@link RocksDBMetrics}.
+ */
+public class BoundedMemoryRocksDBConfig implements RocksDBConfigSetter {
+
+    public static final String TOTAL_OFF_HEAP_BYTES_CONFIG = "streamride.rocksdb.total-off-heap-bytes";
+    public static final String TOTAL_MEMTABLE_BYTES_CONFIG = "streamride.rocksdb.total-memtable-bytes";
+    public static final String INDEX_FILTER_RATIO_CONFIG = "streamride.rocksdb.index-filter-block-ratio";
+    public static final String BLOCK_SIZE_BYTES_CONFIG = "streamride.rocksdb.block-size-bytes";
+    public static final String BLOOM_BITS_PER_KEY_CONFIG = "streamride.rocksdb.bloom-bits-per-key";
+
+    private static final long DEFAULT_TOTAL_OFF_HEAP_BYTES = 256L * 1024 * 1024;
+    private static final long DEFAULT_TOTAL_MEMTABLE_BYTES = 64L * 1024 * 1024;
+    private static final double DEFAULT_INDEX_FILTER_RATIO = 0.1;
+    private static final long DEFAULT_BLOCK_SIZE_BYTES = 16 * 1024;
+    private static final double DEFAULT_BLOOM_BITS_PER_KEY = 10;
+
+    private static final int MAX_WRITE_BUFFERS = 3;
+
+    private static Cache cache;
+    private static WriteBufferManager writeBufferManager;
+    private static Statistics statistics;
+    private static long capacityBytes;
+
+    private BloomFilter filter;
+
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+        initSharedResources(configs);
+
+        BlockBasedTableConfig tableConfig = (BlockBasedTableConfig) options.tableFormatConfig();
+        tableConfig.setBlockCache(cache);
+        tableConfig.setCacheIndexAndFilterBlocks(true);
+        tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+        tableConfig.setPinTopLevelIndexAndFilter(true);
+        tableConfig.setBlockSize(longConfig(configs, BLOCK_SIZE_BYTES_CONFIG, DEFAULT_BLOCK_SIZE_BYTES));
+        filter = new BloomFilter(doubleConfig(configs, BLOOM_BITS_PER_KEY_CONFIG, DEFAULT_BLOOM_BITS_PER_KEY), false);
+        tableConfig.setFilterPolicy(filter);
+        options.setTableFormatConfig(tableConfig);
+
+        options.setWriteBufferManager(writeBufferManager);
+        options.setMaxWriteBufferNumber(MAX_WRITE_BUFFERS);
+        options.setStatistics(statistics);
+
+        // Level compaction with dynamic level sizes keeps space amplification
+        // near 1.1x; LZ4 is cheap enough for the hot levels
+        options.setCompactionStyle(CompactionStyle.LEVEL);
+        options.setLevelCompactionDynamicLevelBytes(true);
+        options.setCompressionType(CompressionType.LZ4_COMPRESSION);
+        options.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+        options.setMaxBackgroundJobs(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    @Override
+    public void close(String storeName, Options options) {
+        // The cache, write buffer manager and statistics are shared; only the
+        // per-store filter is released
+        if (filter != null) {
+            filter.close();
+        }
+    }
+
+    private static synchronized void initSharedResources(Map<String, Object> configs) {
+        if (cache != null) {
+            return;
+        }
+        long totalBytes = longConfig(configs, TOTAL_OFF_HEAP_BYTES_CONFIG, DEFAULT_TOTAL_OFF_HEAP_BYTES);
+        long memtableBytes = longConfig(configs, TOTAL_MEMTABLE_BYTES_CONFIG, DEFAULT_TOTAL_MEMTABLE_BYTES);
+        if (memtableBytes >= totalBytes) {
+            throw new IllegalArgumentException(TOTAL_MEMTABLE_BYTES_CONFIG + " must be below " + TOTAL_OFF_HEAP_BYTES_CONFIG);
+        }
+        double indexFilterRatio = doubleConfig(configs, INDEX_FILTER_RATIO_CONFIG, DEFAULT_INDEX_FILTER_RATIO);
+
+        // Strict capacity limit off: a full cache must degrade reads, not fail them
+        cache = new LRUCache(totalBytes, -1, false, indexFilterRatio);
+        writeBufferManager = new WriteBufferManager(memtableBytes, cache);
+        statistics = new Statistics();
+        statistics.setStatsLevel(StatsLevel.EXCEPT_DETAILED_TIMERS);
+        capacityBytes = totalBytes;
+    }
+
+    /**
+     * @return the shared block cache, or null before the first store is opened
+     */
+    static synchronized Cache sharedCache() {
+        return cache;
+    }
+
+    /**
+     * @return the shared statistics, or null before the first store is opened
+     */
+    static synchronized Statistics sharedStatistics() {
+        return statistics;
+    }
+
+    static synchronized long capacityBytes() {
+        return capacityBytes;
+    }
+
+    private static long longConfig(Map<String, Object> configs, String key, long defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : Long.parseLong(value.toString());
+    }
+
+    private static double doubleConfig(Map<String, Object> configs, String key, double defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value.toString());
+    }
+}
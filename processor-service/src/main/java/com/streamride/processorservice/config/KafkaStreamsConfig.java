@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
 import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
 import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBeanConfigurer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +20,33 @@ public class KafkaStreamsConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${streamride.query.application-server:localhost:${server.port:8082}}")
+    private String applicationServer;
+
+    @Value("${streamride.streams.standby-replicas:1}")
+    private int standbyReplicas;
+
+    @Value("${streamride.streams.max-warmup-replicas:2}")
+    private int maxWarmupReplicas;
+
+    @Value("${streamride.streams.acceptable-recovery-lag:10000}")
+    private long acceptableRecoveryLag;
+
+    @Value("${streamride.streams.rack:}")
+    private String rack;
+
+    @Value("${streamride.streams.session-timeout-ms:10000}")
+    private int sessionTimeoutMs;
+
+    @Value("${streamride.rocksdb.total-off-heap-bytes:268435456}")
+    private long rocksDbTotalOffHeapBytes;
+
+    @Value("${streamride.rocksdb.total-memtable-bytes:67108864}")
+    private long rocksDbTotalMemtableBytes;
+
+    @Value("${streamride.rocksdb.index-filter-block-ratio:0.1}")
+    private double rocksDbIndexFilterBlockRatio;
+
     @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
     public KafkaStreamsConfiguration kStreamsConfigs() {
         Map<String, Object> props = new HashMap<>();
@@ -28,6 +56,47 @@ public class KafkaStreamsConfig {
         props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass());
         props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000); // frequent offset commits
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        // Advertised to other instances for interactive query routing
+        props.put(StreamsConfig.APPLICATION_SERVER_CONFIG, applicationServer);
+        // One shared, bounded block cache and memtable budget for all RocksDB stores
+        props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfig.class);
+        props.put(BoundedMemoryRocksDBConfig.TOTAL_OFF_HEAP_BYTES_CONFIG, rocksDbTotalOffHeapBytes);
+        props.put(BoundedMemoryRocksDBConfig.TOTAL_MEMTABLE_BYTES_CONFIG, rocksDbTotalMemtableBytes);
+        props.put(BoundedMemoryRocksDBConfig.INDEX_FILTER_RATIO_CONFIG, rocksDbIndexFilterBlockRatio);
+        putFailoverConfig(props, standbyReplicas, maxWarmupReplicas, acceptableRecoveryLag, rack, sessionTimeoutMs);
         return new KafkaStreamsConfiguration(props);
     }
+
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer restoreListenerConfigurer(RestoreProgressListener restoreListener) {
+        return factoryBean -> factoryBean.setStateRestoreListener(restoreListener);
+    }
+
+    /**
+     * Settings for fast failover.
+     *
+     * Standby replicas keep warm copies of each store on other instances, so a
+     * failed task moves to an instance that only needs to replay its lag. When
+     * no caught-up instance exists, warmup replicas restore in the background
+     * while the task keeps running where it is, and it moves once within the
+     * acceptable lag. With a rack set, the consumer's client.rack drives
+     * rack-aware task assignment and the rack tag places standbys on a
+     * different rack than their active task. The shorter session timeout bounds
+     * how long a crashed instance's tasks stay unassigned.
+     */
+    static void putFailoverConfig(Map<String, Object> props, int standbyReplicas, int maxWarmupReplicas,
+                                  long acceptableRecoveryLag, String rack, int sessionTimeoutMs) {
+        props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, standbyReplicas);
+        props.put(StreamsConfig.MAX_WARMUP_REPLICAS_CONFIG, maxWarmupReplicas);
+        props.put(StreamsConfig.ACCEPTABLE_RECOVERY_LAG_CONFIG, acceptableRecoveryLag);
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG), sessionTimeoutMs);
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG), sessionTimeoutMs / 3);
+        if (rack != null && !rack.isBlank()) {
+            props.put(StreamsConfig.consumerPrefix(ConsumerConfig.CLIENT_RACK_CONFIG), rack);
+            props.put(StreamsConfig.RACK_AWARE_ASSIGNMENT_STRATEGY_CONFIG,
+                    StreamsConfig.RACK_AWARE_ASSIGNMENT_STRATEGY_MIN_TRAFFIC);
+            props.put(StreamsConfig.CLIENT_TAG_PREFIX + "rack", rack);
+            props.put(StreamsConfig.RACK_AWARE_ASSIGNMENT_TAGS_CONFIG, "rack");
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package com.streamride.processorservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.processor.StateRestoreListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks changelog restoration of active tasks and exposes it per store.
+ *
+ * For every store being restored this publishes the records restored and
+ * remaining, the restore rate over the current restoration and the estimated
+ * time to completion, all tagged with the store name and summed over its
+ * partitions. Finished restorations are recorded in a timer, so the time a
+ * failover spent restoring stays visible after the fact.
+ *
+ * Callbacks come from stream threads; the gauges are read from the metrics
+ * scrape thread.
+ */
+@Slf4j
+@Component
+public class RestoreProgressListener implements StateRestoreListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StoreRestore> stores = new ConcurrentHashMap<>();
+
+    public RestoreProgressListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onRestoreStart(TopicPartition partition, String storeName, long startingOffset, long endingOffset) {
+        long toRestore = Math.max(0, endingOffset - startingOffset);
+        stores.computeIfAbsent(storeName, this::register).start(partition, toRestore);
+        log.info("Restoring {} from {} ({} records)", storeName, partition, toRestore);
+    }
+
+    @Override
+    public void onBatchRestored(TopicPartition partition, String storeName, long batchEndOffset, long numRestored) {
+        StoreRestore store = stores.get(storeName);
+        if (store != null) {
+            store.restored(partition, numRestored);
+        }
+    }
+
+    @Override
+    public void onRestoreEnd(TopicPartition partition, String storeName, long totalRestored) {
+        StoreRestore store = stores.get(storeName);
+        if (store == null) {
+            return;
+        }
+        long nanos = store.end(partition);
+        store.duration.record(Duration.ofNanos(nanos));
+        log.info("Restored {} from {}: {} records in {} ms", storeName, partition, totalRestored, nanos / 1_000_000);
+    }
+
+    /**
+     * @return records restored so far for the store's in-progress and finished partitions
+     */
+    public long restoredRecords(String storeName) {
+        StoreRestore store = stores.get(storeName);
+        return store == null ? 0 : store.totalRestored();
+    }
+
+    private StoreRestore register(String storeName) {
+        StoreRestore store = new StoreRestore(Timer.builder("streamride.streams.restore.duration")
+                .description("Time to restore one store partition from its changelog")
+                .tag("store", storeName)
+                .register(meterRegistry));
+        Gauge.builder("streamride.streams.restore.restored", store, StoreRestore::totalRestored)
+                .description("Records restored so far")
+                .tag("store", storeName)
+                .register(meterRegistry);
+        Gauge.builder("streamride.streams.restore.remaining", store, StoreRestore::remaining)
+                .description("Records left to restore in partitions still restoring")
+                .tag("store", storeName)
+                .register(meterRegistry);
+        Gauge.builder("streamride.streams.restore.rate", store, StoreRestore::rate)
+                .description("Records restored per second across partitions still restoring")
+                .tag("store", storeName)
+                .register(meterRegistry);
+        Gauge.builder("streamride.streams.restore.eta", store, StoreRestore::etaSeconds)
+                .description("Estimated seconds until restoration completes, or 0 when idle")
+                .tag("store", storeName)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return store;
+    }
+
+    private static final class PartitionRestore {
+        private final long toRestore;
+        private final long startNanos = System.nanoTime();
+        private volatile long restored;
+        private volatile boolean done;
+
+        private PartitionRestore(long toRestore) {
+            this.toRestore = toRestore;
+        }
+    }
+
+    private static final class StoreRestore {
+        private final Timer duration;
+        private final Map<TopicPartition, PartitionRestore> partitions = new ConcurrentHashMap<>();
+
+        private StoreRestore(Timer duration) {
+            this.duration = duration;
+        }
+
+        void start(TopicPartition partition, long toRestore) {
+            partitions.put(partition, new PartitionRestore(toRestore));
+        }
+
+        void restored(TopicPartition partition, long records) {
+            PartitionRestore restore = partitions.get(partition);
+            if (restore != null) {
+                // Only the owning stream thread writes a partition's progress
+                restore.restored += records;
+            }
+        }
+
+        long end(TopicPartition partition) {
+            PartitionRestore restore = partitions.get(partition);
+            if (restore == null) {
+                return 0;
+            }
+            restore.done = true;
+            return System.nanoTime() - restore.startNanos;
+        }
+
+        long totalRestored() {
+            long total = 0;
+            for (PartitionRestore restore : partitions.values()) {
+                total += restore.restored;
+            }
+            return total;
+        }
+
+        long remaining() {
+            long remaining = 0;
+            for (PartitionRestore restore : partitions.values()) {
+                if (!restore.done) {
+                    remaining += Math.max(0, restore.toRestore - restore.restored);
+                }
+            }
+            return remaining;
+        }
+
+        double rate() {
+            long now = System.nanoTime();
+            double rate = 0;
+            for (PartitionRestore restore : partitions.values()) {
+                long elapsed = now - restore.startNanos;
+                if (!restore.done && elapsed > 0) {
+                    rate += restore.restored * 1e9 / elapsed;
+                }
+            }
+            return rate;
+        }
+
+        double etaSeconds() {
+            long remaining = remaining();
+            if (remaining == 0) {
+                return 0;
+            }
+            double rate = rate();
+            return rate == 0 ? Double.NaN : remaining / rate;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.streamride.processorservice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.rocksdb.Cache;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the instance-wide RocksDB memory budget and block-cache hit rate.
+ *
+ * Per-store properties such as memtable size and table-reader memory are
+ * already bound as kafka.stream.state.* meters by Spring Boot's Kafka Streams
+ * metrics listener. Because every store shares one cache, those per-store
+ * cache figures all report the same cache; the meters here report it once.
+ */
+@Component
+public class RocksDBMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("streamride.rocksdb.block.cache.capacity", BoundedMemoryRocksDBConfig::capacityBytes)
+                .description("Shared block cache capacity, including memtables charged to it")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("streamride.rocksdb.block.cache.usage", () -> cacheValue(Cache::getUsage))
+                .description("Memory held by the shared block cache")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("streamride.rocksdb.block.cache.pinned.usage", () -> cacheValue(Cache::getPinnedUsage))
+                .description("Shared block cache memory pinned by open iterators and pinned index and filter blocks")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("streamride.rocksdb.block.cache.hits", TickerType.BLOCK_CACHE_HIT, RocksDBMetrics::ticker)
+                .description("Block reads served by the shared cache")
+                .register(registry);
+        FunctionCounter.builder("streamride.rocksdb.block.cache.misses", TickerType.BLOCK_CACHE_MISS, RocksDBMetrics::ticker)
+                .description("Block reads that went to disk")
+                .register(registry);
+        Gauge.builder("streamride.rocksdb.block.cache.hit.ratio", RocksDBMetrics::hitRatio)
+                .description("Share of block reads served by the shared cache since startup")
+                .register(registry);
+    }
+
+    private static double hitRatio() {
+        double hits = ticker(TickerType.BLOCK_CACHE_HIT);
+        double total = hits + ticker(TickerType.BLOCK_CACHE_MISS);
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private static double ticker(TickerType type) {
+        Statistics statistics = BoundedMemoryRocksDBConfig.sharedStatistics();
+        return statistics == null ? 0.0 : statistics.getTickerCount(type);
+    }
+
+    private static double cacheValue(ToLongFunction<Cache> property) {
+        Cache cache = BoundedMemoryRocksDBConfig.sharedCache();
+        return cache == null ? 0.0 : property.applyAsLong(cache);
+    }
+}
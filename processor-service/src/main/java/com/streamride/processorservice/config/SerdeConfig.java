@@ -0,0 +1,34 @@
+package com.streamride.processorservice.config;
+
+import com.streamride.model.RideEvent;
+import com.streamride.model.serde.RideEventBinaryDeserializer;
+import com.streamride.model.serde.RideEventBinarySerializer;
+import com.streamride.model.serde.RideEventWireFormat;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+/**
+ * Serde configuration for ride events.
+ *
+ * Reading always accepts both formats: binary payloads are recognised by their
+ * magic byte and anything else goes to the JSON deserializer, so producers can be
+ * switched independently. The configured format only decides what this service
+ * writes to its own repartition and changelog topics.
+ */
+@Configuration
+public class SerdeConfig {
+
+    @Bean
+    public Serde<RideEvent> rideEventSerde(@Value("${streamride.serialization.format:BINARY}") String format) {
+        JsonSerde<RideEvent> jsonSerde = new JsonSerde<>(RideEvent.class);
+        Serializer<RideEvent> serializer = RideEventWireFormat.parse(format) == RideEventWireFormat.BINARY
+                ? new RideEventBinarySerializer()
+                : jsonSerde.serializer();
+        return Serdes.serdeFrom(serializer, new RideEventBinaryDeserializer(jsonSerde.deserializer()));
+    }
+}
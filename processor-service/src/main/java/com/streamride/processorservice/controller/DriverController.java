@@ -0,0 +1,54 @@
+package com.streamride.processorservice.controller;
+
+import com.streamride.processorservice.geo.NearbyDriver;
+import com.streamride.processorservice.query.StateQueryService;
+import com.streamride.processorservice.query.StateUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Proximity queries over the live driver positions, gathered from every
+ * instance unless {@code local=true}.
+ */
+@RestController
+@RequestMapping("/api/drivers")
+public class DriverController {
+
+    private final StateQueryService queryService;
+    private final double maxRadiusKm;
+
+    public DriverController(StateQueryService queryService,
+                            @Value("${streamride.drivers.max-radius-km:50}") double maxRadiusKm) {
+        this.queryService = queryService;
+        this.maxRadiusKm = maxRadiusKm;
+    }
+
+    /**
+     * Drivers within a radius of a point, nearest first.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyDriver>> nearby(@RequestParam double lat,
+                                                     @RequestParam double lon,
+                                                     @RequestParam(defaultValue = "2") double radiusKm,
+                                                     @RequestParam(defaultValue = "20") int limit,
+                                                     @RequestParam(defaultValue = "false") boolean local) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180
+                || radiusKm <= 0 || radiusKm > maxRadiusKm || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(queryService.nearbyDrivers(lat, lon, radiusKm, limit, local));
+    }
+
+    @ExceptionHandler(StateUnavailableException.class)
+    public ResponseEntity<String> unavailable(StateUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -0,0 +1,65 @@
+package com.streamride.processorservice.controller;
+
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.CityStatsView;
+import com.streamride.processorservice.query.StateQueryService;
+import com.streamride.processorservice.query.StateUnavailableException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Interactive queries over the per-city statistics and top cities stores.
+ *
+ * Requests are answered from whichever instance hosts the data; {@code local=true}
+ * restricts the answer to this instance and is used for forwarded requests.
+ */
+@RestController
+@RequestMapping("/api/state")
+public class StateQueryController {
+
+    private final StateQueryService queryService;
+
+    public StateQueryController(StateQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    /**
+     * Statistics of one city.
+     */
+    @GetMapping("/cities/{city}")
+    public ResponseEntity<CityStatsView> city(@PathVariable String city,
+                                              @RequestParam(defaultValue = "false") boolean local) {
+        return ResponseEntity.of(queryService.cityStats(city, local));
+    }
+
+    /**
+     * Statistics of all cities, or of the cities between {@code from} and {@code to} inclusive.
+     */
+    @GetMapping("/cities")
+    public ResponseEntity<List<CityStatsView>> cities(@RequestParam(required = false) String from,
+                                                      @RequestParam(required = false) String to,
+                                                      @RequestParam(defaultValue = "false") boolean local) {
+        return ResponseEntity.ok(queryService.cityStatsRange(from, to, local));
+    }
+
+    /**
+     * Current global top cities by active rides.
+     */
+    @GetMapping("/top-cities")
+    public ResponseEntity<List<CityCount>> topCities(@RequestParam(defaultValue = "false") boolean local) {
+        return ResponseEntity.ok(queryService.topCities(local));
+    }
+
+    @ExceptionHandler(StateUnavailableException.class)
+    public ResponseEntity<String> unavailable(StateUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -0,0 +1,18 @@
+package com.streamride.processorservice.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last known position of a driver. Instances are updated in place.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverPosition {
+    private String driverId;
+    private double latitude;
+    private double longitude;
+    private long lastSeen;
+}
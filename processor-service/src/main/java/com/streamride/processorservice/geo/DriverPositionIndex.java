@@ -0,0 +1,192 @@
+package com.streamride.processorservice.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of the driver positions owned by this instance.
+ *
+ * Drivers are bucketed in a fixed latitude/longitude grid, so a proximity
+ * query only visits the cells overlapping the search circle's bounding box
+ * and never scans the full driver set. An update that stays within its cell
+ * only rewrites the driver's fields; the grid is touched only when a driver
+ * crosses a cell boundary.
+ *
+ * Written by the stream threads of {@link com.streamride.processorservice.processor.DriverPositionProcessor}
+ * and read by REST handlers; a read-write lock lets queries run concurrently.
+ * The grid does not wrap around the antimeridian.
+ */
+@Component
+public class DriverPositionIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final double cellDegrees;
+    private final long ttlMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> byDriver = new HashMap<>();
+    private final Map<Long, Map<String, Entry>> cells = new HashMap<>();
+
+    public DriverPositionIndex(@Value("${streamride.drivers.grid-cell-degrees:0.01}") double cellDegrees,
+                               @Value("${streamride.drivers.ttl-ms:120000}") long ttlMs) {
+        if (cellDegrees <= 0) {
+            throw new IllegalArgumentException("streamride.drivers.grid-cell-degrees must be positive");
+        }
+        this.cellDegrees = cellDegrees;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Records a driver's position unless a newer one is already indexed.
+     */
+    public void update(String driverId, double latitude, double longitude, long timestamp) {
+        long cell = cellOf(latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            Entry entry = byDriver.get(driverId);
+            if (entry == null) {
+                entry = new Entry(new DriverPosition(driverId, latitude, longitude, timestamp), cell);
+                byDriver.put(driverId, entry);
+                cells.computeIfAbsent(cell, c -> new HashMap<>()).put(driverId, entry);
+                return;
+            }
+            if (timestamp < entry.position.getLastSeen()) {
+                return;
+            }
+            if (cell != entry.cell) {
+                removeFromCell(entry);
+                entry.cell = cell;
+                cells.computeIfAbsent(cell, c -> new HashMap<>()).put(driverId, entry);
+            }
+            entry.position.setLatitude(latitude);
+            entry.position.setLongitude(longitude);
+            entry.position.setLastSeen(timestamp);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a driver unless it was updated after {@code lastSeen}, e.g. by
+     * another task after moving into a cell owned by it.
+     */
+    public void remove(String driverId, long lastSeen) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = byDriver.get(driverId);
+            if (entry != null && entry.position.getLastSeen() <= lastSeen) {
+                byDriver.remove(driverId);
+                removeFromCell(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds drivers within a radius of a point, nearest first. Drivers silent
+     * for longer than the TTL are skipped even if not yet expired.
+     *
+     * @param latitude  query latitude
+     * @param longitude query longitude
+     * @param radiusKm  search radius in km
+     * @param limit     maximum number of drivers to return
+     * @return nearby drivers sorted by distance
+     */
+    public List<NearbyDriver> nearby(double latitude, double longitude, double radiusKm, int limit) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        long minRow = row(Math.max(latitude - latSpan, -90));
+        long maxRow = row(Math.min(latitude + latSpan, 90));
+        long minCol = col(Math.max(longitude - lonSpan, -180));
+        long maxCol = col(Math.min(longitude + lonSpan, 180));
+        long minLastSeen = System.currentTimeMillis() - ttlMs;
+
+        List<NearbyDriver> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    Map<String, Entry> cell = cells.get((row << 32) | col);
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Entry entry : cell.values()) {
+                        DriverPosition p = entry.position;
+                        if (p.getLastSeen() < minLastSeen) {
+                            continue;
+                        }
+                        double distance = distanceKm(latitude, longitude, p.getLatitude(), p.getLongitude());
+                        if (distance <= radiusKm) {
+                            found.add(new NearbyDriver(p.getDriverId(), p.getLatitude(), p.getLongitude(),
+                                    distance, p.getLastSeen()));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+        return found.size() > limit ? List.copyOf(found.subList(0, limit)) : found;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byDriver.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeFromCell(Entry entry) {
+        Map<String, Entry> cell = cells.get(entry.cell);
+        if (cell != null) {
+            cell.remove(entry.position.getDriverId());
+            if (cell.isEmpty()) {
+                cells.remove(entry.cell);
+            }
+        }
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return (row(latitude) << 32) | col(longitude);
+    }
+
+    private long row(double latitude) {
+        return (long) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private long col(double longitude) {
+        return (long) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static final class Entry {
+        private final DriverPosition position;
+        private long cell;
+
+        private Entry(DriverPosition position, long cell) {
+            this.position = position;
+            this.cell = cell;
+        }
+    }
+}
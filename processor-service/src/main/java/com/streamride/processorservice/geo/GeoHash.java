@@ -0,0 +1,73 @@
+package com.streamride.processorservice.geo;
+
+/**
+ * Geohash encoding of coordinates into base-32 cell IDs.
+ *
+ * A geohash of {@code n} characters identifies a cell of {@code 5n} interleaved
+ * longitude/latitude bits; every prefix of a geohash is the enclosing cell at
+ * the coarser resolution. Approximate cell sizes at the equator: 4 chars
+ * ~39 x 20 km, 5 chars ~4.9 x 4.9 km, 6 chars ~1.2 x 0.6 km.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+        // Utility class
+    }
+
+    /**
+     * @param latitude  latitude in degrees, -90 to 90
+     * @param longitude longitude in degrees, -180 to 180
+     * @param precision number of characters, 1 to {@link #MAX_PRECISION}
+     * @return geohash of the cell containing the point
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        long bits = encodeBits(latitude, longitude, precision * 5);
+        char[] hash = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            hash[i] = BASE32[(int) (bits & 0x1F)];
+            bits >>>= 5;
+        }
+        return new String(hash);
+    }
+
+    /**
+     * @return the interleaved cell bits, longitude first, right-aligned
+     */
+    public static long encodeBits(double latitude, double longitude, int bitCount) {
+        if (bitCount < 1 || bitCount > MAX_PRECISION * 5) {
+            throw new IllegalArgumentException("bitCount must be between 1 and " + MAX_PRECISION * 5);
+        }
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)
+                || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        long bits = 0;
+        for (int i = 0; i < bitCount; i++) {
+            bits <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    bits |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+}
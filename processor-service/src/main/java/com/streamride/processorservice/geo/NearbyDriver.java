@@ -0,0 +1,13 @@
+package com.streamride.processorservice.geo;
+
+/**
+ * A driver returned by a proximity query.
+ *
+ * @param driverId   driver ID
+ * @param latitude   last known latitude
+ * @param longitude  last known longitude
+ * @param distanceKm great-circle distance from the query point
+ * @param lastSeen   time of the last position update, epoch millis
+ */
+public record NearbyDriver(String driverId, double latitude, double longitude, double distanceKm, long lastSeen) {
+}
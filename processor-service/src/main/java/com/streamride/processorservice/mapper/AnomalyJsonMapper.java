@@ -1,45 +1,31 @@
 package com.streamride.processorservice.mapper;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.streamride.model.RideEvent;
-import lombok.extern.slf4j.Slf4j;
+import com.streamride.processorservice.message.AnomalyMessage;
 import org.springframework.stereotype.Component;
 
 /**
- * JSON mapper for anomaly detection messages.
+ * Mapper for anomaly detection messages.
  * 
- * Creates JSON messages for rides that exceed the duration threshold.
+ * Creates messages for rides that are outliers against their city's baseline.
  */
 @Component
-@Slf4j
 public class AnomalyJsonMapper {
 
-    private final ObjectMapper objectMapper;
-
-    public AnomalyJsonMapper(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-    }
-
     /**
-     * Creates an ANOMALY JSON message.
+     * Creates an ANOMALY message.
      * 
-     * @param event ride event that triggered the anomaly
-     * @return JSON string for ANOMALY message
+     * @param event  ride event that triggered the anomaly
+     * @param metric name of the outlying metric
+     * @param value  observed value
+     * @param mean   city baseline mean of the metric
+     * @param stdDev city baseline standard deviation of the metric
+     * @param zScore standard score of the observed value
+     * @return ANOMALY message
      */
-    public String createAnomalyJson(RideEvent event) {
-        try {
-            ObjectNode anomaly = objectMapper.createObjectNode();
-            anomaly.put("type", "ANOMALY");
-            anomaly.put("city", event.getCity());
-            anomaly.put("rideId", event.getRideId());
-            anomaly.put("duration", event.getDurationMinutes());
-            anomaly.put("message", "Long ride detected");
-            anomaly.put("timestamp", System.currentTimeMillis());
-            return anomaly.toString();
-        } catch (Exception e) {
-            log.error("Error creating ANOMALY JSON", e);
-            return "";
-        }
+    public AnomalyMessage createAnomalyMessage(RideEvent event, String metric, double value, double mean,
+                                               double stdDev, double zScore) {
+        return new AnomalyMessage(event.getCity(), event.getRideId(), event.getDurationMinutes(), metric,
+                value, mean, stdDev, zScore, System.currentTimeMillis());
     }
 }
@@ -1,98 +1,108 @@
 package com.streamride.processorservice.mapper;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.streamride.processorservice.message.ActiveDriversMessage;
+import com.streamride.processorservice.message.CityActiveRidesMessage;
+import com.streamride.processorservice.message.HeatmapMessage;
+import com.streamride.processorservice.message.MetricsMessage;
+import com.streamride.processorservice.message.RidePercentilesMessage;
+import com.streamride.processorservice.message.RidePercentilesMessage.Percentiles;
+import com.streamride.processorservice.message.TopCitiesMessage;
+import com.streamride.processorservice.model.CellCounts;
 import com.streamride.processorservice.model.CityCount;
 import com.streamride.processorservice.model.CityMetrics;
-import lombok.extern.slf4j.Slf4j;
+import com.streamride.processorservice.model.RideDistribution;
+import com.streamride.processorservice.model.RideParticipants;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
- * JSON mapper for metrics-related analytics messages.
+ * Mapper for metrics-related analytics messages.
  * 
- * Centralizes JSON creation logic to eliminate code duplication
- * and provide consistent message formatting.
+ * Centralizes message creation so every pipeline stamps and shapes its
+ * output consistently. Messages are written as JSON by
+ * {@link com.streamride.processorservice.serde.AnalyticsMessageSerde}.
  */
 @Component
-@Slf4j
 public class MetricsJsonMapper {
 
-    private final ObjectMapper objectMapper;
-
-    public MetricsJsonMapper(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-    }
-
     /**
-     * Creates a METRICS JSON message.
+     * Creates a METRICS message.
      * 
-     * @param cityMetrics city metrics containing active and completed ride counts
+     * @param cityMetrics city metrics containing ride counts and measured timings
      * @param avgDuration average ride duration
-     * @return JSON string for METRICS message
+     * @return METRICS message
      */
-    public String createMetricsJson(CityMetrics cityMetrics, Double avgDuration) {
-        try {
-            ObjectNode json = objectMapper.createObjectNode();
-            json.put("type", "METRICS");
-            json.put("activeRides", cityMetrics.getActiveRides());
-            json.put("ridesCompleted", cityMetrics.getRidesCompleted());
-            json.put("avgDuration", avgDuration == null ? 0.0 : avgDuration);
-            json.put("timestamp", System.currentTimeMillis());
-            return json.toString();
-        } catch (Exception e) {
-            log.error("Error creating METRICS JSON", e);
-            return "{}";
-        }
+    public MetricsMessage createMetricsMessage(CityMetrics cityMetrics, Double avgDuration) {
+        return new MetricsMessage(cityMetrics.getActiveRides(), cityMetrics.getRidesCompleted(),
+                avgDuration == null ? 0.0 : avgDuration, cityMetrics.getRidesExpired(),
+                cityMetrics.getAvgWaitSeconds(), cityMetrics.getAvgMeasuredDuration(), System.currentTimeMillis());
     }
 
     /**
-     * Creates a CITY_ACTIVE_RIDES JSON message.
+     * Creates a CITY_ACTIVE_RIDES message.
      * 
      * @param city  city name
      * @param count active ride count
-     * @return JSON string for CITY_ACTIVE_RIDES message
+     * @return CITY_ACTIVE_RIDES message
      */
-    public String createCityActiveRidesJson(String city, Long count) {
-        try {
-            ObjectNode json = objectMapper.createObjectNode();
-            json.put("type", "CITY_ACTIVE_RIDES");
-            json.put("city", city);
-            json.put("activeRides", count);
-            json.put("timestamp", System.currentTimeMillis());
-            return json.toString();
-        } catch (Exception e) {
-            log.error("Error creating CITY_ACTIVE_RIDES JSON", e);
-            return "{}";
-        }
+    public CityActiveRidesMessage createCityActiveRidesMessage(String city, Long count) {
+        return new CityActiveRidesMessage(city, count == null ? 0 : count, System.currentTimeMillis());
     }
 
     /**
-     * Creates a TOP_ACTIVE_CITIES JSON message.
+     * Creates a TOP_ACTIVE_CITIES message.
      * 
-     * @param cityMap map of city names to active ride counts
-     * @return JSON string for TOP_ACTIVE_CITIES message
+     * @param topCities cities already ranked by active ride count, highest first
+     * @return TOP_ACTIVE_CITIES message
      */
-    public String createTopCitiesJson(Map<String, Long> cityMap) {
-        try {
-            // Sort and limit to top 5 cities
-            List<CityCount> top5 = cityMap.entrySet().stream()
-                    .map(e -> new CityCount(e.getKey(), e.getValue()))
-                    .sorted((c1, c2) -> Long.compare(c2.getCount(), c1.getCount()))
-                    .limit(5)
-                    .collect(Collectors.toList());
+    public TopCitiesMessage createTopCitiesMessage(List<CityCount> topCities) {
+        return new TopCitiesMessage(topCities, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a RIDE_PERCENTILES message.
+     * 
+     * @param city         city name
+     * @param windowType   TUMBLING or HOPPING
+     * @param windowStart  window start, epoch millis
+     * @param windowEnd    window end, epoch millis
+     * @param distribution duration and fare sketches of the window
+     * @return RIDE_PERCENTILES message
+     */
+    public RidePercentilesMessage createRidePercentilesMessage(String city, String windowType, long windowStart,
+                                                               long windowEnd, RideDistribution distribution) {
+        return new RidePercentilesMessage(city, windowType, windowStart, windowEnd,
+                distribution.getDurationMinutes().getCount(),
+                Percentiles.of(distribution.getDurationMinutes()),
+                Percentiles.of(distribution.getFare()),
+                System.currentTimeMillis());
+    }
 
-            ObjectNode json = objectMapper.createObjectNode();
-            json.put("type", "TOP_ACTIVE_CITIES");
-            json.putPOJO("cities", top5);
-            json.put("timestamp", System.currentTimeMillis());
-            return json.toString();
-        } catch (Exception e) {
-            log.error("Error creating TOP_ACTIVE_CITIES JSON", e);
-            return "{}";
-        }
+    /**
+     * Creates an ACTIVE_DRIVERS message.
+     * 
+     * @param city         city name
+     * @param windowStart  window start, epoch millis
+     * @param windowEnd    window end, epoch millis
+     * @param participants distinct driver and rider sketches of the window
+     * @return ACTIVE_DRIVERS message
+     */
+    public ActiveDriversMessage createActiveDriversMessage(String city, long windowStart, long windowEnd,
+                                                           RideParticipants participants) {
+        return new ActiveDriversMessage(city, windowStart, windowEnd, participants.getDrivers().estimate(),
+                participants.getRiders().estimate(), System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a HEATMAP message for one geohash cell.
+     * 
+     * @param cell   geohash cell ID; its length is the precision
+     * @param counts lifecycle counts of the cell
+     * @return HEATMAP message
+     */
+    public HeatmapMessage createHeatmapMessage(String cell, CellCounts counts) {
+        return new HeatmapMessage(cell, counts.getRequested(), counts.getStarted(), counts.getCompleted(),
+                System.currentTimeMillis());
     }
 }
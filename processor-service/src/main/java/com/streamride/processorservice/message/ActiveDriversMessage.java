@@ -0,0 +1,28 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * ACTIVE_DRIVERS message: estimated distinct drivers and riders of a rolling window.
+ */
+public record ActiveDriversMessage(String city, long windowStart, long windowEnd, long activeDrivers,
+                                   long activeRiders, long timestamp) implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("ACTIVE_DRIVERS");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeString(generator, CITY, city);
+        writeNumber(generator, WINDOW_START, windowStart);
+        writeNumber(generator, WINDOW_END, windowEnd);
+        writeNumber(generator, ACTIVE_DRIVERS, activeDrivers);
+        writeNumber(generator, ACTIVE_RIDERS, activeRiders);
+        writeEnd(generator, timestamp);
+    }
+}
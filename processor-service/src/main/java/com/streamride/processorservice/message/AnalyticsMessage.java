@@ -0,0 +1,22 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Typed message on the analytics topics.
+ *
+ * Messages write themselves field by field to a streaming generator, so
+ * publishing one builds no intermediate JSON tree or String. Field names are
+ * {@link MessageFields} constants whose quoted UTF-8 bytes are computed once.
+ *
+ * @see com.streamride.processorservice.serde.AnalyticsMessageSerde
+ */
+public interface AnalyticsMessage {
+
+    /**
+     * Writes this message as one JSON object.
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * ANOMALY message: a ride that is an outlier against its city's baseline.
+ *
+ * The human-readable summary is formatted only when the message is written.
+ */
+public record AnomalyMessage(String city, String rideId, Integer duration, String metric, double value,
+                             double mean, double stdDev, double zScore, long timestamp) implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("ANOMALY");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeString(generator, CITY, city);
+        writeString(generator, RIDE_ID, rideId);
+        generator.writeFieldName(DURATION);
+        if (duration == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(duration);
+        }
+        writeString(generator, METRIC, metric);
+        writeNumber(generator, VALUE, value);
+        writeNumber(generator, MEAN, mean);
+        writeNumber(generator, STD_DEV, stdDev);
+        writeNumber(generator, Z_SCORE, zScore);
+        writeString(generator, MESSAGE, String.format("Unusual %s: %.1f against a city mean of %.1f (z=%.1f)",
+                metric, value, mean, zScore));
+        writeEnd(generator, timestamp);
+    }
+}
@@ -0,0 +1,24 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * CITY_ACTIVE_RIDES message: rides currently in flight in one city.
+ */
+public record CityActiveRidesMessage(String city, long activeRides, long timestamp) implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("CITY_ACTIVE_RIDES");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeString(generator, CITY, city);
+        writeNumber(generator, ACTIVE_RIDES, activeRides);
+        writeEnd(generator, timestamp);
+    }
+}
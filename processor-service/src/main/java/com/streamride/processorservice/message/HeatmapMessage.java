@@ -0,0 +1,29 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * HEATMAP message: lifecycle counts of one geohash cell. The precision is the
+ * length of the cell ID.
+ */
+public record HeatmapMessage(String cell, long requested, long started, long completed, long timestamp)
+        implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("HEATMAP");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeString(generator, CELL, cell);
+        writeNumber(generator, PRECISION, cell.length());
+        writeNumber(generator, REQUESTED, requested);
+        writeNumber(generator, STARTED, started);
+        writeNumber(generator, COMPLETED, completed);
+        writeEnd(generator, timestamp);
+    }
+}
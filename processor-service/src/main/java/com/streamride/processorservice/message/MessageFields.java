@@ -0,0 +1,90 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * Field names and type tags shared by the analytics messages.
+ *
+ * {@link SerializedString} caches its quoted UTF-8 form, so a generator writing
+ * bytes copies each name instead of escaping and encoding it again.
+ */
+final class MessageFields {
+
+    static final SerializedString TYPE = new SerializedString("type");
+    static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    static final SerializedString CITY = new SerializedString("city");
+    static final SerializedString CITIES = new SerializedString("cities");
+    static final SerializedString COUNT = new SerializedString("count");
+    static final SerializedString ACTIVE_RIDES = new SerializedString("activeRides");
+    static final SerializedString RIDES_COMPLETED = new SerializedString("ridesCompleted");
+    static final SerializedString AVG_DURATION = new SerializedString("avgDuration");
+    static final SerializedString RIDES_EXPIRED = new SerializedString("ridesExpired");
+    static final SerializedString AVG_WAIT_SECONDS = new SerializedString("avgWaitSeconds");
+    static final SerializedString AVG_MEASURED_DURATION = new SerializedString("avgMeasuredDuration");
+    static final SerializedString WINDOW = new SerializedString("window");
+    static final SerializedString WINDOW_START = new SerializedString("windowStart");
+    static final SerializedString WINDOW_END = new SerializedString("windowEnd");
+    static final SerializedString RIDES = new SerializedString("rides");
+    static final SerializedString DURATION_MINUTES = new SerializedString("durationMinutes");
+    static final SerializedString FARE = new SerializedString("fare");
+    static final SerializedString P50 = new SerializedString("p50");
+    static final SerializedString P95 = new SerializedString("p95");
+    static final SerializedString P99 = new SerializedString("p99");
+    static final SerializedString MAX = new SerializedString("max");
+    static final SerializedString ACTIVE_DRIVERS = new SerializedString("activeDrivers");
+    static final SerializedString ACTIVE_RIDERS = new SerializedString("activeRiders");
+    static final SerializedString CELL = new SerializedString("cell");
+    static final SerializedString PRECISION = new SerializedString("precision");
+    static final SerializedString REQUESTED = new SerializedString("requested");
+    static final SerializedString STARTED = new SerializedString("started");
+    static final SerializedString COMPLETED = new SerializedString("completed");
+    static final SerializedString RIDE_ID = new SerializedString("rideId");
+    static final SerializedString DURATION = new SerializedString("duration");
+    static final SerializedString METRIC = new SerializedString("metric");
+    static final SerializedString VALUE = new SerializedString("value");
+    static final SerializedString MEAN = new SerializedString("mean");
+    static final SerializedString STD_DEV = new SerializedString("stdDev");
+    static final SerializedString Z_SCORE = new SerializedString("zScore");
+    static final SerializedString MESSAGE = new SerializedString("message");
+
+    private MessageFields() {
+        // Constants only
+    }
+
+    /**
+     * Opens a message object and writes its type tag.
+     */
+    static void writeStart(JsonGenerator generator, SerializableString type) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(type);
+    }
+
+    /**
+     * Writes the timestamp and closes the message object.
+     */
+    static void writeEnd(JsonGenerator generator, long timestamp) throws IOException {
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeNumber(timestamp);
+        generator.writeEndObject();
+    }
+
+    static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    static void writeNumber(JsonGenerator generator, SerializableString name, long value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeNumber(value);
+    }
+
+    static void writeNumber(JsonGenerator generator, SerializableString name, double value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeNumber(value);
+    }
+}
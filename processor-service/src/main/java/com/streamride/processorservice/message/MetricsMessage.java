@@ -0,0 +1,30 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * METRICS message: overall ride counts and timings.
+ */
+public record MetricsMessage(long activeRides, long ridesCompleted, double avgDuration, long ridesExpired,
+                             double avgWaitSeconds, double avgMeasuredDuration, long timestamp)
+        implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("METRICS");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeNumber(generator, ACTIVE_RIDES, activeRides);
+        writeNumber(generator, RIDES_COMPLETED, ridesCompleted);
+        writeNumber(generator, AVG_DURATION, avgDuration);
+        writeNumber(generator, RIDES_EXPIRED, ridesExpired);
+        writeNumber(generator, AVG_WAIT_SECONDS, avgWaitSeconds);
+        writeNumber(generator, AVG_MEASURED_DURATION, avgMeasuredDuration);
+        writeEnd(generator, timestamp);
+    }
+}
@@ -0,0 +1,19 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Already-encoded analytics message, as read back from the topic.
+ *
+ * @param json UTF-8 JSON object
+ */
+public record RawAnalyticsMessage(byte[] json) implements AnalyticsMessage {
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeRawValue(new String(json, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.streamride.processorservice.sketch.QuantileSketch;
+
+import java.io.IOException;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * RIDE_PERCENTILES message: duration and fare percentiles of one closed window.
+ *
+ * A distribution with no samples is written as an empty object.
+ */
+public record RidePercentilesMessage(String city, String window, long windowStart, long windowEnd, long rides,
+                                     Percentiles durationMinutes, Percentiles fare, long timestamp)
+        implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("RIDE_PERCENTILES");
+
+    /**
+     * Percentiles read from a sketch, or null if the sketch is empty.
+     */
+    public record Percentiles(double p50, double p95, double p99, double max) {
+
+        public static Percentiles of(QuantileSketch sketch) {
+            if (sketch.getCount() == 0) {
+                return null;
+            }
+            return new Percentiles(sketch.quantile(0.50), sketch.quantile(0.95), sketch.quantile(0.99),
+                    sketch.getMax());
+        }
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        writeString(generator, CITY, city);
+        writeString(generator, WINDOW, window);
+        writeNumber(generator, WINDOW_START, windowStart);
+        writeNumber(generator, WINDOW_END, windowEnd);
+        writeNumber(generator, RIDES, rides);
+        writePercentiles(generator, DURATION_MINUTES, durationMinutes);
+        writePercentiles(generator, FARE, fare);
+        writeEnd(generator, timestamp);
+    }
+
+    private static void writePercentiles(JsonGenerator generator, SerializableString name,
+                                         Percentiles percentiles) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeStartObject();
+        if (percentiles != null) {
+            writeNumber(generator, P50, percentiles.p50());
+            writeNumber(generator, P95, percentiles.p95());
+            writeNumber(generator, P99, percentiles.p99());
+            writeNumber(generator, MAX, percentiles.max());
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,33 @@
+package com.streamride.processorservice.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.streamride.processorservice.model.CityCount;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.streamride.processorservice.message.MessageFields.*;
+
+/**
+ * TOP_ACTIVE_CITIES message: cities ranked by active ride count, highest first.
+ */
+public record TopCitiesMessage(List<CityCount> cities, long timestamp) implements AnalyticsMessage {
+
+    private static final SerializedString TYPE_TAG = new SerializedString("TOP_ACTIVE_CITIES");
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        writeStart(generator, TYPE_TAG);
+        generator.writeFieldName(CITIES);
+        generator.writeStartArray();
+        for (CityCount city : cities) {
+            generator.writeStartObject();
+            writeString(generator, CITY, city.getCity());
+            writeNumber(generator, COUNT, city.getCount());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        writeEnd(generator, timestamp);
+    }
+}
@@ -0,0 +1,31 @@
+package com.streamride.processorservice.model;
+
+import com.streamride.model.EventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ride lifecycle counts for one geohash cell.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CellCounts {
+
+    private long requested;
+    private long started;
+    private long completed;
+
+    public CellCounts apply(EventType eventType) {
+        switch (eventType) {
+            case RIDE_REQUESTED -> requested++;
+            case RIDE_STARTED -> started++;
+            case RIDE_COMPLETED -> completed++;
+            default -> {
+                // Location updates are not counted
+            }
+        }
+        return this;
+    }
+}
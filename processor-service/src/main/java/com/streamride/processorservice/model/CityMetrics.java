@@ -10,4 +10,7 @@ import lombok.NoArgsConstructor;
 public class CityMetrics {
     private long activeRides;
     private long ridesCompleted;
+    private long ridesExpired;
+    private double avgWaitSeconds;
+    private double avgMeasuredDuration;
 }
@@ -0,0 +1,27 @@
+package com.streamride.processorservice.model;
+
+import com.streamride.processorservice.sketch.Ewma;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Streaming baseline of completed rides in one city: EWMA mean and variance of
+ * duration, fare and distance.
+ */
+@Getter
+@AllArgsConstructor
+public class CityRideBaseline {
+
+    private final Ewma durationMinutes;
+    private final Ewma fare;
+    private final Ewma distance;
+
+    // Updated since the last checkpoint; not serialized
+    @Setter
+    private boolean dirty;
+
+    public CityRideBaseline() {
+        this(new Ewma(), new Ewma(), new Ewma(), false);
+    }
+}
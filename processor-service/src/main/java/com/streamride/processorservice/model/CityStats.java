@@ -0,0 +1,76 @@
+package com.streamride.processorservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-city running statistics, maintained by a single aggregation over ride lifecycle deltas.
+ * Active rides, completed rides and average duration are all read from this value.
+ *
+ * The same type carries the deltas themselves: the lifecycle tracker emits a
+ * CityStats per transition holding only the fields that changed, with a
+ * negative activeRides when a ride completes or expires.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityStats {
+    private long requestedRides;
+    private long activeRides;
+    private long completedRides;
+    private long durationSamples;
+    private long totalDurationMinutes;
+    private double totalFare;
+    private double totalDistance;
+    private long lastUpdated;
+    private long expiredRides;
+    private long waitSamples;
+    private long totalWaitMs;
+    private long measuredDurationSamples;
+    private long totalMeasuredDurationMs;
+
+    /**
+     * Folds a lifecycle delta into these statistics. Neither operand is
+     * modified: the aggregation's old and new values must be distinct
+     * objects, since downstream consumers may see both.
+     *
+     * @param delta changes produced by one or more ride transitions in this city
+     * @return new statistics including the delta
+     */
+    public CityStats add(CityStats delta) {
+        return new CityStats(
+                requestedRides + delta.requestedRides,
+                activeRides + delta.activeRides,
+                completedRides + delta.completedRides,
+                durationSamples + delta.durationSamples,
+                totalDurationMinutes + delta.totalDurationMinutes,
+                totalFare + delta.totalFare,
+                totalDistance + delta.totalDistance,
+                System.currentTimeMillis(),
+                expiredRides + delta.expiredRides,
+                waitSamples + delta.waitSamples,
+                totalWaitMs + delta.totalWaitMs,
+                measuredDurationSamples + delta.measuredDurationSamples,
+                totalMeasuredDurationMs + delta.totalMeasuredDurationMs);
+    }
+
+    public double getAverageDuration() {
+        return durationSamples == 0 ? 0.0 : (double) totalDurationMinutes / durationSamples;
+    }
+
+    /**
+     * @return mean time from RIDE_REQUESTED to RIDE_STARTED, in seconds
+     */
+    public double getAverageWaitSeconds() {
+        return waitSamples == 0 ? 0.0 : totalWaitMs / 1000.0 / waitSamples;
+    }
+
+    /**
+     * @return mean time from RIDE_STARTED to RIDE_COMPLETED measured from event
+     *         timestamps, in minutes
+     */
+    public double getAverageMeasuredDuration() {
+        return measuredDurationSamples == 0 ? 0.0 : totalMeasuredDurationMs / 60_000.0 / measuredDurationSamples;
+    }
+}
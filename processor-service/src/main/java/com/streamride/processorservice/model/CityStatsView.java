@@ -0,0 +1,21 @@
+package com.streamride.processorservice.model;
+
+/**
+ * Read-only view of one city's statistics as served by the state query API.
+ */
+public record CityStatsView(String city,
+                            long requestedRides,
+                            long activeRides,
+                            long completedRides,
+                            long expiredRides,
+                            double avgDuration,
+                            double avgWaitSeconds,
+                            double avgMeasuredDuration,
+                            long lastUpdated) {
+
+    public static CityStatsView of(String city, CityStats stats) {
+        return new CityStatsView(city, stats.getRequestedRides(), stats.getActiveRides(), stats.getCompletedRides(),
+                stats.getExpiredRides(), stats.getAverageDuration(), stats.getAverageWaitSeconds(),
+                stats.getAverageMeasuredDuration(), stats.getLastUpdated());
+    }
+}
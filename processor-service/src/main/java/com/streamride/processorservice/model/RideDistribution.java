@@ -0,0 +1,43 @@
+package com.streamride.processorservice.model;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.sketch.QuantileSketch;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Duration and fare distributions of completed rides, one sketch each.
+ */
+@Getter
+@AllArgsConstructor
+public class RideDistribution {
+
+    private final QuantileSketch durationMinutes;
+    private final QuantileSketch fare;
+
+    public RideDistribution(double relativeAccuracy, int maxBins) {
+        this(new QuantileSketch(relativeAccuracy, maxBins), new QuantileSketch(relativeAccuracy, maxBins));
+    }
+
+    /**
+     * Adds a completed ride's duration and fare, if present.
+     *
+     * @param event RIDE_COMPLETED event
+     * @return this distribution
+     */
+    public RideDistribution add(RideEvent event) {
+        if (event.getDurationMinutes() != null) {
+            durationMinutes.add(event.getDurationMinutes());
+        }
+        if (event.getFareEstimate() != null) {
+            fare.add(event.getFareEstimate());
+        }
+        return this;
+    }
+
+    public RideDistribution merge(RideDistribution other) {
+        durationMinutes.merge(other.durationMinutes);
+        fare.merge(other.fare);
+        return this;
+    }
+}
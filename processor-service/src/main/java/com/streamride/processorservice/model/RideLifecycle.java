@@ -0,0 +1,28 @@
+package com.streamride.processorservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lifecycle state of a single ride, keyed by ride ID.
+ *
+ * Timestamps are event times in epoch millis, or 0 when the corresponding
+ * event was never seen. {@code expiresAt} is the entry's current key in the
+ * expiry index.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RideLifecycle {
+
+    public enum State {
+        REQUESTED, STARTED, COMPLETED
+    }
+
+    private State state;
+    private String city;
+    private long requestedAt;
+    private long startedAt;
+    private long expiresAt;
+}
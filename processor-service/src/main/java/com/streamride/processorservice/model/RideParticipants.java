@@ -0,0 +1,41 @@
+package com.streamride.processorservice.model;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.sketch.HyperLogLog;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Distinct drivers and riders seen in a window, one HyperLogLog each.
+ */
+@Getter
+@AllArgsConstructor
+public class RideParticipants {
+
+    private final HyperLogLog drivers;
+    private final HyperLogLog riders;
+
+    public RideParticipants(int precision) {
+        this(new HyperLogLog(precision), new HyperLogLog(precision));
+    }
+
+    public RideParticipants add(RideEvent event) {
+        if (event.getDriverId() != null) {
+            drivers.add(event.getDriverId());
+        }
+        if (event.getRiderId() != null) {
+            riders.add(event.getRiderId());
+        }
+        return this;
+    }
+
+    public RideParticipants merge(RideParticipants other) {
+        drivers.merge(other.drivers);
+        riders.merge(other.riders);
+        return this;
+    }
+
+    public RideParticipants copy() {
+        return new RideParticipants(drivers.copy(), riders.copy());
+    }
+}
@@ -0,0 +1,61 @@
+package com.streamride.processorservice.model;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The most recent closed panes of a city's {@link RideParticipants}, keyed by
+ * pane start. Their union covers a window of up to {@code panes * paneSize}.
+ */
+@Getter
+public class RideParticipantsPanes {
+
+    private final TreeMap<Long, RideParticipants> panes = new TreeMap<>();
+
+    /**
+     * Adds a closed pane and drops panes that fall out of the rolling window.
+     *
+     * @param paneStart    start of the pane, epoch millis
+     * @param participants pane contents
+     * @param windowSizeMs rolling window size
+     * @return this instance
+     */
+    public RideParticipantsPanes add(long paneStart, RideParticipants participants, long windowSizeMs) {
+        panes.put(paneStart, participants);
+        panes.headMap(panes.lastKey() - windowSizeMs, true).clear();
+        return this;
+    }
+
+    /**
+     * Merges a pane into the pane with the same start, for panes of several
+     * cities that make up one global pane, and drops panes that fall out of
+     * the rolling window.
+     *
+     * @param paneStart    start of the pane, epoch millis
+     * @param participants pane contents
+     * @param windowSizeMs rolling window size
+     * @return this instance
+     */
+    public RideParticipantsPanes merge(long paneStart, RideParticipants participants, long windowSizeMs) {
+        panes.merge(paneStart, participants, RideParticipants::merge);
+        panes.headMap(panes.lastKey() - windowSizeMs, true).clear();
+        return this;
+    }
+
+    /**
+     * @return union of all panes, or null if there are none
+     */
+    public RideParticipants union() {
+        RideParticipants union = null;
+        for (Map.Entry<Long, RideParticipants> pane : panes.entrySet()) {
+            union = union == null ? pane.getValue().copy() : union.merge(pane.getValue());
+        }
+        return union;
+    }
+
+    public long firstPaneStart() {
+        return panes.firstKey();
+    }
+}
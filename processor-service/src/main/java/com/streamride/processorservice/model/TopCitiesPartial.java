@@ -0,0 +1,18 @@
+package com.streamride.processorservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Local top-K of one input partition, sorted by count descending.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopCitiesPartial {
+    private int partition;
+    private List<CityCount> cities;
+}
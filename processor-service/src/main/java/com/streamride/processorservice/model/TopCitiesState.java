@@ -0,0 +1,56 @@
+package com.streamride.processorservice.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Global top cities state: the latest local top-K of every input partition.
+ *
+ * Each city lives in exactly one partition, so the union of the local top-K
+ * lists always contains the global top-K.
+ */
+@Getter
+public class TopCitiesState {
+
+    public static final Comparator<CityCount> RANKING = Comparator
+            .comparingLong(CityCount::getCount).reversed()
+            .thenComparing(CityCount::getCity);
+
+    private final TreeMap<Integer, List<CityCount>> partitions = new TreeMap<>();
+
+    public TopCitiesState merge(TopCitiesPartial partial) {
+        if (partial.getCities().isEmpty()) {
+            partitions.remove(partial.getPartition());
+        } else {
+            partitions.put(partial.getPartition(), partial.getCities());
+        }
+        return this;
+    }
+
+    /**
+     * Selects the global top-K with a bounded heap over the partition candidates.
+     *
+     * @param k number of cities to return
+     * @return top-K cities sorted by count descending
+     */
+    public List<CityCount> top(int k) {
+        PriorityQueue<CityCount> heap = new PriorityQueue<>(k + 1, RANKING.reversed());
+        for (List<CityCount> candidates : partitions.values()) {
+            for (CityCount candidate : candidates) {
+                heap.offer(candidate);
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+        }
+        List<CityCount> top = new ArrayList<>(heap);
+        top.sort(RANKING);
+        return Collections.unmodifiableList(top);
+    }
+}
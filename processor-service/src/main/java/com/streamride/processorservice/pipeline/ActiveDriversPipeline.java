@@ -0,0 +1,152 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.RideEvent;
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.mapper.MetricsJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.RideParticipants;
+import com.streamride.processorservice.model.RideParticipantsPanes;
+import com.streamride.processorservice.processor.GlobalParticipantsProcessor;
+import com.streamride.processorservice.processor.PaneParticipantsProcessor;
+import com.streamride.processorservice.processor.RollingParticipantsProcessor;
+import com.streamride.processorservice.serde.RideParticipantsSerdes;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.WindowedSerdes;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pipeline for publishing approximate distinct drivers and riders per city.
+ * 
+ * Every event carrying a driver or rider ID, location updates included, is
+ * added to HyperLogLog sketches in tumbling panes. The open panes are updated
+ * in memory ({@link PaneParticipantsProcessor}) and only checkpointed on a
+ * punctuation, so the location update firehose never pays for serializing
+ * the sketches. When a pane closes it is rolled up with the preceding panes
+ * into a sliding window and published as an ACTIVE_DRIVERS message. State
+ * per city is a few KiB per pane regardless of the number of drivers.
+ *
+ * The closed panes of every city are also sent to a single-partition topic
+ * and merged into global panes ({@link GlobalParticipantsProcessor}), which
+ * are published under {@link #GLOBAL_KEY}. Summing the city estimates would
+ * count a driver seen in several cities more than once; merging the sketches
+ * counts them once.
+ */
+@Component
+public class ActiveDriversPipeline {
+
+    public static final String PANES_STORE = "active-drivers-open-panes-store";
+    public static final String ROLLING_STORE = "active-drivers-rolling-store";
+    public static final String GLOBAL_STORE = "active-drivers-global-store";
+
+    /**
+     * Key and city of the ACTIVE_DRIVERS messages covering all cities.
+     */
+    public static final String GLOBAL_KEY = "ALL";
+
+    private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
+    private final int precision;
+    private final long paneMs;
+    private final long windowMs;
+    private final long graceMs;
+    private final Duration globalPublishInterval;
+    private final Duration checkpointInterval;
+
+    public ActiveDriversPipeline(MetricsJsonMapper jsonMapper,
+                                 AnalyticsPublisher publisher,
+                                 @Value("${streamride.active-drivers.precision:12}") int precision,
+                                 @Value("${streamride.active-drivers.pane-ms:60000}") long paneMs,
+                                 @Value("${streamride.active-drivers.window-ms:300000}") long windowMs,
+                                 @Value("${streamride.active-drivers.grace-ms:10000}") long graceMs,
+                                 @Value("${streamride.active-drivers.global-publish-interval-ms:1000}") long globalPublishIntervalMs,
+                                 @Value("${streamride.active-drivers.checkpoint-interval-ms:1000}") long checkpointIntervalMs) {
+        if (windowMs < paneMs) {
+            throw new IllegalArgumentException("streamride.active-drivers.window-ms must be at least pane-ms");
+        }
+        this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
+        this.precision = precision;
+        this.paneMs = paneMs;
+        this.windowMs = windowMs;
+        this.graceMs = graceMs;
+        this.globalPublishInterval = Duration.ofMillis(globalPublishIntervalMs);
+        this.checkpointInterval = Duration.ofMillis(checkpointIntervalMs);
+    }
+
+    /**
+     * Builds and executes the active drivers pipeline.
+     * 
+     * @param events source stream of ride events, keyed by city
+     */
+    public void build(KStream<String, RideEvent> events) {
+        KStream<Windowed<String>, RideParticipants> closedPanes = events
+                .filter((k, v) -> v.getDriverId() != null || v.getRiderId() != null)
+                .process(new PaneSupplier());
+
+        publisher.publish(KafkaTopics.ANALYTICS_ACTIVE_DRIVERS, closedPanes.process(new RollingSupplier()));
+
+        publisher.publish(KafkaTopics.ANALYTICS_ACTIVE_DRIVERS, closedPanes
+                .repartition(Repartitioned.<Windowed<String>, RideParticipants>as("active-drivers-global")
+                        .withKeySerde(WindowedSerdes.timeWindowedSerdeFrom(String.class, paneMs))
+                        .withValueSerde(RideParticipantsSerdes.participants())
+                        .withNumberOfPartitions(1))
+                .process(new GlobalSupplier()));
+    }
+
+    private class PaneSupplier implements ProcessorSupplier<String, RideEvent, Windowed<String>, RideParticipants> {
+        @Override
+        public Processor<String, RideEvent, Windowed<String>, RideParticipants> get() {
+            return new PaneParticipantsProcessor(PANES_STORE, precision, paneMs, graceMs, checkpointInterval);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, RideParticipantsPanes>> store = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(PANES_STORE), Serdes.String(), RideParticipantsSerdes.panes());
+            return Set.of(store);
+        }
+    }
+
+    private class RollingSupplier implements ProcessorSupplier<Windowed<String>, RideParticipants, String, AnalyticsMessage> {
+        @Override
+        public Processor<Windowed<String>, RideParticipants, String, AnalyticsMessage> get() {
+            return new RollingParticipantsProcessor(ROLLING_STORE, windowMs, jsonMapper::createActiveDriversMessage);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, RideParticipantsPanes>> store = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(ROLLING_STORE), Serdes.String(), RideParticipantsSerdes.panes());
+            return Set.of(store);
+        }
+    }
+
+    private class GlobalSupplier implements ProcessorSupplier<Windowed<String>, RideParticipants, String, AnalyticsMessage> {
+        @Override
+        public Processor<Windowed<String>, RideParticipants, String, AnalyticsMessage> get() {
+            return new GlobalParticipantsProcessor(GLOBAL_STORE, GLOBAL_KEY, paneMs, windowMs, globalPublishInterval,
+                    jsonMapper::createActiveDriversMessage);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            // Cached: every city's pane updates the one entry, the changelog gets it once per commit
+            StoreBuilder<KeyValueStore<String, RideParticipantsPanes>> store = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(GLOBAL_STORE), Serdes.String(), RideParticipantsSerdes.panes())
+                    .withCachingEnabled();
+            return Set.of(store);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.processor.CoalescingProcessor;
+import com.streamride.processorservice.serde.AnalyticsMessageSerde;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.ValueMapperWithKey;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Single writer for the analytics topics, shared by all pipelines.
+ *
+ * Each message type goes to its own log-compacted topic (see
+ * {@link KafkaTopics}), keyed so that compaction keeps the latest value per
+ * city, cell or ranking. When the legacy output is enabled every message is
+ * also written to the multiplexed rides.analytics topic for older consumers.
+ *
+ * State outputs are published through {@link #publishCoalesced}: updates are
+ * coalesced to the latest value per key and emitted at most once per emit
+ * interval, and only then formatted as a message. Event outputs such as anomalies,
+ * where every record matters, go through {@link #publish} unchanged.
+ */
+@Component
+public class AnalyticsPublisher {
+
+    private static final String LEGACY_TOPIC = KafkaTopics.RIDES_ANALYTICS;
+    private static final Serde<AnalyticsMessage> MESSAGE_SERDE = new AnalyticsMessageSerde();
+
+    private final MeterRegistry meterRegistry;
+    private final Duration emitInterval;
+    private final Duration tick;
+    private final boolean legacyTopicEnabled;
+
+    public AnalyticsPublisher(MeterRegistry meterRegistry,
+                              @Value("${streamride.analytics.coalescing.emit-interval-ms:1000}") long emitIntervalMs,
+                              @Value("${streamride.analytics.coalescing.tick-ms:100}") long tickMs,
+                              @Value("${streamride.analytics.legacy-topic-enabled:false}") boolean legacyTopicEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.emitInterval = Duration.ofMillis(emitIntervalMs);
+        this.tick = Duration.ofMillis(tickMs);
+        this.legacyTopicEnabled = legacyTopicEnabled;
+    }
+
+    /**
+     * Writes every record of an event stream to its output topic.
+     *
+     * @param topic    per-type output topic
+     * @param messages messages keyed by their compaction key
+     */
+    public void publish(String topic, KStream<String, AnalyticsMessage> messages) {
+        messages.to(topic, Produced.with(Serdes.String(), MESSAGE_SERDE));
+        if (legacyTopicEnabled) {
+            messages.to(LEGACY_TOPIC, Produced.with(Serdes.String(), MESSAGE_SERDE));
+        }
+    }
+
+    /**
+     * Coalesces a state update stream and writes the latest value per key.
+     *
+     * @param name      output name, used for metric tags
+     * @param topic     per-type output topic
+     * @param updates   state updates keyed by city
+     * @param seed      store of the table the updates come from, re-read on init
+     *                  so that restarts and rebalances lose no pending update
+     * @param formatter maps an emitted key and value to its message
+     * @param <V>       value type
+     */
+    public <V> void publishCoalesced(String name, String topic, KStream<String, V> updates,
+                                     CoalescingProcessor.Seed<?, V> seed,
+                                     ValueMapperWithKey<String, V, ? extends AnalyticsMessage> formatter) {
+        Counter suppressed = Counter.builder("streamride.analytics.coalesced.suppressed")
+                .description("Updates overwritten by a newer value before being emitted")
+                .tag("output", name)
+                .register(meterRegistry);
+        Counter emitted = Counter.builder("streamride.analytics.coalesced.emitted")
+                .description("Coalesced updates written to the analytics topic")
+                .tag("output", name)
+                .register(meterRegistry);
+
+        ProcessorSupplier<String, V, String, V> supplier =
+                () -> new CoalescingProcessor<>(emitInterval, tick, suppressed, emitted, seed);
+
+        publish(topic, updates.process(supplier, seed.storeName()).<AnalyticsMessage>mapValues(formatter));
+    }
+}
@@ -1,40 +1,84 @@
 package com.streamride.processorservice.pipeline;
 
-import com.streamride.model.EventType;
 import com.streamride.model.RideEvent;
+import com.streamride.model.config.KafkaTopics;
 import com.streamride.processorservice.mapper.AnomalyJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CityRideBaseline;
+import com.streamride.processorservice.processor.AnomalyDetectionProcessor;
+import com.streamride.processorservice.serde.CityRideBaselineSerde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.kstream.KStream;
-import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Set;
+
 /**
  * Pipeline for detecting and publishing ride anomalies.
  * 
- * Detects rides longer than the duration threshold and emits ANOMALY messages.
+ * Scores every completed ride against its city's EWMA baseline of duration,
+ * fare and distance and emits an ANOMALY message for z-score outliers
+ * (see {@link AnomalyDetectionProcessor}). Runs on the city-keyed source
+ * stream without a repartition.
  */
 @Component
 public class AnomalyPipeline {
 
-    private static final String OUTPUT_TOPIC = "rides.analytics";
-    private static final int LONG_RIDE_THRESHOLD_MINUTES = 60;
+    public static final String BASELINE_STORE = "anomaly-baseline-store";
 
     private final AnomalyJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
+    private final double alpha;
+    private final double zThreshold;
+    private final long minSamples;
+    private final Duration checkpointInterval;
 
-    public AnomalyPipeline(AnomalyJsonMapper jsonMapper) {
+    public AnomalyPipeline(AnomalyJsonMapper jsonMapper,
+                           AnalyticsPublisher publisher,
+                           @Value("${streamride.anomaly.alpha:0.01}") double alpha,
+                           @Value("${streamride.anomaly.z-threshold:3.5}") double zThreshold,
+                           @Value("${streamride.anomaly.min-samples:50}") long minSamples,
+                           @Value("${streamride.anomaly.checkpoint-interval-ms:5000}") long checkpointIntervalMs) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("streamride.anomaly.alpha must be in (0, 1]");
+        }
         this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.minSamples = minSamples;
+        this.checkpointInterval = Duration.ofMillis(checkpointIntervalMs);
     }
 
     /**
      * Builds and executes the anomaly detection pipeline.
      * 
-     * @param events source stream of ride events
+     * @param events source stream of ride events, keyed by city
      */
     public void build(KStream<String, RideEvent> events) {
-        events.filter((k, v) -> v.getEventType() == EventType.RIDE_COMPLETED &&
-                v.getDurationMinutes() != null &&
-                v.getDurationMinutes() > LONG_RIDE_THRESHOLD_MINUTES)
-                .mapValues(jsonMapper::createAnomalyJson)
-                .to(OUTPUT_TOPIC, Produced.with(Serdes.String(), Serdes.String()));
+        // Every anomaly is an event in its own right, so these are never coalesced
+        publisher.publish(KafkaTopics.ANALYTICS_ANOMALIES, events.process(new AnomalyDetectionSupplier()));
+    }
+
+    private class AnomalyDetectionSupplier implements ProcessorSupplier<String, RideEvent, String, AnalyticsMessage> {
+        @Override
+        public Processor<String, RideEvent, String, AnalyticsMessage> get() {
+            return new AnomalyDetectionProcessor(BASELINE_STORE, alpha, zThreshold, minSamples,
+                    checkpointInterval, jsonMapper::createAnomalyMessage);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, CityRideBaseline>> store = Stores.keyValueStoreBuilder(
+                    Stores.inMemoryKeyValueStore(BASELINE_STORE), Serdes.String(), new CityRideBaselineSerde());
+            return Set.of(store);
+        }
     }
 }
@@ -1,36 +1,40 @@
 package com.streamride.processorservice.pipeline;
 
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.aggregator.CityStatsAggregator;
 import com.streamride.processorservice.mapper.MetricsJsonMapper;
-import org.apache.kafka.common.serialization.Serdes;
-import org.apache.kafka.streams.KeyValue;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.processor.CoalescingProcessor;
 import org.apache.kafka.streams.kstream.KTable;
-import org.apache.kafka.streams.kstream.Produced;
 import org.springframework.stereotype.Component;
 
 /**
  * Pipeline for publishing per-city active ride counts.
  * 
- * Emits CITY_ACTIVE_RIDES messages whenever a city's active ride count changes.
+ * Emits CITY_ACTIVE_RIDES messages when a city's active ride count changes,
+ * coalesced per city by the {@link AnalyticsPublisher}.
  */
 @Component
 public class CityActiveRidesPipeline {
 
-    private static final String OUTPUT_TOPIC = "rides.analytics";
-
     private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
 
-    public CityActiveRidesPipeline(MetricsJsonMapper jsonMapper) {
+    public CityActiveRidesPipeline(MetricsJsonMapper jsonMapper, AnalyticsPublisher publisher) {
         this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
     }
 
     /**
      * Builds and executes the city active rides pipeline.
      * 
-     * @param activeRides KTable of active rides per city
+     * @param activeRides KTable of active rides per city, a view of
+     *                    {@link CityStatsAggregator#CITY_STATS_STORE}
      */
     public void build(KTable<String, Long> activeRides) {
-        activeRides.toStream()
-                .map((city, count) -> KeyValue.pair(city, jsonMapper.createCityActiveRidesJson(city, count)))
-                .to(OUTPUT_TOPIC, Produced.with(Serdes.String(), Serdes.String()));
+        publisher.publishCoalesced("city-active-rides", KafkaTopics.ANALYTICS_CITY_ACTIVE_RIDES,
+                activeRides.toStream(),
+                new CoalescingProcessor.Seed<>(CityStatsAggregator.CITY_STATS_STORE, CityStats::getActiveRides),
+                jsonMapper::createCityActiveRidesMessage);
     }
 }
@@ -0,0 +1,102 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.processor.DeduplicationProcessor;
+import com.streamride.processorservice.sketch.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Deduplication stage at the head of the analytics topology.
+ * 
+ * The idempotent producer already removes duplicates from broker-level send
+ * retries. This stage catches the ones it cannot see: an event the
+ * application sends again after a failed or timed-out send, a producer
+ * restart that resends its last events, or a replay of events onto the
+ * topic. Every copy carries the same ride and city, and rides.events is
+ * keyed by city, so they land in the same partition and the stage runs
+ * without a repartition. See {@link DeduplicationProcessor}.
+ */
+@Component
+public class DeduplicationPipeline {
+
+    public static final String DEDUP_STORE = "event-dedup-store";
+
+    private final long windowMs;
+    private final long expectedKeys;
+    private final double falsePositiveProbability;
+    private final Counter lookups;
+    private final Counter duplicates;
+    private final Counter bloomPositives;
+    private final Counter falsePositives;
+
+    public DeduplicationPipeline(MeterRegistry meterRegistry,
+                                 @Value("${streamride.dedup.window-ms:600000}") long windowMs,
+                                 @Value("${streamride.dedup.expected-keys:500000}") long expectedKeys,
+                                 @Value("${streamride.dedup.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.windowMs = windowMs;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.lookups = Counter.builder("streamride.dedup.lookups")
+                .description("Lifecycle events checked for duplicates")
+                .register(meterRegistry);
+        this.duplicates = Counter.builder("streamride.dedup.duplicates")
+                .description("Repeated lifecycle events dropped within the deduplication window")
+                .register(meterRegistry);
+        this.bloomPositives = Counter.builder("streamride.dedup.bloom.positives")
+                .description("Lookups the Bloom filters could not rule out, confirmed against the store")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("streamride.dedup.bloom.false.positives")
+                .description("Bloom filter positives with no matching key in the store")
+                .register(meterRegistry);
+        Gauge.builder("streamride.dedup.bloom.false.positive.rate", this, DeduplicationPipeline::falsePositiveRate)
+                .description("Share of new keys the Bloom filters reported as possibly seen")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the deduplication stage.
+     * 
+     * @param events source stream of ride events
+     * @return the same stream without repeated lifecycle events
+     */
+    public KStream<String, RideEvent> build(KStream<String, RideEvent> events) {
+        return events.processValues(new DeduplicationSupplier());
+    }
+
+    private double falsePositiveRate() {
+        double newKeys = lookups.count() - duplicates.count();
+        return newKeys <= 0 ? 0.0 : falsePositives.count() / newKeys;
+    }
+
+    private class DeduplicationSupplier implements FixedKeyProcessorSupplier<String, RideEvent, RideEvent> {
+        @Override
+        public FixedKeyProcessor<String, RideEvent, RideEvent> get() {
+            return new DeduplicationProcessor(DEDUP_STORE, windowMs,
+                    () -> new BloomFilter(expectedKeys, falsePositiveProbability),
+                    lookups, duplicates, bloomPositives, falsePositives);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<WindowStore<String, Long>> store = Stores.windowStoreBuilder(
+                    Stores.persistentWindowStore(DEDUP_STORE, Duration.ofMillis(2 * windowMs),
+                            Duration.ofMillis(windowMs), false),
+                    Serdes.String(), Serdes.Long());
+            return Set.of(store);
+        }
+    }
+}
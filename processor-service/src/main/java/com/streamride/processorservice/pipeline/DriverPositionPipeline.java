@@ -0,0 +1,91 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.geo.DriverPosition;
+import com.streamride.processorservice.geo.DriverPositionIndex;
+import com.streamride.processorservice.geo.GeoHash;
+import com.streamride.processorservice.processor.DriverPositionProcessor;
+import com.streamride.processorservice.serde.DriverPositionSerde;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pipeline maintaining the live driver position index.
+ * 
+ * DRIVER_LOCATION_UPDATE events are re-keyed by a coarse geohash cell and
+ * repartitioned, so each task owns a spatial region rather than a city and a
+ * query only involves the instances owning the cells around the point. The
+ * positions store has caching enabled, so its changelog receives one record
+ * per driver per commit rather than one per update.
+ */
+@Component
+public class DriverPositionPipeline {
+
+    public static final String POSITIONS_STORE = "driver-positions-store";
+
+    private final DriverPositionIndex index;
+    private final Serde<RideEvent> rideEventSerde;
+    private final int partitionPrecision;
+    private final long ttlMs;
+    private final Duration expiryInterval;
+
+    public DriverPositionPipeline(DriverPositionIndex index,
+                                  Serde<RideEvent> rideEventSerde,
+                                  @Value("${streamride.drivers.partition-precision:5}") int partitionPrecision,
+                                  @Value("${streamride.drivers.ttl-ms:120000}") long ttlMs,
+                                  @Value("${streamride.drivers.expiry-interval-ms:10000}") long expiryIntervalMs) {
+        this.index = index;
+        this.rideEventSerde = rideEventSerde;
+        this.partitionPrecision = partitionPrecision;
+        this.ttlMs = ttlMs;
+        this.expiryInterval = Duration.ofMillis(expiryIntervalMs);
+    }
+
+    /**
+     * Builds the driver position pipeline.
+     * 
+     * @param events source stream of ride events
+     */
+    public void build(KStream<String, RideEvent> events) {
+        events.filter((k, v) -> v.getEventType() == EventType.DRIVER_LOCATION_UPDATE
+                        && v.getDriverId() != null && isValid(v.getLatitude(), v.getLongitude()))
+                .selectKey((k, v) -> GeoHash.encode(v.getLatitude(), v.getLongitude(), partitionPrecision))
+                .repartition(Repartitioned.<String, RideEvent>as("driver-positions")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(rideEventSerde))
+                .process(new DriverPositionSupplier());
+    }
+
+    private static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    private class DriverPositionSupplier implements ProcessorSupplier<String, RideEvent, Void, Void> {
+        @Override
+        public Processor<String, RideEvent, Void, Void> get() {
+            return new DriverPositionProcessor(POSITIONS_STORE, index, ttlMs, expiryInterval);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, DriverPosition>> store = Stores.keyValueStoreBuilder(
+                            Stores.inMemoryKeyValueStore(POSITIONS_STORE), Serdes.String(), new DriverPositionSerde())
+                    .withCachingEnabled();
+            return Set.of(store);
+        }
+    }
+}
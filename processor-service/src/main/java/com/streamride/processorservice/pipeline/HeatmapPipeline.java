@@ -0,0 +1,119 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.geo.GeoHash;
+import com.streamride.processorservice.mapper.MetricsJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CellCounts;
+import com.streamride.processorservice.processor.HeatmapProcessor;
+import com.streamride.processorservice.serde.CellCountsSerde;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pipeline for publishing per-cell demand heatmaps.
+ * 
+ * Ride requests, starts and completions are bucketed into geohash cells at
+ * each configured resolution and repartitioned by cell ID, so a busy city is
+ * spread over many tasks. The point is encoded once at the finest resolution;
+ * coarser cells are its prefixes. Changed cells are published as HEATMAP
+ * messages on a cadence by {@link HeatmapProcessor}.
+ */
+@Component
+public class HeatmapPipeline {
+
+    public static final String HEATMAP_STORE = "heatmap-cell-store";
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+
+    // One byte per record on the repartition topic; EventType constants are append-only
+    private static final Serde<EventType> EVENT_TYPE_SERDE = Serdes.serdeFrom(
+            (topic, type) -> type == null ? null : new byte[]{(byte) type.ordinal()},
+            (topic, data) -> data == null ? null : EVENT_TYPES[data[0]]);
+
+    private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
+    private final int[] precisions;
+    private final int maxPrecision;
+    private final Duration publishInterval;
+
+    public HeatmapPipeline(MetricsJsonMapper jsonMapper,
+                           AnalyticsPublisher publisher,
+                           @Value("${streamride.heatmap.precisions:4,5,6}") int[] precisions,
+                           @Value("${streamride.heatmap.publish-interval-ms:2000}") long publishIntervalMs) {
+        int max = 0;
+        for (int precision : precisions) {
+            if (precision < 1 || precision > GeoHash.MAX_PRECISION) {
+                throw new IllegalArgumentException("Geohash precision must be between 1 and " + GeoHash.MAX_PRECISION);
+            }
+            max = Math.max(max, precision);
+        }
+        this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
+        this.precisions = precisions.clone();
+        this.maxPrecision = max;
+        this.publishInterval = Duration.ofMillis(publishIntervalMs);
+    }
+
+    /**
+     * Builds and executes the heatmap pipeline.
+     * 
+     * @param events source stream of ride events
+     */
+    public void build(KStream<String, RideEvent> events) {
+        publisher.publish(KafkaTopics.ANALYTICS_HEATMAP, events
+                .filter((k, v) -> v.getEventType() != EventType.DRIVER_LOCATION_UPDATE
+                        && v.getLatitude() != null && v.getLongitude() != null)
+                .flatMap(this::toCells)
+                .repartition(Repartitioned.<String, EventType>as("heatmap-cells")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(EVENT_TYPE_SERDE))
+                .process(new HeatmapSupplier()));
+    }
+
+    private List<KeyValue<String, EventType>> toCells(String city, RideEvent event) {
+        String finest;
+        try {
+            finest = GeoHash.encode(event.getLatitude(), event.getLongitude(), maxPrecision);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+        List<KeyValue<String, EventType>> cells = new ArrayList<>(precisions.length);
+        for (int precision : precisions) {
+            cells.add(KeyValue.pair(finest.substring(0, precision), event.getEventType()));
+        }
+        return cells;
+    }
+
+    private class HeatmapSupplier implements ProcessorSupplier<String, EventType, String, AnalyticsMessage> {
+        @Override
+        public Processor<String, EventType, String, AnalyticsMessage> get() {
+            return new HeatmapProcessor(HEATMAP_STORE, publishInterval, jsonMapper::createHeatmapMessage);
+        }
+
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, CellCounts>> store = Stores.keyValueStoreBuilder(
+                            Stores.persistentKeyValueStore(HEATMAP_STORE), Serdes.String(), new CellCountsSerde())
+                    .withCachingEnabled();
+            return Set.of(store);
+        }
+    }
+}
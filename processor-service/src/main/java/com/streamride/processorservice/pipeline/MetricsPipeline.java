@@ -1,53 +1,43 @@
 package com.streamride.processorservice.pipeline;
 
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.aggregator.CityStatsAggregator;
 import com.streamride.processorservice.model.CityMetrics;
+import com.streamride.processorservice.model.CityStats;
 import com.streamride.processorservice.mapper.MetricsJsonMapper;
-import org.apache.kafka.common.serialization.Serdes;
-import org.apache.kafka.streams.kstream.KStream;
+import com.streamride.processorservice.processor.CoalescingProcessor;
 import org.apache.kafka.streams.kstream.KTable;
-import org.apache.kafka.streams.kstream.Produced;
 import org.springframework.stereotype.Component;
 
 /**
  * Pipeline for publishing aggregated metrics.
  * 
- * Combines active rides, completed rides, and average duration
- * into METRICS messages published to the output topic.
+ * Reads active rides, completed and expired rides, average duration and the
+ * event-measured wait time and duration from the per-city statistics and publishes them as METRICS messages to the output topic.
+ * Updates are coalesced per city by the {@link AnalyticsPublisher}.
  */
 @Component
 public class MetricsPipeline {
 
-    private static final String OUTPUT_TOPIC = "rides.analytics";
-
     private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
 
-    public MetricsPipeline(MetricsJsonMapper jsonMapper) {
+    public MetricsPipeline(MetricsJsonMapper jsonMapper, AnalyticsPublisher publisher) {
         this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
     }
 
     /**
      * Builds and executes the metrics pipeline.
      * 
-     * @param activeRides    KTable of active rides per city
-     * @param completedRides KTable of completed rides per city
-     * @param avgDuration    KTable of average duration per city
+     * @param cityStats KTable of per-city statistics
      */
-    public void build(
-            KTable<String, Long> activeRides,
-            KTable<String, Long> completedRides,
-            KTable<String, Double> avgDuration) {
-
-        // Combine activeRides and completedRides into CityMetrics
-        KStream<String, CityMetrics> combined = activeRides
-                .toStream()
-                .leftJoin(completedRides,
-                        (active, completed) -> new CityMetrics(
-                                active == null ? 0 : active,
-                                completed == null ? 0 : completed));
-
-        // Join with avgDuration and create METRICS JSON messages
-        combined.join(avgDuration,
-                (cityMetrics, avg) -> jsonMapper.createMetricsJson(cityMetrics, avg))
-                .to(OUTPUT_TOPIC, Produced.with(Serdes.String(), Serdes.String()));
+    public void build(KTable<String, CityStats> cityStats) {
+        publisher.publishCoalesced("metrics", KafkaTopics.ANALYTICS_METRICS, cityStats.toStream(),
+                new CoalescingProcessor.Seed<>(CityStatsAggregator.CITY_STATS_STORE, (CityStats stats) -> stats),
+                (city, stats) -> jsonMapper.createMetricsMessage(
+                        new CityMetrics(stats.getActiveRides(), stats.getCompletedRides(), stats.getExpiredRides(),
+                                stats.getAverageWaitSeconds(), stats.getAverageMeasuredDuration()),
+                        stats.getAverageDuration()));
     }
 }
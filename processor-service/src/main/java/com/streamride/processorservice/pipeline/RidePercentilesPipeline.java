@@ -0,0 +1,99 @@
+package com.streamride.processorservice.pipeline;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.mapper.MetricsJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.RideDistribution;
+import com.streamride.processorservice.serde.RideDistributionSerde;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.EmitStrategy;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Pipeline for publishing ride duration and fare percentiles per city.
+ * 
+ * Completed rides are folded into a {@link RideDistribution} of fixed-size
+ * quantile sketches per city and window, over tumbling windows and over
+ * hopping windows (a sliding view of the recent past). Each window is
+ * published once as a RIDE_PERCENTILES message when it closes.
+ */
+@Component
+public class RidePercentilesPipeline {
+
+    public static final String TUMBLING_STORE = "ride-percentiles-tumbling-store";
+    public static final String HOPPING_STORE = "ride-percentiles-hopping-store";
+
+    private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
+    private final Serde<RideEvent> rideEventSerde;
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final TimeWindows tumblingWindows;
+    private final TimeWindows hoppingWindows;
+
+    public RidePercentilesPipeline(MetricsJsonMapper jsonMapper,
+                                   AnalyticsPublisher publisher,
+                                   Serde<RideEvent> rideEventSerde,
+                                   @Value("${streamride.percentiles.relative-accuracy:0.01}") double relativeAccuracy,
+                                   @Value("${streamride.percentiles.max-bins:1024}") int maxBins,
+                                   @Value("${streamride.percentiles.tumbling-window-ms:60000}") long tumblingMs,
+                                   @Value("${streamride.percentiles.hopping-window-ms:300000}") long hoppingMs,
+                                   @Value("${streamride.percentiles.hopping-advance-ms:60000}") long advanceMs,
+                                   @Value("${streamride.percentiles.grace-ms:10000}") long graceMs) {
+        this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
+        this.rideEventSerde = rideEventSerde;
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.tumblingWindows = TimeWindows.ofSizeAndGrace(Duration.ofMillis(tumblingMs), Duration.ofMillis(graceMs));
+        this.hoppingWindows = TimeWindows.ofSizeAndGrace(Duration.ofMillis(hoppingMs), Duration.ofMillis(graceMs))
+                .advanceBy(Duration.ofMillis(advanceMs));
+    }
+
+    /**
+     * Builds and executes the percentiles pipeline.
+     * 
+     * @param events source stream of ride events, keyed by city
+     */
+    public void build(KStream<String, RideEvent> events) {
+        KGroupedStream<String, RideEvent> completed = events
+                .filter((k, v) -> v.getEventType() == EventType.RIDE_COMPLETED)
+                .groupByKey(Grouped.with(Serdes.String(), rideEventSerde));
+
+        publishWindowed(completed, tumblingWindows, "TUMBLING", TUMBLING_STORE);
+        publishWindowed(completed, hoppingWindows, "HOPPING", HOPPING_STORE);
+    }
+
+    private void publishWindowed(KGroupedStream<String, RideEvent> completed, TimeWindows windows,
+                                 String windowType, String storeName) {
+        publisher.publish(KafkaTopics.ANALYTICS_PERCENTILES, completed
+                .windowedBy(windows)
+                .emitStrategy(EmitStrategy.onWindowClose())
+                .aggregate(
+                        () -> new RideDistribution(relativeAccuracy, maxBins),
+                        (city, event, distribution) -> distribution.add(event),
+                        Materialized.<String, RideDistribution, WindowStore<Bytes, byte[]>>as(storeName)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(new RideDistributionSerde()))
+                .toStream()
+                // Keyed per window type so compaction keeps the latest tumbling and hopping window
+                .<String, AnalyticsMessage>map((window, distribution) -> KeyValue.pair(
+                        window.key() + ":" + windowType,
+                        jsonMapper.createRidePercentilesMessage(window.key(), windowType,
+                                window.window().start(), window.window().end(), distribution))));
+    }
+}
@@ -1,70 +1,99 @@
 package com.streamride.processorservice.pipeline;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.streamride.processorservice.model.CityCount;
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.processorservice.aggregator.CityStatsAggregator;
 import com.streamride.processorservice.mapper.MetricsJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.TopCitiesPartial;
+import com.streamride.processorservice.model.TopCitiesState;
+import com.streamride.processorservice.processor.GlobalTopCitiesProcessor;
+import com.streamride.processorservice.processor.LocalTopCitiesProcessor;
+import com.streamride.processorservice.serde.TopCitiesSerdes;
 import org.apache.kafka.common.serialization.Serdes;
-import org.apache.kafka.common.utils.Bytes;
-import org.apache.kafka.streams.KeyValue;
-import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
 import org.apache.kafka.streams.state.KeyValueStore;
-import org.springframework.kafka.support.serializer.JsonSerde;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.Set;
 
 /**
- * Pipeline for publishing top 5 cities by active ride count.
+ * Pipeline for publishing the top K cities by active ride count.
  * 
- * Maintains an aggregated state of all cities and emits TOP_ACTIVE_CITIES
- * messages
- * with the top 5 cities sorted by active ride count.
+ * Ranking is done in two levels so no single task sees every city update:
+ * each task keeps a local top-K of the cities in its partition
+ * ({@link LocalTopCitiesProcessor}) and forwards it only when it changes, and a
+ * single merge task combines at most K candidates per partition into the
+ * global top-K ({@link GlobalTopCitiesProcessor}). Both stages publish on the
+ * configured interval, so the merge topic carries a few small binary records
+ * per second regardless of the event rate. Since the merge stage already
+ * publishes on a cadence, its output is not coalesced again.
  */
 @Component
 public class TopCitiesPipeline {
 
-    private static final String OUTPUT_TOPIC = "rides.analytics";
-    private static final String TOP_CITIES_STORE = "top-cities-store";
+    public static final String TOP_CITIES_STORE = "top-cities-store";
+
+    public static final String TOP_CITIES_KEY = "TOP_CITIES_KEY";
 
     private final MetricsJsonMapper jsonMapper;
+    private final AnalyticsPublisher publisher;
+    private final int k;
+    private final Duration publishInterval;
 
-    public TopCitiesPipeline(MetricsJsonMapper jsonMapper) {
+    public TopCitiesPipeline(MetricsJsonMapper jsonMapper,
+                             AnalyticsPublisher publisher,
+                             @Value("${streamride.top-cities.k:5}") int k,
+                             @Value("${streamride.top-cities.publish-interval-ms:1000}") long publishIntervalMs) {
+        if (k < 1) {
+            throw new IllegalArgumentException("streamride.top-cities.k must be positive");
+        }
         this.jsonMapper = jsonMapper;
+        this.publisher = publisher;
+        this.k = k;
+        this.publishInterval = Duration.ofMillis(publishIntervalMs);
     }
 
     /**
      * Builds and executes the top cities pipeline.
      * 
-     * @param activeRides KTable of active rides per city
+     * @param activeRides KTable of active rides per city, co-partitioned with
+     *                    the city statistics store
      */
     public void build(KTable<String, Long> activeRides) {
-        // Convert to CityCount stream with a common key for aggregation
-        KStream<String, CityCount> cityCountStream = activeRides.toStream()
-                .map((city, count) -> KeyValue.pair("TOP_CITIES_KEY", new CityCount(city, count)));
+        publisher.publish(KafkaTopics.ANALYTICS_TOP_CITIES, activeRides.toStream()
+                .process(new LocalTopCitiesSupplier(), CityStatsAggregator.CITY_STATS_STORE)
+                .repartition(Repartitioned.<String, TopCitiesPartial>as("top-cities-merge")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(TopCitiesSerdes.partial())
+                        .withNumberOfPartitions(1))
+                .process(new GlobalTopCitiesSupplier()));
+    }
+
+    private class LocalTopCitiesSupplier implements ProcessorSupplier<String, Long, String, TopCitiesPartial> {
+        @Override
+        public Processor<String, Long, String, TopCitiesPartial> get() {
+            return new LocalTopCitiesProcessor(CityStatsAggregator.CITY_STATS_STORE, TOP_CITIES_KEY, k, publishInterval);
+        }
+    }
 
-        // Aggregate all cities into a single map
-        KTable<String, Map<String, Long>> topCitiesAggregation = cityCountStream
-                .groupByKey(Grouped.with(Serdes.String(), new JsonSerde<>(CityCount.class)))
-                .aggregate(
-                        HashMap::new,
-                        (aggKey, cityCount, state) -> {
-                            // Remove cities with zero active rides
-                            if (cityCount.getCount() == 0) {
-                                state.remove(cityCount.getCity());
-                            } else {
-                                state.put(cityCount.getCity(), cityCount.getCount());
-                            }
-                            return state;
-                        },
-                        Materialized.<String, Map<String, Long>, KeyValueStore<Bytes, byte[]>>as(TOP_CITIES_STORE)
-                                .withKeySerde(Serdes.String())
-                                .withValueSerde(new JsonSerde<>(new TypeReference<Map<String, Long>>() {
-                                })));
+    private class GlobalTopCitiesSupplier implements ProcessorSupplier<String, TopCitiesPartial, String, AnalyticsMessage> {
+        @Override
+        public Processor<String, TopCitiesPartial, String, AnalyticsMessage> get() {
+            return new GlobalTopCitiesProcessor(TOP_CITIES_STORE, k, publishInterval, jsonMapper::createTopCitiesMessage);
+        }
 
-        // Convert map to sorted top 5 list and publish
-        topCitiesAggregation.toStream()
-                .mapValues(jsonMapper::createTopCitiesJson)
-                .to(OUTPUT_TOPIC, Produced.with(Serdes.String(), Serdes.String()));
+        @Override
+        public Set<StoreBuilder<?>> stores() {
+            StoreBuilder<KeyValueStore<String, TopCitiesState>> store = Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(TOP_CITIES_STORE), Serdes.String(), TopCitiesSerdes.state());
+            return Set.of(store);
+        }
     }
 }
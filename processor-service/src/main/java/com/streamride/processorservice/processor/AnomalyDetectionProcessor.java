@@ -0,0 +1,138 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CityRideBaseline;
+import com.streamride.processorservice.sketch.Ewma;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flags completed rides whose duration, fare or distance is a z-score outlier
+ * against the city's own streaming baseline.
+ *
+ * Baselines live in a task-local map of mutable {@link CityRideBaseline}s, so
+ * scoring and updating an event touches only primitive fields; the only
+ * allocation is the output record of a flagged ride. Baselines are
+ * checkpointed to a changelogged store on a wall-clock punctuation and loaded
+ * back on init, so a restart loses at most one checkpoint interval of
+ * updates, which an EWMA absorbs within a few samples.
+ *
+ * A metric is only scored once its baseline has {@code minSamples} samples.
+ * Each sample is scored before it is added to the baseline.
+ */
+public class AnomalyDetectionProcessor implements Processor<String, RideEvent, String, AnalyticsMessage> {
+
+    /**
+     * Formats a flagged ride as an output message.
+     */
+    @FunctionalInterface
+    public interface Formatter {
+        AnalyticsMessage format(RideEvent event, String metric, double value, double mean, double stdDev, double zScore);
+    }
+
+    private final String storeName;
+    private final double alpha;
+    private final double zThreshold;
+    private final long minSamples;
+    private final Duration checkpointInterval;
+    private final Formatter formatter;
+
+    private final Map<String, CityRideBaseline> baselines = new HashMap<>();
+    private ProcessorContext<String, AnalyticsMessage> context;
+    private KeyValueStore<String, CityRideBaseline> store;
+
+    // Worst outlier of the event being processed
+    private String flaggedMetric;
+    private double flaggedValue;
+    private double flaggedMean;
+    private double flaggedStdDev;
+    private double flaggedZ;
+
+    public AnomalyDetectionProcessor(String storeName, double alpha, double zThreshold, long minSamples,
+                                     Duration checkpointInterval, Formatter formatter) {
+        this.storeName = storeName;
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.minSamples = minSamples;
+        this.checkpointInterval = checkpointInterval;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, AnalyticsMessage> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        try (KeyValueIterator<String, CityRideBaseline> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<String, CityRideBaseline> entry = it.next();
+                baselines.put(entry.key, entry.value);
+            }
+        }
+        context.schedule(checkpointInterval, PunctuationType.WALL_CLOCK_TIME, now -> checkpoint());
+    }
+
+    @Override
+    public void process(Record<String, RideEvent> record) {
+        RideEvent event = record.value();
+        if (event.getEventType() != EventType.RIDE_COMPLETED || record.key() == null) {
+            return;
+        }
+        CityRideBaseline baseline = baselines.get(record.key());
+        if (baseline == null) {
+            baseline = new CityRideBaseline();
+            baselines.put(record.key(), baseline);
+        }
+
+        flaggedMetric = null;
+        flaggedZ = 0;
+        if (event.getDurationMinutes() != null) {
+            score("durationMinutes", event.getDurationMinutes(), baseline.getDurationMinutes());
+        }
+        if (event.getFareEstimate() != null) {
+            score("fare", event.getFareEstimate(), baseline.getFare());
+        }
+        if (event.getDistance() != null) {
+            score("distance", event.getDistance(), baseline.getDistance());
+        }
+        baseline.setDirty(true);
+
+        if (flaggedMetric != null) {
+            AnalyticsMessage message = formatter.format(event, flaggedMetric, flaggedValue, flaggedMean, flaggedStdDev, flaggedZ);
+            context.forward(new Record<>(record.key(), message, record.timestamp()));
+        }
+    }
+
+    private void score(String metric, double value, Ewma ewma) {
+        if (ewma.getCount() >= minSamples) {
+            double z = ewma.zScore(value);
+            if (Math.abs(z) >= zThreshold && Math.abs(z) > Math.abs(flaggedZ)) {
+                flaggedMetric = metric;
+                flaggedValue = value;
+                flaggedMean = ewma.getMean();
+                flaggedStdDev = ewma.getStdDev();
+                flaggedZ = z;
+            }
+        }
+        ewma.update(value, alpha);
+    }
+
+    private void checkpoint() {
+        for (Map.Entry<String, CityRideBaseline> entry : baselines.entrySet()) {
+            if (entry.getValue().isDirty()) {
+                store.put(entry.getKey(), entry.getValue());
+                entry.getValue().setDirty(false);
+            }
+        }
+    }
+}
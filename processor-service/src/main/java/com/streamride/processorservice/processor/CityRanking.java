@@ -0,0 +1,70 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.TopCitiesState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Incrementally maintained ranking of cities by active ride count.
+ *
+ * An update is O(log n); reading the top-K walks only the first K entries of
+ * the ordered index. Cities with no active rides are dropped.
+ */
+class CityRanking {
+
+    private final Map<String, CityCount> byCity = new HashMap<>();
+    private final TreeSet<CityCount> ranked = new TreeSet<>(TopCitiesState.RANKING);
+
+    void update(String city, long count) {
+        CityCount entry = byCity.get(city);
+        if (entry != null) {
+            if (entry.getCount() == count) {
+                return;
+            }
+            // Entries are ordered by count, so remove before mutating
+            ranked.remove(entry);
+            if (count <= 0) {
+                byCity.remove(city);
+                return;
+            }
+            entry.setCount(count);
+            ranked.add(entry);
+        } else if (count > 0) {
+            entry = new CityCount(city, count);
+            byCity.put(city, entry);
+            ranked.add(entry);
+        }
+    }
+
+    /**
+     * @param k number of cities to return
+     * @return detached copies of the top-K entries, highest count first
+     */
+    List<CityCount> top(int k) {
+        List<CityCount> top = new ArrayList<>(Math.min(k, ranked.size()));
+        Iterator<CityCount> it = ranked.iterator();
+        while (top.size() < k && it.hasNext()) {
+            CityCount entry = it.next();
+            top.add(new CityCount(entry.getCity(), entry.getCount()));
+        }
+        return top;
+    }
+
+    static boolean sameRanking(List<CityCount> a, List<CityCount> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).getCount() != b.get(i).getCount() || !a.get(i).getCity().equals(b.get(i).getCity())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package com.streamride.processorservice.processor;
+
+import io.micrometer.core.instrument.Counter;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Rate limits an update stream to the latest value per key.
+ *
+ * Incoming values overwrite the key's pending entry. A wall-clock punctuator
+ * flushes a pending key once its emit interval has passed since its last
+ * emission, so no update waits longer than the emit interval plus one tick.
+ * Updates overwritten before they were emitted are counted as suppressed.
+ *
+ * Pending values are held on the heap only, so they are lost when the task
+ * closes, on a rebalance or a crash. The input is a KTable's changelog, so
+ * its store already holds this state durably; a changelogged pending store
+ * would write at least one record per input update, which is the traffic
+ * coalescing exists to avoid. Instead, init re-seeds pending with every
+ * key's current value from that store ({@link Seed}), and the first tick
+ * emits them. A restart re-publishes each key of the task once, rather than
+ * leaving a quiet key stale on a compacted output topic.
+ *
+ * @param <V> value type
+ */
+public class CoalescingProcessor<V> implements Processor<String, V, String, V> {
+
+    /**
+     * Upstream KTable store that pending values are re-seeded from on init.
+     *
+     * @param storeName name of the table's store, connected to this processor
+     * @param mapper    maps a stored value to the processor's value type
+     * @param <S>       stored value type
+     * @param <V>       value type
+     */
+    public record Seed<S, V>(String storeName, Function<S, V> mapper) {
+    }
+
+    private final long emitIntervalMs;
+    private final Duration tick;
+    private final Counter suppressed;
+    private final Counter emitted;
+    private final Seed<?, V> seed;
+
+    // Keys waiting to be emitted, oldest pending first
+    private final LinkedHashMap<String, Record<String, V>> pending = new LinkedHashMap<>();
+    private final Map<String, Long> lastEmittedAt = new HashMap<>();
+
+    private ProcessorContext<String, V> context;
+
+    public CoalescingProcessor(Duration emitInterval, Duration tick, Counter suppressed, Counter emitted,
+                               Seed<?, V> seed) {
+        this.emitIntervalMs = emitInterval.toMillis();
+        this.tick = tick;
+        this.suppressed = suppressed;
+        this.emitted = emitted;
+        this.seed = seed;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, V> context) {
+        this.context = context;
+        reseed(seed);
+        context.schedule(tick, PunctuationType.WALL_CLOCK_TIME, this::flush);
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        // Replacing the value keeps the key's place in the pending order
+        if (pending.put(record.key(), record) != null) {
+            suppressed.increment();
+        }
+    }
+
+    private <S> void reseed(Seed<S, V> seed) {
+        // Stores of DSL tables are timestamped
+        KeyValueStore<String, ValueAndTimestamp<S>> store = context.getStateStore(seed.storeName());
+        try (KeyValueIterator<String, ValueAndTimestamp<S>> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<String, ValueAndTimestamp<S>> entry = it.next();
+                V value = seed.mapper().apply(entry.value.value());
+                pending.put(entry.key, new Record<>(entry.key, value, entry.value.timestamp()));
+            }
+        }
+    }
+
+    private void flush(long now) {
+        Iterator<Map.Entry<String, Record<String, V>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Record<String, V>> entry = it.next();
+            Long last = lastEmittedAt.get(entry.getKey());
+            if (last == null || now - last >= emitIntervalMs) {
+                context.forward(entry.getValue());
+                lastEmittedAt.put(entry.getKey(), now);
+                emitted.increment();
+                it.remove();
+            }
+        }
+    }
+}
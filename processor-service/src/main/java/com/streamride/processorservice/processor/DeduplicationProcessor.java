@@ -0,0 +1,129 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.sketch.BloomFilter;
+import com.streamride.processorservice.sketch.Hashing;
+import io.micrometer.core.instrument.Counter;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import java.util.function.Supplier;
+
+/**
+ * Drops repeated lifecycle events, identified by (rideId, eventType), seen
+ * within the deduplication window.
+ *
+ * The window store holding seen keys is authoritative, but most events are
+ * new and a store lookup per event would put a RocksDB read on the hot path.
+ * Two Bloom filter generations sit in front of it: every key is added to the
+ * current generation, and generations rotate each window of stream time, so a
+ * key is covered for at least one full window. A negative answer from both
+ * generations skips the store read; a positive answer is confirmed against
+ * the store, and counted as a false positive if the store has no match.
+ *
+ * The filters are not persisted; they are rebuilt from the store on init.
+ * Location updates carry no lifecycle transition and are passed through.
+ */
+public class DeduplicationProcessor implements FixedKeyProcessor<String, RideEvent, RideEvent> {
+
+    private final String storeName;
+    private final long windowMs;
+    private final Counter lookups;
+    private final Counter duplicates;
+    private final Counter bloomPositives;
+    private final Counter falsePositives;
+
+    private BloomFilter current;
+    private BloomFilter previous;
+    private long generationStart = Long.MIN_VALUE;
+
+    private FixedKeyProcessorContext<String, RideEvent> context;
+    private WindowStore<String, Long> store;
+
+    public DeduplicationProcessor(String storeName, long windowMs, Supplier<BloomFilter> filters,
+                                  Counter lookups, Counter duplicates, Counter bloomPositives,
+                                  Counter falsePositives) {
+        this.storeName = storeName;
+        this.windowMs = windowMs;
+        this.lookups = lookups;
+        this.duplicates = duplicates;
+        this.bloomPositives = bloomPositives;
+        this.falsePositives = falsePositives;
+        this.current = filters.get();
+        this.previous = filters.get();
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, RideEvent> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        try (KeyValueIterator<Windowed<String>, Long> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<Windowed<String>, Long> entry = it.next();
+                current.addHash(Hashing.hash64(entry.key.key()));
+                generationStart = Math.max(generationStart, entry.key.window().start());
+            }
+        }
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, RideEvent> record) {
+        RideEvent event = record.value();
+        if (event.getRideId() == null || event.getEventType() == null
+                || event.getEventType() == EventType.DRIVER_LOCATION_UPDATE) {
+            context.forward(record);
+            return;
+        }
+
+        long timestamp = record.timestamp();
+        rotate(timestamp);
+        lookups.increment();
+
+        String key = event.getRideId() + ':' + event.getEventType().ordinal();
+        long hash = Hashing.hash64(key);
+        if (current.mightContainHash(hash) || previous.mightContainHash(hash)) {
+            bloomPositives.increment();
+            if (seen(key, timestamp)) {
+                duplicates.increment();
+                return;
+            }
+            falsePositives.increment();
+        }
+
+        current.addHash(hash);
+        store.put(key, timestamp, timestamp);
+        context.forward(record);
+    }
+
+    private boolean seen(String key, long timestamp) {
+        try (WindowStoreIterator<Long> it = store.fetch(key, timestamp - windowMs, timestamp + windowMs)) {
+            return it.hasNext();
+        }
+    }
+
+    private void rotate(long timestamp) {
+        if (generationStart == Long.MIN_VALUE) {
+            generationStart = timestamp;
+            return;
+        }
+        if (timestamp < generationStart + windowMs) {
+            return;
+        }
+        BloomFilter retired = previous;
+        retired.clear();
+        previous = current;
+        if (timestamp >= generationStart + 2 * windowMs) {
+            // A gap of more than a window; neither generation holds live keys
+            previous.clear();
+        }
+        current = retired;
+        generationStart = timestamp;
+    }
+}
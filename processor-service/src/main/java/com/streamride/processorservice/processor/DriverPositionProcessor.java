@@ -0,0 +1,123 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.geo.DriverPosition;
+import com.streamride.processorservice.geo.DriverPositionIndex;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Maintains the last known position of the drivers in this task's spatial cells.
+ *
+ * Positions are written to a changelogged store, which makes them survive
+ * failover, and to the instance-wide {@link DriverPositionIndex} that serves
+ * proximity queries. Silent drivers are expired on a wall-clock punctuation:
+ * the task's drivers are kept in an insertion-ordered map and re-inserted on
+ * every accepted update, so the least recently updated ones are always at its
+ * head and expiry never scans active drivers. Out-of-order records are
+ * dropped without touching that order.
+ */
+public class DriverPositionProcessor implements Processor<String, RideEvent, Void, Void> {
+
+    private final String storeName;
+    private final DriverPositionIndex index;
+    private final long ttlMs;
+    private final Duration expiryInterval;
+
+    private final LinkedHashMap<String, DriverPosition> drivers = new LinkedHashMap<>(1024);
+    private KeyValueStore<String, DriverPosition> store;
+
+    public DriverPositionProcessor(String storeName, DriverPositionIndex index, long ttlMs, Duration expiryInterval) {
+        this.storeName = storeName;
+        this.index = index;
+        this.ttlMs = ttlMs;
+        this.expiryInterval = expiryInterval;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        this.store = context.getStateStore(storeName);
+        long minLastSeen = context.currentSystemTimeMs() - ttlMs;
+
+        List<DriverPosition> restored = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+        try (KeyValueIterator<String, DriverPosition> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<String, DriverPosition> entry = it.next();
+                if (entry.value.getLastSeen() < minLastSeen) {
+                    expired.add(entry.key);
+                } else {
+                    entry.value.setDriverId(entry.key);
+                    restored.add(entry.value);
+                }
+            }
+        }
+        expired.forEach(store::delete);
+        // Oldest first, so the map starts out in last-seen order
+        restored.sort(Comparator.comparingLong(DriverPosition::getLastSeen));
+        for (DriverPosition position : restored) {
+            drivers.put(position.getDriverId(), position);
+            index.update(position.getDriverId(), position.getLatitude(), position.getLongitude(), position.getLastSeen());
+        }
+
+        context.schedule(expiryInterval, PunctuationType.WALL_CLOCK_TIME, this::expire);
+    }
+
+    @Override
+    public void process(Record<String, RideEvent> record) {
+        RideEvent event = record.value();
+        String driverId = event.getDriverId();
+        long timestamp = record.timestamp();
+
+        DriverPosition position = drivers.get(driverId);
+        if (position == null) {
+            position = new DriverPosition(driverId, event.getLatitude(), event.getLongitude(), timestamp);
+        } else if (timestamp < position.getLastSeen()) {
+            return;
+        } else {
+            position.setLatitude(event.getLatitude());
+            position.setLongitude(event.getLongitude());
+            position.setLastSeen(timestamp);
+            // Re-inserting moves the driver to the tail, behind every less recent update
+            drivers.remove(driverId);
+        }
+        drivers.put(driverId, position);
+        store.put(driverId, position);
+        index.update(driverId, position.getLatitude(), position.getLongitude(), timestamp);
+    }
+
+    @Override
+    public void close() {
+        // The task may move to another instance; stop serving its drivers here
+        for (DriverPosition position : drivers.values()) {
+            index.remove(position.getDriverId(), position.getLastSeen());
+        }
+        drivers.clear();
+    }
+
+    private void expire(long now) {
+        long minLastSeen = now - ttlMs;
+        Iterator<DriverPosition> it = drivers.values().iterator();
+        while (it.hasNext()) {
+            DriverPosition position = it.next();
+            if (position.getLastSeen() >= minLastSeen) {
+                break;
+            }
+            it.remove();
+            store.delete(position.getDriverId());
+            index.remove(position.getDriverId(), position.getLastSeen());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.RideParticipants;
+import com.streamride.processorservice.model.RideParticipantsPanes;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+
+/**
+ * Global stage of the distinct participant counts.
+ *
+ * Receives every city's closed panes on a single-partition topic and merges
+ * panes with the same start into one global pane, so a driver seen in
+ * several cities is counted once. The union of the global panes in the
+ * rolling window is published on a punctuation cadence when it changed;
+ * the estimate is computed only then, not per city pane.
+ */
+public class GlobalParticipantsProcessor implements Processor<Windowed<String>, RideParticipants, String, AnalyticsMessage> {
+
+    private final String storeName;
+    private final String globalKey;
+    private final long paneSizeMs;
+    private final long windowSizeMs;
+    private final Duration publishInterval;
+    private final RollingParticipantsProcessor.Formatter formatter;
+
+    private ProcessorContext<String, AnalyticsMessage> context;
+    private KeyValueStore<String, RideParticipantsPanes> store;
+    private boolean dirty;
+
+    public GlobalParticipantsProcessor(String storeName, String globalKey, long paneSizeMs, long windowSizeMs,
+                                       Duration publishInterval, RollingParticipantsProcessor.Formatter formatter) {
+        this.storeName = storeName;
+        this.globalKey = globalKey;
+        this.paneSizeMs = paneSizeMs;
+        this.windowSizeMs = windowSizeMs;
+        this.publishInterval = publishInterval;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, AnalyticsMessage> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        context.schedule(publishInterval, PunctuationType.WALL_CLOCK_TIME, this::publish);
+    }
+
+    @Override
+    public void process(Record<Windowed<String>, RideParticipants> record) {
+        RideParticipantsPanes panes = store.get(globalKey);
+        if (panes == null) {
+            panes = new RideParticipantsPanes();
+        }
+        store.put(globalKey, panes.merge(record.key().window().start(), record.value(), windowSizeMs));
+        dirty = true;
+    }
+
+    private void publish(long timestamp) {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        RideParticipantsPanes panes = store.get(globalKey);
+        long windowEnd = panes.getPanes().lastKey() + paneSizeMs;
+        context.forward(new Record<>(globalKey,
+                formatter.format(globalKey, panes.firstPaneStart(), windowEnd, panes.union()), timestamp));
+    }
+}
@@ -0,0 +1,75 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.TopCitiesPartial;
+import com.streamride.processorservice.model.TopCitiesState;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Second stage of the distributed top cities ranking.
+ *
+ * Receives the local top-K of every partition on a single-partition topic and
+ * keeps them in one {@link TopCitiesState} entry of the top cities store. The
+ * global top-K is recomputed from at most K entries per partition and published
+ * on a punctuation cadence when it changes.
+ */
+public class GlobalTopCitiesProcessor implements Processor<String, TopCitiesPartial, String, AnalyticsMessage> {
+
+    private final String storeName;
+    private final int k;
+    private final Duration publishInterval;
+    private final Function<List<CityCount>, ? extends AnalyticsMessage> formatter;
+
+    private ProcessorContext<String, AnalyticsMessage> context;
+    private KeyValueStore<String, TopCitiesState> store;
+    private List<CityCount> lastPublished = List.of();
+    private String dirtyKey;
+
+    public GlobalTopCitiesProcessor(String storeName, int k, Duration publishInterval,
+                                    Function<List<CityCount>, ? extends AnalyticsMessage> formatter) {
+        this.storeName = storeName;
+        this.k = k;
+        this.publishInterval = publishInterval;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, AnalyticsMessage> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        context.schedule(publishInterval, PunctuationType.WALL_CLOCK_TIME, this::publish);
+    }
+
+    @Override
+    public void process(Record<String, TopCitiesPartial> record) {
+        TopCitiesState state = store.get(record.key());
+        if (state == null) {
+            state = new TopCitiesState();
+        }
+        store.put(record.key(), state.merge(record.value()));
+        dirtyKey = record.key();
+    }
+
+    private void publish(long timestamp) {
+        if (dirtyKey == null) {
+            return;
+        }
+        String key = dirtyKey;
+        dirtyKey = null;
+        List<CityCount> top = store.get(key).top(k);
+        if (CityRanking.sameRanking(top, lastPublished)) {
+            return;
+        }
+        lastPublished = top;
+        context.forward(new Record<>(key, formatter.apply(top), timestamp));
+    }
+}
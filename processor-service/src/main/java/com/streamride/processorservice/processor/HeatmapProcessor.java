@@ -0,0 +1,65 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.EventType;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CellCounts;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Counts ride lifecycle events per geohash cell and publishes changed cells.
+ *
+ * Input is keyed by cell ID and partitioned by it, so each cell's counts live
+ * in exactly one task's store. Cells touched since the last publication are
+ * remembered in a task-local set and emitted, one message per cell, on a
+ * wall-clock punctuation; unchanged cells are never re-sent.
+ */
+public class HeatmapProcessor implements Processor<String, EventType, String, AnalyticsMessage> {
+
+    private final String storeName;
+    private final Duration publishInterval;
+    private final BiFunction<String, CellCounts, ? extends AnalyticsMessage> formatter;
+
+    private final Set<String> changedCells = new LinkedHashSet<>();
+    private ProcessorContext<String, AnalyticsMessage> context;
+    private KeyValueStore<String, CellCounts> store;
+
+    public HeatmapProcessor(String storeName, Duration publishInterval,
+                            BiFunction<String, CellCounts, ? extends AnalyticsMessage> formatter) {
+        this.storeName = storeName;
+        this.publishInterval = publishInterval;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, AnalyticsMessage> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        context.schedule(publishInterval, PunctuationType.WALL_CLOCK_TIME, this::publish);
+    }
+
+    @Override
+    public void process(Record<String, EventType> record) {
+        CellCounts counts = store.get(record.key());
+        if (counts == null) {
+            counts = new CellCounts();
+        }
+        store.put(record.key(), counts.apply(record.value()));
+        changedCells.add(record.key());
+    }
+
+    private void publish(long timestamp) {
+        for (String cell : changedCells) {
+            context.forward(new Record<>(cell, formatter.apply(cell, store.get(cell)), timestamp));
+        }
+        changedCells.clear();
+    }
+}
@@ -0,0 +1,79 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.model.TopCitiesPartial;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * First stage of the distributed top cities ranking.
+ *
+ * Runs in the task that owns the city's partition and keeps a local
+ * {@link CityRanking} of that partition's cities. The ranking is in-memory
+ * only: on init it is rebuilt from the city statistics store, which is already
+ * restored from its changelog by then. On every punctuation the local top-K is
+ * forwarded under a single key if it changed since the last emission.
+ */
+public class LocalTopCitiesProcessor implements Processor<String, Long, String, TopCitiesPartial> {
+
+    private final String cityStatsStoreName;
+    private final String outputKey;
+    private final int k;
+    private final Duration publishInterval;
+
+    private final CityRanking ranking = new CityRanking();
+    private ProcessorContext<String, TopCitiesPartial> context;
+    private List<CityCount> lastEmitted = List.of();
+    private boolean dirty;
+
+    public LocalTopCitiesProcessor(String cityStatsStoreName, String outputKey, int k, Duration publishInterval) {
+        this.cityStatsStoreName = cityStatsStoreName;
+        this.outputKey = outputKey;
+        this.k = k;
+        this.publishInterval = publishInterval;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, TopCitiesPartial> context) {
+        this.context = context;
+        TimestampedKeyValueStore<String, CityStats> cityStats = context.getStateStore(cityStatsStoreName);
+        try (KeyValueIterator<String, ValueAndTimestamp<CityStats>> it = cityStats.all()) {
+            while (it.hasNext()) {
+                KeyValue<String, ValueAndTimestamp<CityStats>> entry = it.next();
+                ranking.update(entry.key, entry.value.value().getActiveRides());
+            }
+        }
+        dirty = true;
+        context.schedule(publishInterval, PunctuationType.WALL_CLOCK_TIME, this::publish);
+    }
+
+    @Override
+    public void process(Record<String, Long> record) {
+        ranking.update(record.key(), record.value() == null ? 0 : record.value());
+        dirty = true;
+    }
+
+    private void publish(long timestamp) {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        List<CityCount> top = ranking.top(k);
+        if (CityRanking.sameRanking(top, lastEmitted)) {
+            return;
+        }
+        lastEmitted = top;
+        int partition = context.taskId().partition();
+        context.forward(new Record<>(outputKey, new TopCitiesPartial(partition, top), timestamp));
+    }
+}
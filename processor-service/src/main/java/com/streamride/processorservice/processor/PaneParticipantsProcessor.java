@@ -0,0 +1,137 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.model.RideParticipants;
+import com.streamride.processorservice.model.RideParticipantsPanes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.internals.TimeWindow;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects distinct drivers and riders per city into tumbling panes and
+ * forwards each pane once it closes.
+ *
+ * Open panes live in a task-local map and their HyperLogLogs are updated in
+ * place, so an event, location updates included, costs a couple of register
+ * updates and no serialization. A pane closes once stream time passes its end
+ * plus the grace period, like a windowed aggregation emitting on window
+ * close; later events for it are dropped.
+ *
+ * Open panes are checkpointed to a changelogged store on a wall-clock
+ * punctuation and loaded back on init, so a restart loses at most one
+ * checkpoint interval of additions. Replayed events are harmless, adding an
+ * ID to a HyperLogLog twice does not change it.
+ */
+public class PaneParticipantsProcessor implements Processor<String, RideEvent, Windowed<String>, RideParticipants> {
+
+    private final String storeName;
+    private final int precision;
+    private final long paneSizeMs;
+    private final long graceMs;
+    private final Duration checkpointInterval;
+
+    private final Map<String, RideParticipantsPanes> openPanes = new HashMap<>();
+    private final Set<String> dirtyCities = new HashSet<>();
+    private ProcessorContext<Windowed<String>, RideParticipants> context;
+    private KeyValueStore<String, RideParticipantsPanes> store;
+    private long streamTime = Long.MIN_VALUE;
+    // Earliest close time of any open pane, so most events skip the scan
+    private long nextCloseTime = Long.MAX_VALUE;
+
+    public PaneParticipantsProcessor(String storeName, int precision, long paneSizeMs, long graceMs,
+                                     Duration checkpointInterval) {
+        this.storeName = storeName;
+        this.precision = precision;
+        this.paneSizeMs = paneSizeMs;
+        this.graceMs = graceMs;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public void init(ProcessorContext<Windowed<String>, RideParticipants> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+        try (KeyValueIterator<String, RideParticipantsPanes> it = store.all()) {
+            while (it.hasNext()) {
+                KeyValue<String, RideParticipantsPanes> entry = it.next();
+                openPanes.put(entry.key, entry.value);
+                nextCloseTime = Math.min(nextCloseTime, closeTime(entry.value.firstPaneStart()));
+            }
+        }
+        context.schedule(checkpointInterval, PunctuationType.WALL_CLOCK_TIME, now -> checkpoint());
+    }
+
+    @Override
+    public void process(Record<String, RideEvent> record) {
+        streamTime = Math.max(streamTime, record.timestamp());
+        long paneStart = record.timestamp() - Math.floorMod(record.timestamp(), paneSizeMs);
+        if (record.key() != null && closeTime(paneStart) > streamTime) {
+            RideParticipantsPanes panes = openPanes.computeIfAbsent(record.key(), city -> new RideParticipantsPanes());
+            RideParticipants pane = panes.getPanes().get(paneStart);
+            if (pane == null) {
+                pane = new RideParticipants(precision);
+                panes.getPanes().put(paneStart, pane);
+                nextCloseTime = Math.min(nextCloseTime, closeTime(paneStart));
+            }
+            pane.add(record.value());
+            dirtyCities.add(record.key());
+        }
+        if (streamTime >= nextCloseTime) {
+            closePanes();
+        }
+    }
+
+    private void closePanes() {
+        nextCloseTime = Long.MAX_VALUE;
+        Iterator<Map.Entry<String, RideParticipantsPanes>> cities = openPanes.entrySet().iterator();
+        while (cities.hasNext()) {
+            Map.Entry<String, RideParticipantsPanes> city = cities.next();
+            Iterator<Map.Entry<Long, RideParticipants>> panes = city.getValue().getPanes().entrySet().iterator();
+            while (panes.hasNext()) {
+                Map.Entry<Long, RideParticipants> pane = panes.next();
+                long paneStart = pane.getKey();
+                if (closeTime(paneStart) > streamTime) {
+                    // Panes are sorted by start, the rest are still open
+                    nextCloseTime = Math.min(nextCloseTime, closeTime(paneStart));
+                    break;
+                }
+                Windowed<String> key = new Windowed<>(city.getKey(), new TimeWindow(paneStart, paneStart + paneSizeMs));
+                context.forward(new Record<>(key, pane.getValue(), paneStart + paneSizeMs - 1));
+                panes.remove();
+                dirtyCities.add(city.getKey());
+            }
+            if (city.getValue().getPanes().isEmpty()) {
+                cities.remove();
+            }
+        }
+    }
+
+    private void checkpoint() {
+        for (String city : dirtyCities) {
+            RideParticipantsPanes panes = openPanes.get(city);
+            if (panes == null) {
+                store.delete(city);
+            } else {
+                store.put(city, panes);
+            }
+        }
+        dirtyCities.clear();
+    }
+
+    private long closeTime(long paneStart) {
+        return paneStart + paneSizeMs + graceMs;
+    }
+}
@@ -2,19 +2,26 @@ package com.streamride.processorservice.processor;
 
 import com.streamride.model.RideEvent;
 import com.streamride.processorservice.aggregator.ActiveRidesAggregator;
-import com.streamride.processorservice.aggregator.TotalDurationAggregator;
+import com.streamride.processorservice.aggregator.CityStatsAggregator;
+import com.streamride.processorservice.aggregator.RideLifecycleAggregator;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.pipeline.ActiveDriversPipeline;
 import com.streamride.processorservice.pipeline.AnomalyPipeline;
 import com.streamride.processorservice.pipeline.CityActiveRidesPipeline;
+import com.streamride.processorservice.pipeline.DeduplicationPipeline;
+import com.streamride.processorservice.pipeline.DriverPositionPipeline;
+import com.streamride.processorservice.pipeline.HeatmapPipeline;
 import com.streamride.processorservice.pipeline.MetricsPipeline;
+import com.streamride.processorservice.pipeline.RidePercentilesPipeline;
 import com.streamride.processorservice.pipeline.TopCitiesPipeline;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
 import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.KTable;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.support.serializer.JsonSerde;
 import org.springframework.stereotype.Component;
 
 /**
@@ -23,13 +30,18 @@ import org.springframework.stereotype.Component;
  * This class coordinates multiple analytics pipelines that consume ride events
  * and produce various analytics to the output topic. Each pipeline is
  * responsible
- * for a specific analytics stream:
+ * for a specific analytics stream. Every pipeline reads the source stream after
+ * {@link DeduplicationPipeline} has dropped repeated lifecycle events.
  * 
  * - {@link MetricsPipeline}: Aggregated metrics (active rides, completed rides,
  * avg duration)
  * - {@link CityActiveRidesPipeline}: Per-city active ride counts
- * - {@link TopCitiesPipeline}: Top 5 cities by active rides
- * - {@link AnomalyPipeline}: Long ride detection
+ * - {@link TopCitiesPipeline}: Top K cities by active rides
+ * - {@link AnomalyPipeline}: Per-city outlier detection
+ * - {@link RidePercentilesPipeline}: Windowed duration and fare percentiles
+ * - {@link ActiveDriversPipeline}: Approximate distinct drivers and riders
+ * - {@link HeatmapPipeline}: Per-cell demand heatmap
+ * - {@link DriverPositionPipeline}: Live driver position index (no topic output)
  * 
  * The orchestrator follows the Single Responsibility Principle by delegating
  * all processing logic to dedicated pipeline classes, making the codebase
@@ -41,37 +53,65 @@ public class RideAnalyticsProcessor {
 
     private static final String SOURCE_TOPIC = "rides.events";
 
+    private final DeduplicationPipeline deduplicationPipeline;
+    private final RideLifecycleAggregator rideLifecycleAggregator;
+    private final CityStatsAggregator cityStatsAggregator;
     private final ActiveRidesAggregator activeRidesAggregator;
-    private final TotalDurationAggregator durationAggregator;
     private final MetricsPipeline metricsPipeline;
     private final CityActiveRidesPipeline cityActiveRidesPipeline;
     private final TopCitiesPipeline topCitiesPipeline;
     private final AnomalyPipeline anomalyPipeline;
+    private final RidePercentilesPipeline ridePercentilesPipeline;
+    private final ActiveDriversPipeline activeDriversPipeline;
+    private final HeatmapPipeline heatmapPipeline;
+    private final DriverPositionPipeline driverPositionPipeline;
+    private final Serde<RideEvent> rideEventSerde;
 
     /**
      * Constructor with dependency injection.
      * 
-     * @param activeRidesAggregator   aggregator for active rides
-     * @param durationAggregator      aggregator for duration calculations
+     * @param deduplicationPipeline   drops repeated lifecycle events at the head of the topology
+     * @param rideLifecycleAggregator ride-level lifecycle tracking feeding the city statistics
+     * @param cityStatsAggregator     single-pass aggregator for per-city statistics
+     * @param activeRidesAggregator   view of active rides per city
      * @param metricsPipeline         pipeline for aggregated metrics
      * @param cityActiveRidesPipeline pipeline for per-city active rides
      * @param topCitiesPipeline       pipeline for top cities ranking
      * @param anomalyPipeline         pipeline for anomaly detection
+     * @param ridePercentilesPipeline pipeline for windowed percentiles
+     * @param activeDriversPipeline   pipeline for distinct active drivers
+     * @param heatmapPipeline         pipeline for geohash heatmaps
+     * @param driverPositionPipeline  pipeline for the driver position index
+     * @param rideEventSerde          serde for ride events (binary or JSON)
      */
     @Autowired
     public RideAnalyticsProcessor(
+            DeduplicationPipeline deduplicationPipeline,
+            RideLifecycleAggregator rideLifecycleAggregator,
+            CityStatsAggregator cityStatsAggregator,
             ActiveRidesAggregator activeRidesAggregator,
-            TotalDurationAggregator durationAggregator,
             MetricsPipeline metricsPipeline,
             CityActiveRidesPipeline cityActiveRidesPipeline,
             TopCitiesPipeline topCitiesPipeline,
-            AnomalyPipeline anomalyPipeline) {
+            AnomalyPipeline anomalyPipeline,
+            RidePercentilesPipeline ridePercentilesPipeline,
+            ActiveDriversPipeline activeDriversPipeline,
+            HeatmapPipeline heatmapPipeline,
+            DriverPositionPipeline driverPositionPipeline,
+            Serde<RideEvent> rideEventSerde) {
+        this.deduplicationPipeline = deduplicationPipeline;
+        this.rideLifecycleAggregator = rideLifecycleAggregator;
+        this.cityStatsAggregator = cityStatsAggregator;
         this.activeRidesAggregator = activeRidesAggregator;
-        this.durationAggregator = durationAggregator;
         this.metricsPipeline = metricsPipeline;
         this.cityActiveRidesPipeline = cityActiveRidesPipeline;
         this.topCitiesPipeline = topCitiesPipeline;
         this.anomalyPipeline = anomalyPipeline;
+        this.ridePercentilesPipeline = ridePercentilesPipeline;
+        this.activeDriversPipeline = activeDriversPipeline;
+        this.heatmapPipeline = heatmapPipeline;
+        this.driverPositionPipeline = driverPositionPipeline;
+        this.rideEventSerde = rideEventSerde;
     }
 
     /**
@@ -85,21 +125,26 @@ public class RideAnalyticsProcessor {
      */
     @Autowired
     public void process(StreamsBuilder builder) {
-        // Create source stream
-        KStream<String, RideEvent> events = createSourceStream(builder);
+        // Create source stream, without repeated lifecycle events
+        KStream<String, RideEvent> events = deduplicationPipeline.build(createSourceStream(builder));
 
-        // Build shared aggregation tables once
-        KTable<String, Long> activeRides = activeRidesAggregator.build(events);
-        KTable<String, Long> completedRides = durationAggregator.buildCompletedRidesTable(events);
-        KTable<String, Double> avgDuration = durationAggregator.buildAverageDurationTable(events, completedRides);
+        // Build the shared per-city statistics once from ride lifecycle deltas;
+        // other tables are views of it
+        KStream<String, CityStats> cityDeltas = rideLifecycleAggregator.build(events);
+        KTable<String, CityStats> cityStats = cityStatsAggregator.build(cityDeltas);
+        KTable<String, Long> activeRides = activeRidesAggregator.build(cityStats);
 
         // Execute all analytics pipelines with shared tables
-        metricsPipeline.build(activeRides, completedRides, avgDuration);
+        metricsPipeline.build(cityStats);
         cityActiveRidesPipeline.build(activeRides);
         topCitiesPipeline.build(activeRides);
         anomalyPipeline.build(events);
+        ridePercentilesPipeline.build(events);
+        activeDriversPipeline.build(events);
+        heatmapPipeline.build(events);
+        driverPositionPipeline.build(events);
 
-        log.info("Ride Analytics Processor initialized with 4 pipelines.");
+        log.info("Ride Analytics Processor initialized with 8 pipelines.");
     }
 
     /**
@@ -109,7 +154,6 @@ public class RideAnalyticsProcessor {
      * @return KStream of ride events
      */
     private KStream<String, RideEvent> createSourceStream(StreamsBuilder builder) {
-        JsonSerde<RideEvent> rideEventSerde = new JsonSerde<>(RideEvent.class);
         return builder.stream(SOURCE_TOPIC, Consumed.with(Serdes.String(), rideEventSerde));
     }
 }
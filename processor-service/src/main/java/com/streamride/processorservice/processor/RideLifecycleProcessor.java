@@ -0,0 +1,212 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.model.RideLifecycle;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.InternalFixedKeyRecordFactory;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks each ride through requested, started and completed, and turns valid
+ * transitions into per-city {@link CityStats} deltas.
+ *
+ * Input is the source stream, keyed and partitioned by city. Every event of
+ * a ride carries the same city, so all of them meet in one task, and the
+ * stores are keyed by ride ID within it. Deltas keep the city key, so the
+ * city statistics downstream need no repartition. Transitions that do not apply to the ride's current state
+ * (duplicates, or a second completion) produce no delta, which keeps the
+ * downstream active count exact instead of clamped.
+ *
+ * Every ride has a deadline in a second store whose keys are the big-endian
+ * deadline followed by the ride ID, so iterating it in key order visits rides
+ * oldest deadline first. A stream-time punctuation reads that index from the
+ * oldest deadline not yet processed up to the current stream time and expires rides whose terminal event never arrived,
+ * emitting the correction for a ride that was still active. Completed rides
+ * are retained for a short while so a late duplicate completion is recognised.
+ *
+ * The scan starts at the last processed deadline rather than at the head of
+ * the index: the keys expired by earlier punctuations are deletes that
+ * RocksDB only drops at compaction, and walking them again every tick would
+ * cost more the longer the instance runs.
+ */
+public class RideLifecycleProcessor implements FixedKeyProcessor<String, RideEvent, CityStats> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final String lifecycleStoreName;
+    private final String expiryStoreName;
+    private final long requestedTtlMs;
+    private final long startedTtlMs;
+    private final long completedRetentionMs;
+    private final Duration expiryInterval;
+
+    private FixedKeyProcessorContext<String, CityStats> context;
+    private KeyValueStore<String, RideLifecycle> rides;
+    private KeyValueStore<Bytes, byte[]> expiryIndex;
+    // Lowest deadline that may still be in the index; 0 scans from the head after a restart
+    private long scanFrom;
+
+    public RideLifecycleProcessor(String lifecycleStoreName, String expiryStoreName, long requestedTtlMs,
+                                  long startedTtlMs, long completedRetentionMs, Duration expiryInterval) {
+        this.lifecycleStoreName = lifecycleStoreName;
+        this.expiryStoreName = expiryStoreName;
+        this.requestedTtlMs = requestedTtlMs;
+        this.startedTtlMs = startedTtlMs;
+        this.completedRetentionMs = completedRetentionMs;
+        this.expiryInterval = expiryInterval;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, CityStats> context) {
+        this.context = context;
+        this.rides = context.getStateStore(lifecycleStoreName);
+        this.expiryIndex = context.getStateStore(expiryStoreName);
+        // Deadlines are event times, so expiry follows stream time and replays deterministically
+        context.schedule(expiryInterval, PunctuationType.STREAM_TIME, this::expire);
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, RideEvent> record) {
+        RideEvent event = record.value();
+        String rideId = event.getRideId();
+        long timestamp = record.timestamp();
+        RideLifecycle ride = rides.get(rideId);
+        CityStats delta = new CityStats();
+
+        switch (event.getEventType()) {
+            case RIDE_REQUESTED -> {
+                if (ride != null) {
+                    return;
+                }
+                ride = new RideLifecycle(RideLifecycle.State.REQUESTED, event.getCity(), timestamp, 0, 0);
+                delta.setRequestedRides(1);
+            }
+            case RIDE_STARTED -> {
+                if (ride == null) {
+                    ride = new RideLifecycle(RideLifecycle.State.STARTED, event.getCity(), 0, timestamp, 0);
+                } else if (ride.getState() == RideLifecycle.State.REQUESTED) {
+                    if (timestamp >= ride.getRequestedAt()) {
+                        delta.setWaitSamples(1);
+                        delta.setTotalWaitMs(timestamp - ride.getRequestedAt());
+                    }
+                    ride.setState(RideLifecycle.State.STARTED);
+                    ride.setStartedAt(timestamp);
+                } else {
+                    return;
+                }
+                delta.setActiveRides(1);
+            }
+            case RIDE_COMPLETED -> {
+                if (ride == null) {
+                    ride = new RideLifecycle(RideLifecycle.State.COMPLETED, event.getCity(), 0, 0, 0);
+                } else if (ride.getState() == RideLifecycle.State.COMPLETED) {
+                    return;
+                } else {
+                    if (ride.getState() == RideLifecycle.State.STARTED) {
+                        delta.setActiveRides(-1);
+                        if (timestamp >= ride.getStartedAt()) {
+                            delta.setMeasuredDurationSamples(1);
+                            delta.setTotalMeasuredDurationMs(timestamp - ride.getStartedAt());
+                        }
+                    }
+                    ride.setState(RideLifecycle.State.COMPLETED);
+                }
+                applyCompletion(delta, event);
+            }
+            default -> {
+                return;
+            }
+        }
+
+        reschedule(rideId, ride, timestamp);
+        rides.put(rideId, ride);
+        context.forward(record.withValue(delta));
+    }
+
+    private static void applyCompletion(CityStats delta, RideEvent event) {
+        delta.setCompletedRides(1);
+        if (event.getDurationMinutes() != null) {
+            delta.setDurationSamples(1);
+            delta.setTotalDurationMinutes(event.getDurationMinutes());
+        }
+        if (event.getFareEstimate() != null) {
+            delta.setTotalFare(event.getFareEstimate());
+        }
+        if (event.getDistance() != null) {
+            delta.setTotalDistance(event.getDistance());
+        }
+    }
+
+    private void reschedule(String rideId, RideLifecycle ride, long timestamp) {
+        if (ride.getExpiresAt() != 0) {
+            expiryIndex.delete(indexKey(ride.getExpiresAt(), rideId));
+        }
+        long ttl = switch (ride.getState()) {
+            case REQUESTED -> requestedTtlMs;
+            case STARTED -> startedTtlMs;
+            case COMPLETED -> completedRetentionMs;
+        };
+        // Never 0, which marks an unscheduled ride
+        ride.setExpiresAt(Math.max(1, timestamp + ttl));
+        // A late event can be given a deadline that earlier scans already passed
+        scanFrom = Math.min(scanFrom, ride.getExpiresAt());
+        expiryIndex.put(indexKey(ride.getExpiresAt(), rideId), EMPTY);
+    }
+
+    private void expire(long streamTime) {
+        if (scanFrom > streamTime) {
+            return;
+        }
+        List<Bytes> due = new ArrayList<>();
+        // A bare deadline sorts before every key with that deadline, so this covers [scanFrom, streamTime]
+        try (KeyValueIterator<Bytes, byte[]> it = expiryIndex.range(deadlineKey(scanFrom), deadlineKey(streamTime + 1))) {
+            while (it.hasNext()) {
+                due.add(it.next().key);
+            }
+        }
+        scanFrom = streamTime + 1;
+
+        for (Bytes key : due) {
+            expiryIndex.delete(key);
+            byte[] raw = key.get();
+            long deadline = ByteBuffer.wrap(raw).getLong();
+            String rideId = new String(raw, Long.BYTES, raw.length - Long.BYTES, StandardCharsets.UTF_8);
+            RideLifecycle ride = rides.get(rideId);
+            if (ride == null || ride.getExpiresAt() != deadline) {
+                continue;
+            }
+            rides.delete(rideId);
+            if (ride.getState() != RideLifecycle.State.COMPLETED) {
+                CityStats delta = new CityStats();
+                delta.setExpiredRides(1);
+                if (ride.getState() == RideLifecycle.State.STARTED) {
+                    delta.setActiveRides(-1);
+                }
+                // No input record to derive from in a punctuation; the key is still the ride's city
+                context.forward(InternalFixedKeyRecordFactory.create(new Record<>(ride.getCity(), delta, streamTime)));
+            }
+        }
+    }
+
+    private static Bytes deadlineKey(long deadline) {
+        return Bytes.wrap(ByteBuffer.allocate(Long.BYTES).putLong(deadline).array());
+    }
+
+    private static Bytes indexKey(long deadline, String rideId) {
+        byte[] id = rideId.getBytes(StandardCharsets.UTF_8);
+        return Bytes.wrap(ByteBuffer.allocate(Long.BYTES + id.length).putLong(deadline).put(id).array());
+    }
+}
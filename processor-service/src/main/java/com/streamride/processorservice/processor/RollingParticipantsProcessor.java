@@ -0,0 +1,66 @@
+package com.streamride.processorservice.processor;
+
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.RideParticipants;
+import com.streamride.processorservice.model.RideParticipantsPanes;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Rolls closed panes of distinct participants up into a sliding window.
+ *
+ * Each closed pane is added to the city's recent panes and the union of those
+ * panes is forwarded. Merging HyperLogLogs is a register-wise maximum, so the
+ * per-event cost stays that of a single tumbling window however many panes
+ * the rolling window spans.
+ */
+public class RollingParticipantsProcessor implements Processor<Windowed<String>, RideParticipants, String, AnalyticsMessage> {
+
+    /**
+     * Formats a rolled-up window as an output message.
+     */
+    @FunctionalInterface
+    public interface Formatter {
+        AnalyticsMessage format(String city, long windowStart, long windowEnd, RideParticipants participants);
+    }
+
+    private final String storeName;
+    private final long windowSizeMs;
+    private final Formatter formatter;
+
+    private ProcessorContext<String, AnalyticsMessage> context;
+    private KeyValueStore<String, RideParticipantsPanes> store;
+
+    public RollingParticipantsProcessor(String storeName, long windowSizeMs, Formatter formatter) {
+        this.storeName = storeName;
+        this.windowSizeMs = windowSizeMs;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public void init(ProcessorContext<String, AnalyticsMessage> context) {
+        this.context = context;
+        this.store = context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(Record<Windowed<String>, RideParticipants> record) {
+        String city = record.key().key();
+        long paneStart = record.key().window().start();
+        long paneEnd = record.key().window().end();
+
+        RideParticipantsPanes panes = store.get(city);
+        if (panes == null) {
+            panes = new RideParticipantsPanes();
+        }
+        panes.add(paneStart, record.value(), windowSizeMs);
+        store.put(city, panes);
+
+        long windowEnd = panes.getPanes().lastKey() + (paneEnd - paneStart);
+        AnalyticsMessage message = formatter.format(city, panes.firstPaneStart(), windowEnd, panes.union());
+        context.forward(new Record<>(city, message, record.timestamp()));
+    }
+}
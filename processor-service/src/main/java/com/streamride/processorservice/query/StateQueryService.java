@@ -0,0 +1,284 @@
+package com.streamride.processorservice.query;
+
+import com.streamride.processorservice.aggregator.CityStatsAggregator;
+import com.streamride.processorservice.geo.DriverPositionIndex;
+import com.streamride.processorservice.geo.NearbyDriver;
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.CityStats;
+import com.streamride.processorservice.model.CityStatsView;
+import com.streamride.processorservice.model.TopCitiesState;
+import com.streamride.processorservice.pipeline.DriverPositionPipeline;
+import com.streamride.processorservice.pipeline.TopCitiesPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Interactive queries over this application's state stores.
+ *
+ * Point lookups are routed with {@link KafkaStreams#queryMetadataForKey} to the
+ * instance hosting the key's active task; range scans fan out to every
+ * instance hosting the store and merge the results. Instances identify
+ * themselves through {@code application.server}, and forwarded requests carry
+ * {@code local=true} so the receiving instance answers from its own stores
+ * instead of routing again while metadata is in flux.
+ *
+ * Results of routed reads are kept in a short-TTL, size-bounded cache, so
+ * dashboards polling the same keys do not turn every request into a store read
+ * or a network hop.
+ */
+@Slf4j
+@Service
+public class StateQueryService {
+
+    private static final ParameterizedTypeReference<List<CityStatsView>> CITY_LIST =
+            new ParameterizedTypeReference<>() {
+            };
+    private static final ParameterizedTypeReference<List<CityCount>> CITY_COUNT_LIST =
+            new ParameterizedTypeReference<>() {
+            };
+    private static final ParameterizedTypeReference<List<NearbyDriver>> DRIVER_LIST =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final StreamsBuilderFactoryBean streamsFactory;
+    private final DriverPositionIndex driverIndex;
+    private final RestClient restClient;
+    private final HostInfo self;
+    private final int topCitiesK;
+    private final TtlCache<String, Object> cache;
+
+    public StateQueryService(StreamsBuilderFactoryBean streamsFactory,
+                             DriverPositionIndex driverIndex,
+                             RestClient.Builder restClientBuilder,
+                             @Value("${streamride.query.application-server:localhost:${server.port:8082}}") String applicationServer,
+                             @Value("${streamride.top-cities.k:5}") int topCitiesK,
+                             @Value("${streamride.query.cache-ttl-ms:500}") long cacheTtlMs,
+                             @Value("${streamride.query.cache-max-entries:1024}") int cacheMaxEntries) {
+        this.streamsFactory = streamsFactory;
+        this.driverIndex = driverIndex;
+        this.restClient = restClientBuilder.build();
+        this.self = HostInfo.buildFromEndpoint(applicationServer);
+        this.topCitiesK = topCitiesK;
+        this.cache = new TtlCache<>(cacheTtlMs, cacheMaxEntries);
+    }
+
+    /**
+     * Looks up one city's statistics on whichever instance hosts it.
+     *
+     * @param city  city name
+     * @param local answer from this instance's stores only
+     * @return the city's statistics, or empty if the city is unknown
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<CityStatsView> cityStats(String city, boolean local) {
+        if (local) {
+            return Optional.ofNullable(localCityStats(city));
+        }
+        return (Optional<CityStatsView>) cache.get("city:" + city, () -> {
+            HostInfo host = activeHost(CityStatsAggregator.CITY_STATS_STORE, city);
+            if (self.equals(host)) {
+                return Optional.ofNullable(localCityStats(city));
+            }
+            return Optional.ofNullable(remote(host, "/api/state/cities/{city}?local=true", CityStatsView.class, city));
+        });
+    }
+
+    /**
+     * Scans the statistics of all cities, or of the cities between two names.
+     *
+     * @param from  first city name, inclusive, or null for no lower bound
+     * @param to    last city name, inclusive, or null for no upper bound
+     * @param local scan this instance's stores only
+     * @return matching cities sorted by name
+     */
+    @SuppressWarnings("unchecked")
+    public List<CityStatsView> cityStatsRange(String from, String to, boolean local) {
+        if (local) {
+            return localCityStatsRange(from, to);
+        }
+        return (List<CityStatsView>) cache.get("cities:" + from + ":" + to, () -> {
+            List<CityStatsView> result = new ArrayList<>();
+            for (HostInfo host : hostsOf(CityStatsAggregator.CITY_STATS_STORE)) {
+                if (self.equals(host)) {
+                    result.addAll(localCityStatsRange(from, to));
+                } else {
+                    List<CityStatsView> remote = remote(host, "/api/state/cities?local=true&from={from}&to={to}",
+                            CITY_LIST, from == null ? "" : from, to == null ? "" : to);
+                    if (remote != null) {
+                        result.addAll(remote);
+                    }
+                }
+            }
+            result.sort(Comparator.comparing(CityStatsView::city));
+            return List.copyOf(result);
+        });
+    }
+
+    /**
+     * Reads the global top cities from the instance hosting the merge task.
+     *
+     * @param local answer from this instance's stores only
+     * @return cities ranked by active rides, at most the configured K
+     */
+    @SuppressWarnings("unchecked")
+    public List<CityCount> topCities(boolean local) {
+        if (local) {
+            return localTopCities();
+        }
+        return (List<CityCount>) cache.get("top-cities", () -> {
+            HostInfo host = activeHost(TopCitiesPipeline.TOP_CITIES_STORE, TopCitiesPipeline.TOP_CITIES_KEY);
+            if (self.equals(host)) {
+                return localTopCities();
+            }
+            List<CityCount> remote = remote(host, "/api/state/top-cities?local=true", CITY_COUNT_LIST);
+            return remote == null ? List.of() : remote;
+        });
+    }
+
+    /**
+     * Finds drivers near a point across every instance holding driver positions.
+     * Positions are partitioned by geohash cell, so a query near a cell border
+     * can involve several instances; each answers from its local index. A driver
+     * that crossed a cell border may be reported by two instances while the old
+     * position ages out, so only its most recent position is kept.
+     *
+     * @return up to {@code limit} drivers, nearest first
+     */
+    public List<NearbyDriver> nearbyDrivers(double lat, double lon, double radiusKm, int limit, boolean local) {
+        if (local) {
+            return driverIndex.nearby(lat, lon, radiusKm, limit);
+        }
+        List<NearbyDriver> result = new ArrayList<>();
+        for (HostInfo host : hostsOf(DriverPositionPipeline.POSITIONS_STORE)) {
+            if (self.equals(host)) {
+                result.addAll(driverIndex.nearby(lat, lon, radiusKm, limit));
+            } else {
+                List<NearbyDriver> remote = remote(host,
+                        "/api/drivers/nearby?local=true&lat={lat}&lon={lon}&radiusKm={radius}&limit={limit}",
+                        DRIVER_LIST, lat, lon, radiusKm, limit);
+                if (remote != null) {
+                    result.addAll(remote);
+                }
+            }
+        }
+        Map<String, NearbyDriver> latest = new HashMap<>();
+        for (NearbyDriver driver : result) {
+            latest.merge(driver.driverId(), driver,
+                    (current, next) -> next.lastSeen() > current.lastSeen() ? next : current);
+        }
+        List<NearbyDriver> drivers = new ArrayList<>(latest.values());
+        drivers.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+        return drivers.size() > limit ? List.copyOf(drivers.subList(0, limit)) : drivers;
+    }
+
+    private CityStatsView localCityStats(String city) {
+        return readLocal(CityStatsAggregator.CITY_STATS_STORE, (ReadOnlyKeyValueStore<String, CityStats> store) -> {
+            CityStats stats = store.get(city);
+            return stats == null ? null : CityStatsView.of(city, stats);
+        });
+    }
+
+    private List<CityStatsView> localCityStatsRange(String from, String to) {
+        String lower = from == null || from.isEmpty() ? null : from;
+        String upper = to == null || to.isEmpty() ? null : to;
+        return readLocal(CityStatsAggregator.CITY_STATS_STORE, (ReadOnlyKeyValueStore<String, CityStats> store) -> {
+            List<CityStatsView> result = new ArrayList<>();
+            try (KeyValueIterator<String, CityStats> it = store.range(lower, upper)) {
+                while (it.hasNext()) {
+                    KeyValue<String, CityStats> entry = it.next();
+                    result.add(CityStatsView.of(entry.key, entry.value));
+                }
+            }
+            return result;
+        });
+    }
+
+    private List<CityCount> localTopCities() {
+        return readLocal(TopCitiesPipeline.TOP_CITIES_STORE, (ReadOnlyKeyValueStore<String, TopCitiesState> store) -> {
+            TopCitiesState state = store.get(TopCitiesPipeline.TOP_CITIES_KEY);
+            return state == null ? List.of() : state.top(topCitiesK);
+        });
+    }
+
+    /**
+     * Runs a read against this instance's copy of a store. Store handles are
+     * resolved lazily, so a rebalance can surface on any access, not only here.
+     */
+    private <V, T> T readLocal(String storeName, Function<ReadOnlyKeyValueStore<String, V>, T> reader) {
+        try {
+            return reader.apply(streams().store(StoreQueryParameters.fromNameAndType(storeName,
+                    QueryableStoreTypes.<String, V>keyValueStore())));
+        } catch (InvalidStateStoreException e) {
+            throw new StateUnavailableException("Store " + storeName + " is not queryable on this instance", e);
+        }
+    }
+
+    private HostInfo activeHost(String storeName, String key) {
+        KeyQueryMetadata metadata = streams().queryMetadataForKey(storeName, key, Serdes.String().serializer());
+        if (metadata == null || metadata == KeyQueryMetadata.NOT_AVAILABLE) {
+            throw new StateUnavailableException("No active host for " + storeName + " yet");
+        }
+        return metadata.activeHost();
+    }
+
+    private List<HostInfo> hostsOf(String storeName) {
+        List<HostInfo> hosts = streams().streamsMetadataForStore(storeName).stream()
+                .map(StreamsMetadata::hostInfo)
+                .toList();
+        if (hosts.isEmpty()) {
+            throw new StateUnavailableException("No instance hosts " + storeName + " yet");
+        }
+        return hosts;
+    }
+
+    private KafkaStreams streams() {
+        KafkaStreams streams = streamsFactory.getKafkaStreams();
+        if (streams == null || !streams.state().isRunningOrRebalancing()) {
+            throw new StateUnavailableException("Kafka Streams is not running");
+        }
+        return streams;
+    }
+
+    private <T> T remote(HostInfo host, String path, Class<T> type, Object... uriVariables) {
+        return remote(host, path, ParameterizedTypeReference.forType(type), uriVariables);
+    }
+
+    private <T> T remote(HostInfo host, String path, ParameterizedTypeReference<T> type, Object... uriVariables) {
+        try {
+            return restClient.get()
+                    .uri("http://" + host.host() + ":" + host.port() + path, uriVariables)
+                    .retrieve()
+                    .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(), (request, response) -> {
+                    })
+                    .body(type);
+        } catch (RestClientException e) {
+            log.warn("State query to {}:{} failed: {}", host.host(), host.port(), e.getMessage());
+            throw new StateUnavailableException("Instance " + host.host() + ":" + host.port() + " did not answer", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.streamride.processorservice.query;
+
+/**
+ * Thrown when a state store cannot be queried right now, typically while
+ * Kafka Streams is starting, rebalancing or restoring, or when the instance
+ * hosting a key cannot be reached.
+ */
+public class StateUnavailableException extends RuntimeException {
+
+    public StateUnavailableException(String message) {
+        super(message);
+    }
+
+    public StateUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,67 @@
+package com.streamride.processorservice.query;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Minimal read-through cache whose entries expire a fixed time after loading.
+ *
+ * Entries are kept in load order, which with a fixed TTL is also expiry
+ * order, so each load first drops the expired entries at the head and then
+ * evicts the oldest entries beyond {@code maxEntries}. Keys built from
+ * request parameters therefore cannot grow the cache without bound. Loaders
+ * run outside the lock, and concurrent misses on one key may both load.
+ */
+class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // Guarded by itself
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>();
+
+    TtlCache(long ttlMs, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.maxEntries = maxEntries;
+    }
+
+    V get(K key, Supplier<V> loader) {
+        if (ttlNanos <= 0) {
+            return loader.get();
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now - entry.expiresAtNanos < 0) {
+                return entry.value;
+            }
+        }
+        V value = loader.get();
+        long loadedAt = System.nanoTime();
+        synchronized (entries) {
+            // Re-insert so the entry moves to the tail and load order stays expiry order
+            entries.remove(key);
+            entries.put(key, new Entry<>(value, loadedAt + ttlNanos));
+            evict(loadedAt);
+        }
+        return value;
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<V> oldest = it.next().getValue();
+            if (entries.size() <= maxEntries && now - oldest.expiresAtNanos < 0) {
+                return;
+            }
+            it.remove();
+        }
+    }
+}
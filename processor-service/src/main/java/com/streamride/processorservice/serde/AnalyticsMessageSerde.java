@@ -0,0 +1,88 @@
+package com.streamride.processorservice.serde;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.message.RawAnalyticsMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+
+/**
+ * JSON serde for {@link AnalyticsMessage}.
+ *
+ * The serializer streams each message into a per-thread generator and byte
+ * buffer that are reused across records, so the only allocation per record
+ * is the returned array. Sinks share one serializer across stream threads,
+ * hence the thread-local state.
+ *
+ * The deserializer does not parse: it wraps the bytes in a
+ * {@link RawAnalyticsMessage}, which writes them back unchanged.
+ */
+public class AnalyticsMessageSerde extends Serdes.WrapperSerde<AnalyticsMessage> {
+
+    public AnalyticsMessageSerde() {
+        super(new AnalyticsMessageSerializer(), new AnalyticsMessageDeserializer());
+    }
+
+    static class AnalyticsMessageSerializer implements Serializer<AnalyticsMessage> {
+
+        // No separator between consecutive root values written by the same generator
+        private static final JsonFactory FACTORY = new JsonFactoryBuilder()
+                .rootValueSeparator((String) null)
+                .build();
+
+        private final ThreadLocal<Writer> writers = ThreadLocal.withInitial(Writer::new);
+
+        @Override
+        public byte[] serialize(String topic, AnalyticsMessage message) {
+            if (message == null) {
+                return null;
+            }
+            Writer writer = writers.get();
+            try {
+                return writer.write(message);
+            } catch (IOException | RuntimeException e) {
+                // The generator may be mid-object; start the next record with a fresh one
+                writers.remove();
+                throw new SerializationException("Failed to write " + message.getClass().getSimpleName(), e);
+            }
+        }
+
+        private static final class Writer {
+
+            private final ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+            private final JsonGenerator generator;
+
+            Writer() {
+                try {
+                    generator = FACTORY.createGenerator(buffer);
+                } catch (IOException e) {
+                    throw new SerializationException("Failed to create JSON generator", e);
+                }
+            }
+
+            byte[] write(AnalyticsMessage message) throws IOException {
+                try {
+                    message.writeTo(generator);
+                    generator.flush();
+                    return buffer.toByteArray();
+                } finally {
+                    buffer.reset();
+                }
+            }
+        }
+    }
+
+    static class AnalyticsMessageDeserializer implements Deserializer<AnalyticsMessage> {
+        @Override
+        public AnalyticsMessage deserialize(String topic, byte[] data) {
+            return data == null ? null : new RawAnalyticsMessage(data);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.CellCounts;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary serde for {@link CellCounts}: a version byte followed by
+ * three 8-byte counters (25 bytes per cell).
+ */
+public class CellCountsSerde extends Serdes.WrapperSerde<CellCounts> {
+
+    private static final byte VERSION = 1;
+    private static final int SIZE = 1 + 3 * 8;
+
+    public CellCountsSerde() {
+        super(new CellCountsSerializer(), new CellCountsDeserializer());
+    }
+
+    static class CellCountsSerializer implements Serializer<CellCounts> {
+        @Override
+        public byte[] serialize(String topic, CellCounts counts) {
+            if (counts == null) {
+                return null;
+            }
+            return ByteBuffer.allocate(SIZE)
+                    .put(VERSION)
+                    .putLong(counts.getRequested())
+                    .putLong(counts.getStarted())
+                    .putLong(counts.getCompleted())
+                    .array();
+        }
+    }
+
+    static class CellCountsDeserializer implements Deserializer<CellCounts> {
+        @Override
+        public CellCounts deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            if (data.length != SIZE || data[0] != VERSION) {
+                throw new SerializationException("Unsupported CellCounts payload of " + data.length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, SIZE - 1);
+            return new CellCounts(buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.CityRideBaseline;
+import com.streamride.processorservice.sketch.Ewma;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary serde for {@link CityRideBaseline}: a version byte
+ * followed by (count, mean, variance) for duration, fare and distance
+ * (73 bytes per city).
+ */
+public class CityRideBaselineSerde extends Serdes.WrapperSerde<CityRideBaseline> {
+
+    private static final byte VERSION = 1;
+    private static final int SIZE = 1 + 3 * 24;
+
+    public CityRideBaselineSerde() {
+        super(new CityRideBaselineSerializer(), new CityRideBaselineDeserializer());
+    }
+
+    static class CityRideBaselineSerializer implements Serializer<CityRideBaseline> {
+        @Override
+        public byte[] serialize(String topic, CityRideBaseline baseline) {
+            if (baseline == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(SIZE).put(VERSION);
+            put(buffer, baseline.getDurationMinutes());
+            put(buffer, baseline.getFare());
+            put(buffer, baseline.getDistance());
+            return buffer.array();
+        }
+
+        private static void put(ByteBuffer buffer, Ewma ewma) {
+            buffer.putLong(ewma.getCount()).putDouble(ewma.getMean()).putDouble(ewma.getVariance());
+        }
+    }
+
+    static class CityRideBaselineDeserializer implements Deserializer<CityRideBaseline> {
+        @Override
+        public CityRideBaseline deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            if (data.length != SIZE || data[0] != VERSION) {
+                throw new SerializationException("Unsupported CityRideBaseline payload of " + data.length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, SIZE - 1);
+            return new CityRideBaseline(get(buffer), get(buffer), get(buffer), false);
+        }
+
+        private static Ewma get(ByteBuffer buffer) {
+            return new Ewma(buffer.getLong(), buffer.getDouble(), buffer.getDouble());
+        }
+    }
+}
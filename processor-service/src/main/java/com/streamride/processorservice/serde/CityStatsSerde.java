@@ -0,0 +1,83 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.CityStats;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary serde for {@link CityStats}: a version byte followed by
+ * thirteen 8-byte fields (105 bytes per city). Version 1 payloads, which end
+ * after the first eight fields, are still readable so existing changelogs
+ * restore; the lifecycle fields start at zero.
+ */
+public class CityStatsSerde extends Serdes.WrapperSerde<CityStats> {
+
+    private static final byte VERSION = 2;
+    private static final int SIZE = 1 + 13 * 8;
+    private static final int V1_SIZE = 1 + 8 * 8;
+
+    public CityStatsSerde() {
+        super(new CityStatsSerializer(), new CityStatsDeserializer());
+    }
+
+    static class CityStatsSerializer implements Serializer<CityStats> {
+        @Override
+        public byte[] serialize(String topic, CityStats stats) {
+            if (stats == null) {
+                return null;
+            }
+            return ByteBuffer.allocate(SIZE)
+                    .put(VERSION)
+                    .putLong(stats.getRequestedRides())
+                    .putLong(stats.getActiveRides())
+                    .putLong(stats.getCompletedRides())
+                    .putLong(stats.getDurationSamples())
+                    .putLong(stats.getTotalDurationMinutes())
+                    .putDouble(stats.getTotalFare())
+                    .putDouble(stats.getTotalDistance())
+                    .putLong(stats.getLastUpdated())
+                    .putLong(stats.getExpiredRides())
+                    .putLong(stats.getWaitSamples())
+                    .putLong(stats.getTotalWaitMs())
+                    .putLong(stats.getMeasuredDurationSamples())
+                    .putLong(stats.getTotalMeasuredDurationMs())
+                    .array();
+        }
+    }
+
+    static class CityStatsDeserializer implements Deserializer<CityStats> {
+        @Override
+        public CityStats deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            boolean current = data.length == SIZE && data[0] == VERSION;
+            boolean legacy = data.length == V1_SIZE && data[0] == 1;
+            if (!current && !legacy) {
+                throw new SerializationException("Unsupported CityStats payload of " + data.length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+            CityStats stats = new CityStats();
+            stats.setRequestedRides(buffer.getLong());
+            stats.setActiveRides(buffer.getLong());
+            stats.setCompletedRides(buffer.getLong());
+            stats.setDurationSamples(buffer.getLong());
+            stats.setTotalDurationMinutes(buffer.getLong());
+            stats.setTotalFare(buffer.getDouble());
+            stats.setTotalDistance(buffer.getDouble());
+            stats.setLastUpdated(buffer.getLong());
+            if (current) {
+                stats.setExpiredRides(buffer.getLong());
+                stats.setWaitSamples(buffer.getLong());
+                stats.setTotalWaitMs(buffer.getLong());
+                stats.setMeasuredDurationSamples(buffer.getLong());
+                stats.setTotalMeasuredDurationMs(buffer.getLong());
+            }
+            return stats;
+        }
+    }
+}
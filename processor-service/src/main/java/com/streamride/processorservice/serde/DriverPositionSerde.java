@@ -0,0 +1,53 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.geo.DriverPosition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary serde for {@link DriverPosition} values keyed by driver
+ * ID: a version byte, latitude, longitude and last-seen time (25 bytes). The
+ * driver ID is the store key and is not repeated in the value.
+ */
+public class DriverPositionSerde extends Serdes.WrapperSerde<DriverPosition> {
+
+    private static final byte VERSION = 1;
+    private static final int SIZE = 1 + 3 * 8;
+
+    public DriverPositionSerde() {
+        super(new DriverPositionSerializer(), new DriverPositionDeserializer());
+    }
+
+    static class DriverPositionSerializer implements Serializer<DriverPosition> {
+        @Override
+        public byte[] serialize(String topic, DriverPosition position) {
+            if (position == null) {
+                return null;
+            }
+            return ByteBuffer.allocate(SIZE)
+                    .put(VERSION)
+                    .putDouble(position.getLatitude())
+                    .putDouble(position.getLongitude())
+                    .putLong(position.getLastSeen())
+                    .array();
+        }
+    }
+
+    static class DriverPositionDeserializer implements Deserializer<DriverPosition> {
+        @Override
+        public DriverPosition deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            if (data.length != SIZE || data[0] != VERSION) {
+                throw new SerializationException("Unsupported DriverPosition payload of " + data.length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, SIZE - 1);
+            return new DriverPosition(null, buffer.getDouble(), buffer.getDouble(), buffer.getLong());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.RideDistribution;
+import com.streamride.processorservice.sketch.QuantileSketch;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary serde for {@link RideDistribution}: a version byte followed by the
+ * duration and fare sketches in their own encoding.
+ */
+public class RideDistributionSerde extends Serdes.WrapperSerde<RideDistribution> {
+
+    private static final byte VERSION = 1;
+
+    public RideDistributionSerde() {
+        super(new RideDistributionSerializer(), new RideDistributionDeserializer());
+    }
+
+    static class RideDistributionSerializer implements Serializer<RideDistribution> {
+        @Override
+        public byte[] serialize(String topic, RideDistribution distribution) {
+            if (distribution == null) {
+                return null;
+            }
+            QuantileSketch duration = distribution.getDurationMinutes();
+            QuantileSketch fare = distribution.getFare();
+            ByteBuffer buffer = ByteBuffer.allocate(1 + duration.serializedSize() + fare.serializedSize());
+            buffer.put(VERSION);
+            duration.writeTo(buffer);
+            fare.writeTo(buffer);
+            return buffer.array();
+        }
+    }
+
+    static class RideDistributionDeserializer implements Deserializer<RideDistribution> {
+        @Override
+        public RideDistribution deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            if (data.length == 0 || data[0] != VERSION) {
+                throw new SerializationException("Unsupported RideDistribution payload");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+            return new RideDistribution(QuantileSketch.readFrom(buffer), QuantileSketch.readFrom(buffer));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.RideLifecycle;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary serde for {@link RideLifecycle}: a version byte, the state ordinal,
+ * three 8-byte timestamps and the UTF-8 city name (26 bytes plus the name).
+ */
+public class RideLifecycleSerde extends Serdes.WrapperSerde<RideLifecycle> {
+
+    private static final byte VERSION = 1;
+    private static final int FIXED_SIZE = 1 + 1 + 3 * 8;
+    private static final RideLifecycle.State[] STATES = RideLifecycle.State.values();
+
+    public RideLifecycleSerde() {
+        super(new RideLifecycleSerializer(), new RideLifecycleDeserializer());
+    }
+
+    static class RideLifecycleSerializer implements Serializer<RideLifecycle> {
+        @Override
+        public byte[] serialize(String topic, RideLifecycle ride) {
+            if (ride == null) {
+                return null;
+            }
+            byte[] city = ride.getCity().getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(FIXED_SIZE + city.length)
+                    .put(VERSION)
+                    .put((byte) ride.getState().ordinal())
+                    .putLong(ride.getRequestedAt())
+                    .putLong(ride.getStartedAt())
+                    .putLong(ride.getExpiresAt())
+                    .put(city)
+                    .array();
+        }
+    }
+
+    static class RideLifecycleDeserializer implements Deserializer<RideLifecycle> {
+        @Override
+        public RideLifecycle deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            if (data.length < FIXED_SIZE || data[0] != VERSION || data[1] < 0 || data[1] >= STATES.length) {
+                throw new SerializationException("Unsupported RideLifecycle payload of " + data.length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data, 2, FIXED_SIZE - 2);
+            return new RideLifecycle(
+                    STATES[data[1]],
+                    new String(data, FIXED_SIZE, data.length - FIXED_SIZE, StandardCharsets.UTF_8),
+                    buffer.getLong(),
+                    buffer.getLong(),
+                    buffer.getLong());
+        }
+    }
+}
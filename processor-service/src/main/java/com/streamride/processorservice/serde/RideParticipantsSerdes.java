@@ -0,0 +1,95 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.RideParticipants;
+import com.streamride.processorservice.model.RideParticipantsPanes;
+import com.streamride.processorservice.sketch.HyperLogLog;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Binary serdes for the distinct participant sketches.
+ *
+ * A {@link RideParticipants} is the driver and rider HyperLogLogs back to back;
+ * a {@link RideParticipantsPanes} is a version byte, a pane count and
+ * (start, participants) per pane.
+ */
+public final class RideParticipantsSerdes {
+
+    private static final byte VERSION = 1;
+
+    private RideParticipantsSerdes() {
+        // Utility class
+    }
+
+    public static Serde<RideParticipants> participants() {
+        return Serdes.serdeFrom(
+                (topic, participants) -> {
+                    if (participants == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(1 + size(participants));
+                    buffer.put(VERSION);
+                    write(buffer, participants);
+                    return buffer.array();
+                },
+                (topic, data) -> data == null ? null : read(data, RideParticipantsSerdes::readParticipants));
+    }
+
+    public static Serde<RideParticipantsPanes> panes() {
+        return Serdes.serdeFrom(
+                (topic, panes) -> {
+                    if (panes == null) {
+                        return null;
+                    }
+                    int size = 1 + 4;
+                    for (RideParticipants pane : panes.getPanes().values()) {
+                        size += 8 + size(pane);
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(size);
+                    buffer.put(VERSION);
+                    buffer.putInt(panes.getPanes().size());
+                    for (Map.Entry<Long, RideParticipants> pane : panes.getPanes().entrySet()) {
+                        buffer.putLong(pane.getKey());
+                        write(buffer, pane.getValue());
+                    }
+                    return buffer.array();
+                },
+                (topic, data) -> data == null ? null : read(data, buffer -> {
+                    RideParticipantsPanes panes = new RideParticipantsPanes();
+                    for (int i = buffer.getInt(); i > 0; i--) {
+                        panes.getPanes().put(buffer.getLong(), readParticipants(buffer));
+                    }
+                    return panes;
+                }));
+    }
+
+    private static int size(RideParticipants participants) {
+        return participants.getDrivers().serializedSize() + participants.getRiders().serializedSize();
+    }
+
+    private static void write(ByteBuffer buffer, RideParticipants participants) {
+        participants.getDrivers().writeTo(buffer);
+        participants.getRiders().writeTo(buffer);
+    }
+
+    private static RideParticipants readParticipants(ByteBuffer buffer) {
+        return new RideParticipants(HyperLogLog.readFrom(buffer), HyperLogLog.readFrom(buffer));
+    }
+
+    private static <T> T read(byte[] data, Function<ByteBuffer, T> reader) {
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new SerializationException("Unsupported ride participants payload");
+        }
+        try {
+            return reader.apply(ByteBuffer.wrap(data, 1, data.length - 1));
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Malformed ride participants payload", e);
+        }
+    }
+}
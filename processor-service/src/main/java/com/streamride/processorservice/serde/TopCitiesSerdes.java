@@ -0,0 +1,113 @@
+package com.streamride.processorservice.serde;
+
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.TopCitiesPartial;
+import com.streamride.processorservice.model.TopCitiesState;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary serdes for the two-level top cities state.
+ *
+ * A city list is an int count followed by (modified UTF-8 city, long count)
+ * pairs; the global state is a version byte and a list of (partition, city list).
+ */
+public final class TopCitiesSerdes {
+
+    private static final byte VERSION = 1;
+
+    private TopCitiesSerdes() {
+        // Utility class
+    }
+
+    public static Serde<TopCitiesPartial> partial() {
+        return Serdes.serdeFrom(
+                (topic, partial) -> partial == null ? null : write(out -> {
+                    out.writeByte(VERSION);
+                    out.writeInt(partial.getPartition());
+                    writeCities(out, partial.getCities());
+                }),
+                (topic, data) -> data == null ? null : read(data, in ->
+                        new TopCitiesPartial(in.readInt(), readCities(in))));
+    }
+
+    public static Serde<TopCitiesState> state() {
+        return Serdes.serdeFrom(
+                (topic, state) -> state == null ? null : write(out -> {
+                    out.writeByte(VERSION);
+                    out.writeInt(state.getPartitions().size());
+                    for (Map.Entry<Integer, List<CityCount>> entry : state.getPartitions().entrySet()) {
+                        out.writeInt(entry.getKey());
+                        writeCities(out, entry.getValue());
+                    }
+                }),
+                (topic, data) -> data == null ? null : read(data, in -> {
+                    TopCitiesState state = new TopCitiesState();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        state.merge(new TopCitiesPartial(in.readInt(), readCities(in)));
+                    }
+                    return state;
+                }));
+    }
+
+    private static void writeCities(DataOutputStream out, List<CityCount> cities) throws IOException {
+        out.writeInt(cities.size());
+        for (CityCount city : cities) {
+            out.writeUTF(city.getCity());
+            out.writeLong(city.getCount());
+        }
+    }
+
+    private static List<CityCount> readCities(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<CityCount> cities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cities.add(new CityCount(in.readUTF(), in.readLong()));
+        }
+        return cities;
+    }
+
+    private static byte[] write(Writer writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            writer.write(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(byte[] data, Reader<T> reader) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported top cities format version " + version);
+            }
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new SerializationException("Malformed top cities payload", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
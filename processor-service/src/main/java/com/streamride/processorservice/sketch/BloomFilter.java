@@ -0,0 +1,83 @@
+package com.streamride.processorservice.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter over 64-bit hashes.
+ *
+ * The bit array and probe count are derived from the expected number of
+ * insertions and the target false-positive probability. Probe positions use
+ * 64-bit double hashing of the input hash and a remix of it, so one
+ * {@link Hashing#hash64(CharSequence)} per key serves every probe and every
+ * bit stays addressable even beyond 2^31 bits.
+ *
+ * Not thread-safe.
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int probes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be in (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6)];
+        this.bitCount = (long) bits.length << 6;
+        this.probes = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    public void addHash(long hash) {
+        long h2 = step(hash);
+        long combined = hash;
+        for (int i = 0; i < probes; i++) {
+            combined += h2;
+            long bit = index(combined);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the hash was definitely never added
+     */
+    public boolean mightContainHash(long hash) {
+        long h2 = step(hash);
+        long combined = hash;
+        for (int i = 0; i < probes; i++) {
+            combined += h2;
+            long bit = index(combined);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    public int probes() {
+        return probes;
+    }
+
+    private static long step(long hash) {
+        // Odd, so the step is never zero and probes never repeat one position
+        return Hashing.fmix64(hash ^ Long.rotateLeft(hash, 32)) | 1L;
+    }
+
+    private long index(long combined) {
+        // Clear the sign bit instead of Math.abs, which fails for MIN_VALUE
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+}
@@ -0,0 +1,67 @@
+package com.streamride.processorservice.sketch;
+
+/**
+ * Exponentially weighted moving mean and variance of a single metric.
+ *
+ * Uses the incremental form from West (1979), so an update is a handful of
+ * arithmetic operations on three fields and allocates nothing. During cold
+ * start the weight of a new sample is {@code max(alpha, 1 / n)}: the first
+ * samples are averaged as a plain running mean and the estimate only starts
+ * forgetting once {@code n > 1 / alpha}.
+ *
+ * Not thread-safe.
+ */
+public final class Ewma {
+
+    private long count;
+    private double mean;
+    private double variance;
+
+    public Ewma() {
+    }
+
+    public Ewma(long count, double mean, double variance) {
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+    }
+
+    /**
+     * @param value sample to add
+     * @param alpha steady-state weight of a new sample, in (0, 1]
+     */
+    public void update(double value, double alpha) {
+        count++;
+        double weight = Math.max(alpha, 1.0 / count);
+        double diff = value - mean;
+        double increment = weight * diff;
+        mean += increment;
+        variance = (1 - weight) * (variance + diff * increment);
+    }
+
+    /**
+     * @param value sample to score
+     * @return standard score of the value against the current estimate, or 0
+     *         if the variance is still zero
+     */
+    public double zScore(double value) {
+        double stdDev = getStdDev();
+        return stdDev > 0 ? (value - mean) / stdDev : 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+}
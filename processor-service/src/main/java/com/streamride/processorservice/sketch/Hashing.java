@@ -0,0 +1,37 @@
+package com.streamride.processorservice.sketch;
+
+/**
+ * 64-bit hashing for sketches.
+ *
+ * FNV-1a over the UTF-16 code units, followed by the MurmurHash3 64-bit
+ * finalizer so that every output bit depends on every input bit; FNV-1a alone
+ * leaves the high bits poorly mixed for short, similar IDs such as "D-12345".
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+        // Utility class
+    }
+
+    public static long hash64(CharSequence value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return fmix64(hash);
+    }
+
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
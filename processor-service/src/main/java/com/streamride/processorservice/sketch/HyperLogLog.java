@@ -0,0 +1,134 @@
+package com.streamride.processorservice.sketch;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog distinct-count sketch over 64-bit hashes.
+ *
+ * Uses {@code 2^precision} one-byte registers; the standard error of the
+ * estimate is about {@code 1.04 / sqrt(2^precision)}, 1.6% at the default
+ * precision of 12 (4 KiB of registers). Small cardinalities fall back to
+ * linear counting. With 64-bit hashes no large-range correction is needed.
+ *
+ * Sketches with the same precision merge by taking the register-wise maximum,
+ * so the union of partitions or windows costs one pass over the registers.
+ *
+ * Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final byte VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public HyperLogLog add(CharSequence value) {
+        return addHash(Hashing.hash64(value));
+    }
+
+    public HyperLogLog addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Sentinel bit bounds the rank at 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+        return this;
+    }
+
+    /**
+     * @param other sketch with the same precision
+     * @return this sketch, now estimating the union of both
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches with different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return estimated number of distinct values added
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52); // 2^-register
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision).merge(this);
+    }
+
+    public int serializedSize() {
+        return 2 + registers.length;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(VERSION);
+        buffer.put((byte) precision);
+        buffer.put(registers);
+    }
+
+    public static HyperLogLog readFrom(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported HyperLogLog version " + version);
+            }
+            HyperLogLog sketch = new HyperLogLog(buffer.get());
+            buffer.get(sketch.registers);
+            return sketch;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializationException("Malformed HyperLogLog", e);
+        }
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
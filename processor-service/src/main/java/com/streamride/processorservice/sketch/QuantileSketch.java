@@ -0,0 +1,264 @@
+package com.streamride.processorservice.sketch;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile sketch with a relative error guarantee (DDSketch).
+ *
+ * Positive values are counted in logarithmic buckets of ratio
+ * {@code gamma = (1 + a) / (1 - a)}, so any quantile is returned within a
+ * relative error {@code a} of the true value. Buckets are held in a dense
+ * array capped at {@code maxBins}; if the value range ever needs more, the
+ * lowest buckets are collapsed, which keeps memory fixed per sketch and only
+ * loses accuracy for the smallest values. Values at or below zero share a
+ * single bucket.
+ *
+ * Two sketches with the same parameters merge exactly, so per-partition or
+ * per-window sketches can be combined without touching raw samples.
+ *
+ * Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    private static final byte VERSION = 1;
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final int maxBins;
+    private final double gamma;
+    private final double logGamma;
+
+    // counts for bucket indices [offset, offset + bins.length)
+    private long[] bins = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param relativeAccuracy relative error bound of quantile estimates, in (0, 1)
+     * @param maxBins          maximum number of buckets kept
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        if (maxBins < 1) {
+            throw new IllegalArgumentException("maxBins must be positive");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public QuantileSketch add(double value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value <= MIN_INDEXABLE) {
+            zeroCount++;
+        } else {
+            increment(index(value), 1);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     *
+     * @param other sketch built with the same parameters
+     * @return this sketch
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracy");
+        }
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < other.bins.length; i++) {
+            if (other.bins[i] != 0) {
+                increment(other.offset + i, other.bins[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param q quantile in [0, 1]
+     * @return estimated value at the quantile, or NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("quantile must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        if (rank < zeroCount) {
+            return Math.min(0, max);
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < bins.length; i++) {
+            seen += bins[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private void increment(int index, long n) {
+        if (bins.length == 0) {
+            bins = new long[1];
+            offset = index;
+        } else if (index < offset || index >= offset + bins.length) {
+            resize(Math.min(index, offset), Math.max(index, offset + bins.length - 1));
+        }
+        // Indices below the range were collapsed into its lowest bucket
+        bins[Math.max(index, offset) - offset] += n;
+    }
+
+    private void resize(int low, int high) {
+        if (high - low + 1 > maxBins) {
+            low = high - maxBins + 1;
+        }
+        long[] resized = new long[high - low + 1];
+        for (int i = 0; i < bins.length; i++) {
+            int target = Math.max(offset + i, low) - low;
+            resized[target] += bins[i];
+        }
+        bins = resized;
+        offset = low;
+    }
+
+    /**
+     * @return exact number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public int serializedSize() {
+        int first = firstNonEmpty();
+        int last = lastNonEmpty();
+        int size = 1 + 8 + 4 + 8 + 8 + 8 + 8 + 4 + 4;
+        for (int i = first; i <= last; i++) {
+            size += varLongSize(bins[i]);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the sketch, trimmed to its non-empty buckets, with varint counts.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int first = firstNonEmpty();
+        int last = lastNonEmpty();
+        buffer.put(VERSION);
+        buffer.putDouble(relativeAccuracy);
+        buffer.putInt(maxBins);
+        buffer.putLong(count);
+        buffer.putLong(zeroCount);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(offset + first);
+        buffer.putInt(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            putVarLong(buffer, bins[i]);
+        }
+    }
+
+    public static QuantileSketch readFrom(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported quantile sketch version " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getInt());
+            sketch.count = buffer.getLong();
+            sketch.zeroCount = buffer.getLong();
+            sketch.min = buffer.getDouble();
+            sketch.max = buffer.getDouble();
+            sketch.offset = buffer.getInt();
+            int length = buffer.getInt();
+            if (length < 0 || length > sketch.maxBins) {
+                throw new SerializationException("Invalid quantile sketch bucket count " + length);
+            }
+            sketch.bins = new long[length];
+            for (int i = 0; i < length; i++) {
+                sketch.bins[i] = getVarLong(buffer);
+            }
+            return sketch;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializationException("Malformed quantile sketch", e);
+        }
+    }
+
+    private int firstNonEmpty() {
+        int i = 0;
+        while (i < bins.length && bins[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private int lastNonEmpty() {
+        int i = bins.length - 1;
+        while (i >= 0 && bins[i] == 0) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in quantile sketch");
+    }
+}
@@ -0,0 +1,98 @@
+package com.streamride.processorservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.streamride.processorservice.mapper.MetricsJsonMapper;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.model.CityCount;
+import com.streamride.processorservice.model.CityMetrics;
+import com.streamride.processorservice.serde.AnalyticsMessageSerde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous tree-based output path (an {@code ObjectNode} per
+ * record, rendered with {@code toString()} and encoded by the String serde)
+ * against {@link AnalyticsMessageSerde}, for a flat METRICS message and a
+ * nested TOP_ACTIVE_CITIES message. Run with the GC profiler to see the
+ * allocation rate per record:
+ *
+ * <pre>
+ * cd processor-service
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.openjdk.jmh.Main AnalyticsMessageSerializationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsMessageSerializationBenchmark {
+
+    private static final String TOPIC = "rides.analytics";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetricsJsonMapper jsonMapper = new MetricsJsonMapper();
+    private final Serializer<AnalyticsMessage> serializer = new AnalyticsMessageSerde().serializer();
+
+    private CityMetrics metrics;
+    private List<CityCount> topCities;
+
+    @Setup
+    public void setUp() {
+        metrics = new CityMetrics(1_234, 98_765, 12, 184.5, 17.25);
+        topCities = List.of(new CityCount("Bangalore", 812), new CityCount("Mumbai", 764),
+                new CityCount("Delhi", 701), new CityCount("Hyderabad", 655), new CityCount("Chennai", 402));
+    }
+
+    @Benchmark
+    public byte[] metricsTree() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "METRICS");
+        json.put("activeRides", metrics.getActiveRides());
+        json.put("ridesCompleted", metrics.getRidesCompleted());
+        json.put("avgDuration", 18.4);
+        json.put("ridesExpired", metrics.getRidesExpired());
+        json.put("avgWaitSeconds", metrics.getAvgWaitSeconds());
+        json.put("avgMeasuredDuration", metrics.getAvgMeasuredDuration());
+        json.put("timestamp", System.currentTimeMillis());
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] metricsStreaming() {
+        return serializer.serialize(TOPIC, jsonMapper.createMetricsMessage(metrics, 18.4));
+    }
+
+    @Benchmark
+    public byte[] topCitiesTree() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "TOP_ACTIVE_CITIES");
+        json.putPOJO("cities", topCities);
+        json.put("timestamp", System.currentTimeMillis());
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] topCitiesStreaming() {
+        return serializer.serialize(TOPIC, jsonMapper.createTopCitiesMessage(topCities));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AnalyticsMessageSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.streamride.processorservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails over a stateful task between two instances configured by
+ * {@link KafkaStreamsConfig#putFailoverConfig} and checks that the survivor
+ * takes over from its standby instead of restoring the changelog.
+ */
+class StandbyFailoverTest {
+
+    private static final String INPUT = "failover-input";
+    private static final String STORE = "failover-counts";
+    private static final int KEYS = 100;
+    private static final int RECORDS = 50_000;
+    private static final int SESSION_TIMEOUT_MS = 6_000;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private final List<KafkaStreams> instances = new ArrayList<>();
+
+    @BeforeEach
+    void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 2, INPUT);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void stop() {
+        instances.forEach(streams -> streams.close(Duration.ofSeconds(10)));
+        broker.destroy();
+    }
+
+    @Test
+    void survivorResumesFromStandbyWithinSeconds(@TempDir Path stateA, @TempDir Path stateB) {
+        produce(0, RECORDS);
+
+        KafkaStreams first = start(stateA, new RestoreProgressListener(new SimpleMeterRegistry()));
+        await().atMost(Duration.ofSeconds(60)).until(() -> total(first, false) == RECORDS);
+
+        RestoreProgressListener survivorRestores = new RestoreProgressListener(new SimpleMeterRegistry());
+        KafkaStreams survivor = start(stateB, survivorRestores);
+        // The newcomer is far behind the changelog, so it gets standbys while the first instance stays active
+        await().atMost(Duration.ofSeconds(60)).until(() -> total(survivor, true) == RECORDS);
+
+        first.close(Duration.ofSeconds(10));
+        long failedAt = System.nanoTime();
+        produce(RECORDS, KEYS);
+
+        await().atMost(Duration.ofSeconds(60)).pollInterval(Duration.ofMillis(100))
+                .until(() -> total(survivor, false) == RECORDS + KEYS);
+        long failoverMs = (System.nanoTime() - failedAt) / 1_000_000;
+
+        // Session timeout plus a rebalance; a restore of the full changelog is not needed
+        assertTrue(failoverMs < SESSION_TIMEOUT_MS + 20_000, "failover took " + failoverMs + " ms");
+        assertTrue(survivorRestores.restoredRecords(STORE) < RECORDS / 10,
+                "survivor restored " + survivorRestores.restoredRecords(STORE) + " records");
+    }
+
+    private KafkaStreams start(Path stateDir, RestoreProgressListener restoreListener) {
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.stream(INPUT, Consumed.with(Serdes.String(), Serdes.String()))
+                .groupByKey()
+                // Without caching every update reaches the changelog, so a full restore would be slow
+                .count(Materialized.<String, Long, KeyValueStore<Bytes, byte[]>>as(STORE).withCachingDisabled());
+        Topology topology = builder.build();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "standby-failover-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        config.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass());
+        config.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass());
+        config.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 100);
+        config.put(StreamsConfig.consumerPrefix("auto.offset.reset"), "earliest");
+        KafkaStreamsConfig.putFailoverConfig(config, 1, 2, 10_000, "", SESSION_TIMEOUT_MS);
+        Properties props = new Properties();
+        props.putAll(config);
+
+        KafkaStreams streams = new KafkaStreams(topology, props);
+        streams.setGlobalStateRestoreListener(restoreListener);
+        instances.add(streams);
+        streams.start();
+        return streams;
+    }
+
+    private long total(KafkaStreams streams, boolean includeStandby) {
+        StoreQueryParameters<ReadOnlyKeyValueStore<String, Long>> query = StoreQueryParameters
+                .fromNameAndType(STORE, QueryableStoreTypes.keyValueStore());
+        try (KeyValueIterator<String, Long> it = streams.store(includeStandby ? query.enableStaleStores() : query).all()) {
+            long total = 0;
+            while (it.hasNext()) {
+                KeyValue<String, Long> entry = it.next();
+                total += entry.value;
+            }
+            return total;
+        } catch (InvalidStateStoreException e) {
+            return -1;
+        }
+    }
+
+    private void produce(int from, int count) {
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(config)) {
+            for (int i = from; i < from + count; i++) {
+                producer.send(new ProducerRecord<>(INPUT, "k" + (i % KEYS), "v" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.streamride.processorservice.processor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.processor.api.MockProcessorContext;
+import org.apache.kafka.streams.processor.api.MockProcessorContext.CapturedForward;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.TimestampedKeyValueStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingProcessorTest {
+
+    private static final String STORE = "upstream-store";
+    private static final Duration EMIT_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration TICK = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Counter suppressed = registry.counter("suppressed");
+    private final Counter emitted = registry.counter("emitted");
+
+    private MockProcessorContext<String, Long> context;
+    private TimestampedKeyValueStore<String, String> store;
+
+    @BeforeEach
+    void setUp() {
+        context = new MockProcessorContext<>();
+        store = Stores.timestampedKeyValueStoreBuilder(Stores.inMemoryKeyValueStore(STORE),
+                Serdes.String(), Serdes.String()).withLoggingDisabled().build();
+        store.init(context.getStateStoreContext(), store);
+        context.addStateStore(store);
+    }
+
+    @Test
+    void initReseedsEveryKeyFromTheUpstreamStore() {
+        store.put("Pune", ValueAndTimestamp.make("7", 100L));
+        store.put("Delhi", ValueAndTimestamp.make("12", 200L));
+
+        CoalescingProcessor<Long> processor = processor();
+        processor.init(context);
+        tick(0);
+
+        assertEquals(List.of(new Record<>("Delhi", 12L, 200L), new Record<>("Pune", 7L, 100L)),
+                forwarded());
+        assertEquals(2, emitted.count());
+    }
+
+    @Test
+    void updateAfterInitReplacesTheSeededValue() {
+        store.put("Pune", ValueAndTimestamp.make("7", 100L));
+
+        CoalescingProcessor<Long> processor = processor();
+        processor.init(context);
+        processor.process(new Record<>("Pune", 8L, 300L));
+        tick(0);
+
+        assertEquals(List.of(new Record<>("Pune", 8L, 300L)), forwarded());
+    }
+
+    @Test
+    void emitsLatestValueAtMostOncePerInterval() {
+        CoalescingProcessor<Long> processor = processor();
+        processor.init(context);
+        processor.process(new Record<>("Pune", 1L, 10L));
+        tick(0);
+        processor.process(new Record<>("Pune", 2L, 20L));
+        processor.process(new Record<>("Pune", 3L, 30L));
+        tick(500);
+        assertEquals(List.of(new Record<>("Pune", 1L, 10L)), forwarded());
+
+        tick(1_000);
+
+        assertEquals(List.of(new Record<>("Pune", 1L, 10L), new Record<>("Pune", 3L, 30L)), forwarded());
+        assertEquals(1, suppressed.count());
+    }
+
+    @Test
+    void emptyStoreSeedsNothing() {
+        CoalescingProcessor<Long> processor = processor();
+        processor.init(context);
+        tick(0);
+
+        assertTrue(forwarded().isEmpty());
+    }
+
+    private CoalescingProcessor<Long> processor() {
+        return new CoalescingProcessor<>(EMIT_INTERVAL, TICK, suppressed, emitted,
+                new CoalescingProcessor.Seed<String, Long>(STORE, Long::valueOf));
+    }
+
+    private void tick(long now) {
+        context.scheduledPunctuators().forEach(p -> p.getPunctuator().punctuate(now));
+    }
+
+    private List<Record<String, Long>> forwarded() {
+        return context.forwarded().stream()
+                .map(CapturedForward::record)
+                .map(record -> new Record<String, Long>(record.key(), record.value(), record.timestamp()))
+                .toList();
+    }
+}
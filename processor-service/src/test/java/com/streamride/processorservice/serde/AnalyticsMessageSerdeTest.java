@@ -0,0 +1,246 @@
+package com.streamride.processorservice.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.streamride.processorservice.message.ActiveDriversMessage;
+import com.streamride.processorservice.message.AnalyticsMessage;
+import com.streamride.processorservice.message.AnomalyMessage;
+import com.streamride.processorservice.message.CityActiveRidesMessage;
+import com.streamride.processorservice.message.HeatmapMessage;
+import com.streamride.processorservice.message.MetricsMessage;
+import com.streamride.processorservice.message.RidePercentilesMessage;
+import com.streamride.processorservice.message.RidePercentilesMessage.Percentiles;
+import com.streamride.processorservice.message.TopCitiesMessage;
+import com.streamride.processorservice.model.CityCount;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the streaming serializer against the ObjectNode trees the mappers
+ * built before it, byte for byte, so the dashboard sees the same wire format.
+ */
+class AnalyticsMessageSerdeTest {
+
+    private static final String TOPIC = "rides.analytics";
+    private static final long TIMESTAMP = 1_760_000_000_123L;
+    // Needs escaping in JSON and is not ASCII
+    private static final String AWKWARD_CITY = "S\u00E3o \"Paulo\"\t\\";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Serializer<AnalyticsMessage> serializer = new AnalyticsMessageSerde().serializer();
+    private final Deserializer<AnalyticsMessage> deserializer = new AnalyticsMessageSerde().deserializer();
+
+    @Test
+    void metricsMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "METRICS");
+        json.put("activeRides", 1_234L);
+        json.put("ridesCompleted", 98_765L);
+        json.put("avgDuration", 18.4);
+        json.put("ridesExpired", 12L);
+        json.put("avgWaitSeconds", 184.5);
+        json.put("avgMeasuredDuration", 1.0E-7);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new MetricsMessage(1_234, 98_765, 18.4, 12, 184.5, 1.0E-7, TIMESTAMP));
+    }
+
+    @Test
+    void cityActiveRidesMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "CITY_ACTIVE_RIDES");
+        json.put("city", AWKWARD_CITY);
+        json.put("activeRides", 42L);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new CityActiveRidesMessage(AWKWARD_CITY, 42, TIMESTAMP));
+    }
+
+    @Test
+    void topCitiesMatchesTreeOutput() {
+        List<CityCount> cities = List.of(new CityCount("Bangalore", 812), new CityCount(AWKWARD_CITY, 764),
+                new CityCount("Delhi", 0));
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "TOP_ACTIVE_CITIES");
+        json.putPOJO("cities", cities);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new TopCitiesMessage(cities, TIMESTAMP));
+    }
+
+    @Test
+    void emptyTopCitiesMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "TOP_ACTIVE_CITIES");
+        json.putPOJO("cities", List.of());
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new TopCitiesMessage(List.of(), TIMESTAMP));
+    }
+
+    @Test
+    void ridePercentilesMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "RIDE_PERCENTILES");
+        json.put("city", "Pune");
+        json.put("window", "HOPPING");
+        json.put("windowStart", 1_760_000_000_000L);
+        json.put("windowEnd", 1_760_000_300_000L);
+        json.put("rides", 314L);
+        ObjectNode duration = json.putObject("durationMinutes");
+        duration.put("p50", 17.93);
+        duration.put("p95", 41.0);
+        duration.put("p99", 55.123456789);
+        duration.put("max", 60.0);
+        ObjectNode fare = json.putObject("fare");
+        fare.put("p50", 48.2);
+        fare.put("p95", 91.5);
+        fare.put("p99", 98.75);
+        fare.put("max", 1.0E20);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new RidePercentilesMessage("Pune", "HOPPING", 1_760_000_000_000L, 1_760_000_300_000L,
+                314, new Percentiles(17.93, 41.0, 55.123456789, 60.0), new Percentiles(48.2, 91.5, 98.75, 1.0E20),
+                TIMESTAMP));
+    }
+
+    @Test
+    void ridePercentilesWithoutSamplesMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "RIDE_PERCENTILES");
+        json.put("city", "Pune");
+        json.put("window", "TUMBLING");
+        json.put("windowStart", 0L);
+        json.put("windowEnd", 60_000L);
+        json.put("rides", 0L);
+        json.putObject("durationMinutes");
+        json.putObject("fare");
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new RidePercentilesMessage("Pune", "TUMBLING", 0, 60_000, 0, null, null, TIMESTAMP));
+    }
+
+    @Test
+    void activeDriversMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "ACTIVE_DRIVERS");
+        json.put("city", "ALL");
+        json.put("windowStart", 1_760_000_000_000L);
+        json.put("windowEnd", 1_760_000_300_000L);
+        json.put("activeDrivers", 4_888L);
+        json.put("activeRiders", 12_003L);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new ActiveDriversMessage("ALL", 1_760_000_000_000L, 1_760_000_300_000L, 4_888, 12_003,
+                TIMESTAMP));
+    }
+
+    @Test
+    void heatmapMatchesTreeOutput() {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "HEATMAP");
+        json.put("cell", "tek5d");
+        json.put("precision", 5);
+        json.put("requested", 17L);
+        json.put("started", 9L);
+        json.put("completed", 4L);
+        json.put("timestamp", TIMESTAMP);
+
+        assertSameJson(json, new HeatmapMessage("tek5d", 17, 9, 4, TIMESTAMP));
+    }
+
+    @Test
+    void anomalyMatchesTreeOutput() {
+        assertSameJson(anomalyTree(47), new AnomalyMessage(AWKWARD_CITY, "RIDE-0001", 47, "durationMinutes", 47.0,
+                18.25, 6.5, 4.346153846153846, TIMESTAMP));
+    }
+
+    @Test
+    void anomalyWithoutDurationMatchesTreeOutput() {
+        assertSameJson(anomalyTree(null), new AnomalyMessage(AWKWARD_CITY, "RIDE-0001", null, "durationMinutes", 47.0,
+                18.25, 6.5, 4.346153846153846, TIMESTAMP));
+    }
+
+    @Test
+    void failedWriteDoesNotLeakIntoTheNextRecord() {
+        MetricsMessage good = new MetricsMessage(1, 2, 3.5, 4, 5.5, 6.5, TIMESTAMP);
+        byte[] expected = serializer.serialize(TOPIC, good);
+
+        // Fails after the object and its type tag are written
+        AnalyticsMessage broken = new TopCitiesMessage(null, TIMESTAMP);
+        assertThrows(SerializationException.class, () -> serializer.serialize(TOPIC, broken));
+        assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(serializer.serialize(TOPIC, good), StandardCharsets.UTF_8));
+
+        AnalyticsMessage failingIo = generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName("type");
+            throw new IOException("boom");
+        };
+        assertThrows(SerializationException.class, () -> serializer.serialize(TOPIC, failingIo));
+        assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(serializer.serialize(TOPIC, good), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void consecutiveRecordsAreIndependent() {
+        CityActiveRidesMessage first = new CityActiveRidesMessage("Pune", 1, TIMESTAMP);
+        HeatmapMessage second = new HeatmapMessage("tek5d", 1, 2, 3, TIMESTAMP);
+        byte[] secondAlone = new AnalyticsMessageSerde().serializer().serialize(TOPIC, second);
+
+        serializer.serialize(TOPIC, first);
+
+        assertEquals(new String(secondAlone, StandardCharsets.UTF_8),
+                new String(serializer.serialize(TOPIC, second), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void deserializedMessageIsWrittenBackUnchanged() {
+        byte[] data = serializer.serialize(TOPIC, new CityActiveRidesMessage(AWKWARD_CITY, 42, TIMESTAMP));
+
+        byte[] rewritten = serializer.serialize(TOPIC, deserializer.deserialize(TOPIC, data));
+
+        assertEquals(new String(data, StandardCharsets.UTF_8), new String(rewritten, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void nullIsPassedThrough() {
+        assertNull(serializer.serialize(TOPIC, null));
+        assertNull(deserializer.deserialize(TOPIC, null));
+    }
+
+    private ObjectNode anomalyTree(Integer duration) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("type", "ANOMALY");
+        json.put("city", AWKWARD_CITY);
+        json.put("rideId", "RIDE-0001");
+        json.put("duration", duration);
+        json.put("metric", "durationMinutes");
+        json.put("value", 47.0);
+        json.put("mean", 18.25);
+        json.put("stdDev", 6.5);
+        json.put("zScore", 4.346153846153846);
+        json.put("message", String.format("Unusual %s: %.1f against a city mean of %.1f (z=%.1f)",
+                "durationMinutes", 47.0, 18.25, 4.346153846153846));
+        json.put("timestamp", TIMESTAMP);
+        return json;
+    }
+
+    private void assertSameJson(ObjectNode tree, AnalyticsMessage message) {
+        // The previous path: ObjectNode.toString() encoded by the String serde
+        byte[] expected = tree.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] actual = serializer.serialize(TOPIC, message);
+        assertEquals(new String(expected, StandardCharsets.UTF_8), new String(actual, StandardCharsets.UTF_8));
+        assertEquals(expected.length, actual.length);
+    }
+}
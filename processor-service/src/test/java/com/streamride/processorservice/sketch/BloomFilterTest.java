@@ -0,0 +1,66 @@
+package com.streamride.processorservice.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int PROBE_KEYS = 100_000;
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.1, 0.01, 0.001})
+    void falsePositiveRateIsBounded(double falsePositiveProbability) {
+        int expected = 50_000;
+        BloomFilter filter = new BloomFilter(expected, falsePositiveProbability);
+        for (int i = 0; i < expected; i++) {
+            filter.addHash(Hashing.hash64("R-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBE_KEYS; i++) {
+            if (filter.mightContainHash(Hashing.hash64("X-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // Twice the target leaves room for sampling noise at the smallest rate
+        double rate = falsePositives / (double) PROBE_KEYS;
+        assertTrue(rate <= 2 * falsePositiveProbability,
+                "false-positive rate " + rate + " exceeds twice " + falsePositiveProbability);
+    }
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        // Insert past capacity: a saturated filter may lie, but only with false positives
+        for (int i = 0; i < 30_000; i++) {
+            filter.addHash(Hashing.hash64("R-" + i));
+        }
+
+        for (int i = 0; i < 30_000; i++) {
+            assertTrue(filter.mightContainHash(Hashing.hash64("R-" + i)), "missing R-" + i);
+        }
+    }
+
+    @Test
+    void clearForgetsKeys() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        long hash = Hashing.hash64("R-1");
+        filter.addHash(hash);
+        filter.clear();
+
+        assertFalse(filter.mightContainHash(hash));
+    }
+
+    @Test
+    void constructorRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1_000, 1));
+    }
+}
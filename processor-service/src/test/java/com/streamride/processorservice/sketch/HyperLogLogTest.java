@@ -0,0 +1,96 @@
+package com.streamride.processorservice.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static final int PRECISION = 12;
+    // Three standard errors: 3 * 1.04 / sqrt(2^12), about 4.9%
+    private static final double ERROR_BOUND = 3 * 1.04 / Math.sqrt(1 << PRECISION);
+
+    @ParameterizedTest
+    @ValueSource(ints = {100, 1_000, 10_000, 100_000, 1_000_000})
+    void estimateIsWithinErrorBound(int cardinality) {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < cardinality; i++) {
+            sketch.add("D-" + i);
+        }
+
+        double relativeError = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+        assertTrue(relativeError <= ERROR_BOUND,
+                "relative error " + relativeError + " exceeds " + ERROR_BOUND + " at n=" + cardinality);
+    }
+
+    @Test
+    void duplicatesDoNotChangeEstimate() {
+        HyperLogLog once = new HyperLogLog(PRECISION);
+        HyperLogLog repeated = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 5_000; i++) {
+            once.add("R-" + i);
+            for (int r = 0; r < 10; r++) {
+                repeated.add("R-" + i);
+            }
+        }
+
+        assertEquals(once.estimate(), repeated.estimate());
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog all = new HyperLogLog(PRECISION);
+        HyperLogLog left = new HyperLogLog(PRECISION);
+        HyperLogLog right = new HyperLogLog(PRECISION);
+        // Overlapping halves: 0..59999 and 40000..99999
+        for (int i = 0; i < 100_000; i++) {
+            String id = "D-" + i;
+            all.add(id);
+            if (i < 60_000) {
+                left.add(id);
+            }
+            if (i >= 40_000) {
+                right.add(id);
+            }
+        }
+
+        assertEquals(all.estimate(), left.merge(right).estimate());
+        double relativeError = Math.abs(all.estimate() - 100_000) / 100_000.0;
+        assertTrue(relativeError <= ERROR_BOUND);
+    }
+
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void serializationRoundTrips() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 20_000; i++) {
+            sketch.add("D-" + i);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+        sketch.writeTo(buffer);
+        buffer.flip();
+        HyperLogLog restored = HyperLogLog.readFrom(buffer);
+
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(buffer.array(), serialize(restored));
+    }
+
+    private static byte[] serialize(HyperLogLog sketch) {
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+        sketch.writeTo(buffer);
+        return buffer.array();
+    }
+}
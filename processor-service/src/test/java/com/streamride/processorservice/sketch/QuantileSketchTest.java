@@ -0,0 +1,226 @@
+package com.streamride.processorservice.sketch;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+import com.streamride.processorservice.model.RideDistribution;
+import com.streamride.processorservice.serde.RideDistributionSerde;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double ALPHA = 0.01;
+    private static final int MAX_BINS = 2048;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+    // Offset of the bucket count in the serialized form, after the fixed header fields
+    private static final int BUCKET_COUNT_OFFSET = 1 + 8 + 4 + 8 + 8 + 8 + 8 + 4;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"uniform", "exponential", "lognormal"})
+    void quantilesAreWithinRelativeAccuracy(String distribution) {
+        double[] values = sample(distribution, 100_000, 42);
+        QuantileSketch sketch = new QuantileSketch(ALPHA, MAX_BINS);
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        Arrays.sort(values);
+        for (double q : QUANTILES) {
+            assertWithinAlpha(exact(values, q), sketch.quantile(q), distribution + " p" + Math.round(q * 100));
+        }
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(values[0], sketch.getMin());
+        assertEquals(values[values.length - 1], sketch.getMax());
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch(ALPHA, MAX_BINS);
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertEquals(0, sketch.getCount());
+    }
+
+    @Test
+    void nonPositiveValuesShareTheZeroBucket() {
+        QuantileSketch sketch = new QuantileSketch(ALPHA, MAX_BINS);
+        for (int i = 0; i < 60; i++) {
+            sketch.add(0);
+        }
+        for (int i = 1; i <= 40; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(0, sketch.quantile(0.5));
+        // Rank 0.95 * 99 falls on the 35th positive value
+        assertWithinAlpha(35, sketch.quantile(0.95), "p95");
+    }
+
+    @Test
+    void lowestBucketsCollapseAtTheBinLimit() {
+        // gamma^64 is about 3.6, far short of the 1..1000 range
+        int maxBins = 64;
+        QuantileSketch sketch = new QuantileSketch(ALPHA, maxBins);
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+            sketch.add(values[i]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+        sketch.writeTo(buffer);
+        assertTrue(buffer.getInt(BUCKET_COUNT_OFFSET) <= maxBins);
+
+        // The top of the range keeps its accuracy
+        assertWithinAlpha(exact(values, 0.99), sketch.quantile(0.99), "p99");
+        assertWithinAlpha(exact(values, 0.95), sketch.quantile(0.95), "p95");
+        // The bottom is folded into the lowest kept bucket and overestimated
+        assertTrue(sketch.quantile(0.01) > exact(values, 0.01) * (1 + ALPHA));
+        assertEquals(1000, sketch.getCount());
+        assertEquals(1, sketch.getMin());
+        assertEquals(1000, sketch.getMax());
+    }
+
+    @Test
+    void mergeEqualsSingleSketchOfBothStreams() {
+        double[] left = sample("lognormal", 50_000, 1);
+        double[] right = sample("uniform", 30_000, 2);
+        QuantileSketch all = new QuantileSketch(ALPHA, MAX_BINS);
+        QuantileSketch a = new QuantileSketch(ALPHA, MAX_BINS);
+        QuantileSketch b = new QuantileSketch(ALPHA, MAX_BINS);
+        for (double value : left) {
+            all.add(value);
+            a.add(value);
+        }
+        for (double value : right) {
+            all.add(value);
+            b.add(value);
+        }
+
+        QuantileSketch merged = a.merge(b);
+
+        assertArrayEquals(serialize(all), serialize(merged));
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), merged.quantile(q));
+        }
+    }
+
+    @Test
+    void mergeOfEmptySketchIsUnchanged() {
+        QuantileSketch sketch = new QuantileSketch(ALPHA, MAX_BINS);
+        for (double value : sample("exponential", 1_000, 3)) {
+            sketch.add(value);
+        }
+        byte[] before = serialize(sketch);
+
+        sketch.merge(new QuantileSketch(ALPHA, MAX_BINS));
+
+        assertArrayEquals(before, serialize(sketch));
+    }
+
+    @Test
+    void mergeRejectsDifferentAccuracy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new QuantileSketch(0.01, MAX_BINS).merge(new QuantileSketch(0.02, MAX_BINS)));
+    }
+
+    @Test
+    void serializationRoundTrips() {
+        QuantileSketch sketch = new QuantileSketch(ALPHA, MAX_BINS);
+        for (double value : sample("lognormal", 20_000, 4)) {
+            sketch.add(value);
+        }
+        sketch.add(0);
+
+        byte[] data = serialize(sketch);
+        QuantileSketch restored = QuantileSketch.readFrom(ByteBuffer.wrap(data));
+
+        assertEquals(data.length, sketch.serializedSize());
+        assertArrayEquals(data, serialize(restored));
+        assertEquals(sketch.getCount(), restored.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), restored.quantile(q));
+        }
+    }
+
+    @Test
+    void rideDistributionSerdeRoundTrips() {
+        RideDistribution distribution = new RideDistribution(ALPHA, MAX_BINS);
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            RideEvent event = new RideEvent();
+            event.setEventType(EventType.RIDE_COMPLETED);
+            event.setDurationMinutes(1 + random.nextInt(60));
+            event.setFareEstimate(i % 10 == 0 ? null : 10 + random.nextDouble() * 90);
+            distribution.add(event);
+        }
+
+        try (RideDistributionSerde serde = new RideDistributionSerde()) {
+            byte[] data = serde.serializer().serialize("t", distribution);
+            RideDistribution restored = serde.deserializer().deserialize("t", data);
+
+            assertArrayEquals(data, serde.serializer().serialize("t", restored));
+            assertEquals(10_000, restored.getDurationMinutes().getCount());
+            assertEquals(9_000, restored.getFare().getCount());
+            for (double q : QUANTILES) {
+                assertEquals(distribution.getDurationMinutes().quantile(q), restored.getDurationMinutes().quantile(q));
+                assertEquals(distribution.getFare().quantile(q), restored.getFare().quantile(q));
+            }
+        }
+    }
+
+    @Test
+    void rideDistributionSerdeRejectsUnknownVersion() {
+        try (RideDistributionSerde serde = new RideDistributionSerde()) {
+            byte[] data = serde.serializer().serialize("t", new RideDistribution(ALPHA, MAX_BINS));
+            data[0] = 2;
+
+            assertThrows(SerializationException.class, () -> serde.deserializer().deserialize("t", data));
+        }
+    }
+
+    private static void assertWithinAlpha(double expected, double actual, String label) {
+        double relativeError = Math.abs(actual - expected) / expected;
+        // Small slack for floating-point rounding at bucket boundaries
+        assertTrue(relativeError <= ALPHA + 1e-9,
+                label + ": relative error " + relativeError + " exceeds " + ALPHA
+                        + " (expected " + expected + ", got " + actual + ")");
+    }
+
+    private static double exact(double[] sorted, double q) {
+        // Same rank convention as QuantileSketch.quantile
+        return sorted[(int) Math.floor(q * (sorted.length - 1))];
+    }
+
+    private static double[] sample(String distribution, int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = switch (distribution) {
+                case "uniform" -> 1 + random.nextDouble() * 59;
+                case "exponential" -> -Math.log(1 - random.nextDouble()) * 20;
+                case "lognormal" -> Math.exp(3 + random.nextGaussian());
+                default -> throw new IllegalArgumentException(distribution);
+            };
+        }
+        return values;
+    }
+
+    private static byte[] serialize(QuantileSketch sketch) {
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+        sketch.writeTo(buffer);
+        return buffer.array();
+    }
+}
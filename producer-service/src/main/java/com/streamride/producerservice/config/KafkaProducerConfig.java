@@ -3,6 +3,8 @@ package com.streamride.producerservice.config;
 import com.streamride.model.*;
 import com.streamride.model.RideEvent;
 import com.streamride.model.config.KafkaTopics;
+import com.streamride.model.serde.RideEventBinarySerializer;
+import com.streamride.model.serde.RideEventWireFormat;
 import com.streamride.producerservice.service.RideEventGenerator;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -26,6 +28,23 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Throughput tuning - sized for the load generation mode, harmless for the scheduled trickle
+    @Value("${streamride.producer.batch-size:131072}")
+    private int batchSize;
+
+    @Value("${streamride.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${streamride.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${streamride.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+
+    // BINARY (compact commons codec) or JSON (legacy fallback)
+    @Value("${streamride.serialization.format:BINARY}")
+    private String serializationFormat;
+
     @Autowired
     RideEventGenerator rideEventGenerator;
 
@@ -34,9 +53,19 @@ public class KafkaProducerConfig {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                RideEventWireFormat.parse(serializationFormat) == RideEventWireFormat.BINARY
+                        ? RideEventBinarySerializer.class
+                        : JsonSerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all");
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
+        // Idempotence keeps retried batches from being written twice (requires acks=all, in-flight <= 5)
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
         config.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
         return new DefaultKafkaProducerFactory<>(config);
     }
@@ -50,4 +79,4 @@ public class KafkaProducerConfig {
     public NewTopic ridesEventsTopic() {
         return new NewTopic(KafkaTopics.RIDES_EVENTS, rideEventGenerator.cities.size(), (short) 1);
     }
-}
\ No newline at end of file
+}
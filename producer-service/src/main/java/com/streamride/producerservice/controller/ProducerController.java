@@ -1,7 +1,13 @@
 package com.streamride.producerservice.controller;
 
+import com.streamride.producerservice.model.LoadTestReport;
+import com.streamride.producerservice.model.LoadTestRequest;
+import com.streamride.producerservice.service.LoadGenerator;
+import com.streamride.producerservice.service.RideEventGenerator;
 import com.streamride.producerservice.service.RideEventProducer;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +19,8 @@ import java.util.Map;
 public class ProducerController {
 
     private final RideEventProducer simulator;
+    private final LoadGenerator loadGenerator;
+    private final RideEventGenerator generator;
 
     @PostMapping("/start")
     public ResponseEntity<Map<String, String>> startProducer() {
@@ -30,7 +38,29 @@ public class ProducerController {
     public ResponseEntity<Map<String, Object>> getStatus() {
         return ResponseEntity.ok(Map.of(
             "running", simulator.isRunning(),
-            "status", simulator.isRunning() ? "active" : "inactive"
+            "status", simulator.isRunning() ? "active" : "inactive",
+            "ridesInFlight", generator.ridesInFlight()
         ));
     }
-}
\ No newline at end of file
+
+    @PostMapping("/load/start")
+    public ResponseEntity<?> startLoad(@Valid @RequestBody LoadTestRequest request) {
+        try {
+            return ResponseEntity.ok(loadGenerator.start(request));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("status", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/load/stop")
+    public ResponseEntity<LoadTestReport> stopLoad() {
+        LoadTestReport report = loadGenerator.stop();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/load/status")
+    public ResponseEntity<LoadTestReport> getLoadStatus() {
+        LoadTestReport report = loadGenerator.report();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+}
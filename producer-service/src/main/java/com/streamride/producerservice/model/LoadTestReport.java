@@ -0,0 +1,29 @@
+package com.streamride.producerservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress and outcome of a load generation run.
+ * The achieved rate counts acknowledged sends only.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestReport {
+    private boolean running;
+    private int workers;
+    private int maxInFlight;
+    private long targetEventsPerSecond;
+    private double achievedEventsPerSecond;
+    private double achievedPercentOfTarget;
+    private long sent;
+    private long acknowledged;
+    private long failed;
+    private long inFlight;
+    private double elapsedSeconds;
+    private long durationSeconds;
+}
@@ -0,0 +1,35 @@
+package com.streamride.producerservice.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parameters for a load generation run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestRequest {
+
+    @NotNull
+    @Min(1)
+    private Integer targetEventsPerSecond;
+
+    @NotNull
+    @Min(1)
+    private Integer durationSeconds;
+
+    @Min(1)
+    @Max(64)
+    private Integer workers;
+
+    // Upper bound on sends awaiting a broker ack; falls back to the configured default
+    @Min(1)
+    private Integer maxInFlight;
+}
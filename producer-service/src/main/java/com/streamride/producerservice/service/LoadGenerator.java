@@ -0,0 +1,280 @@
+package com.streamride.producerservice.service;
+
+import com.streamride.model.RideEvent;
+import com.streamride.model.config.KafkaTopics;
+import com.streamride.producerservice.model.LoadTestReport;
+import com.streamride.producerservice.model.LoadTestRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * High-throughput load generation for the rides.events topic.
+ *
+ * Each run splits the target rate evenly across worker threads. Workers pace
+ * themselves against the schedule (events due since the run started) rather than
+ * sleeping per event, so sub-microsecond intervals stay accurate. Sends are
+ * asynchronous; a semaphore caps the number awaiting a broker ack so a slow
+ * cluster applies backpressure instead of filling the producer buffer.
+ */
+@Slf4j
+@Service
+public class LoadGenerator {
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final KafkaTemplate<String, RideEvent> kafkaTemplate;
+    private final RideEventGenerator generator;
+    private final int defaultWorkers;
+    private final int defaultMaxInFlight;
+
+    private final AtomicReference<LoadRun> currentRun = new AtomicReference<>();
+
+    public LoadGenerator(KafkaTemplate<String, RideEvent> kafkaTemplate,
+                         RideEventGenerator generator,
+                         @Value("${streamride.producer.load.workers:4}") int defaultWorkers,
+                         @Value("${streamride.producer.load.max-in-flight:10000}") int defaultMaxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.generator = generator;
+        this.defaultWorkers = defaultWorkers;
+        this.defaultMaxInFlight = defaultMaxInFlight;
+    }
+
+    /**
+     * Starts a new load run.
+     *
+     * @param request target rate, duration and worker count
+     * @return initial report for the run
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public LoadTestReport start(LoadTestRequest request) {
+        int workers = request.getWorkers() != null ? request.getWorkers() : defaultWorkers;
+        int maxInFlight = request.getMaxInFlight() != null ? request.getMaxInFlight() : defaultMaxInFlight;
+        LoadRun run = new LoadRun(request.getTargetEventsPerSecond(), request.getDurationSeconds(), workers, maxInFlight);
+
+        LoadRun previous = currentRun.get();
+        if ((previous != null && previous.isActive()) || !currentRun.compareAndSet(previous, run)) {
+            throw new IllegalStateException("A load run is already in progress");
+        }
+
+        run.start();
+        log.info("Load run started: target={} events/s, duration={}s, workers={}, maxInFlight={}",
+                run.targetRate, run.durationSeconds, workers, maxInFlight);
+        return run.report();
+    }
+
+    /**
+     * Stops the current run, if any, and waits for in-flight sends to complete.
+     *
+     * @return final report, or null if no run was ever started
+     */
+    public LoadTestReport stop() {
+        LoadRun run = currentRun.get();
+        if (run == null) {
+            return null;
+        }
+        run.stop();
+        return run.report();
+    }
+
+    /**
+     * @return report for the current or most recent run, or null if none
+     */
+    public LoadTestReport report() {
+        LoadRun run = currentRun.get();
+        return run == null ? null : run.report();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        LoadRun run = currentRun.get();
+        if (run != null) {
+            run.stop();
+        }
+    }
+
+    /**
+     * State of a single load run.
+     */
+    private final class LoadRun {
+
+        private final long targetRate;
+        private final long durationSeconds;
+        private final int workers;
+        private final int maxInFlight;
+
+        private final Semaphore inFlight;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final ExecutorService executor;
+
+        private volatile long startNanos;
+        private volatile long deadlineNanos;
+        private volatile long finishNanos;
+
+        private LoadRun(long targetRate, long durationSeconds, int workers, int maxInFlight) {
+            this.targetRate = targetRate;
+            this.durationSeconds = durationSeconds;
+            this.workers = workers;
+            this.maxInFlight = maxInFlight;
+            this.inFlight = new Semaphore(maxInFlight);
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "load-worker-" + threadIndex.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private boolean isActive() {
+            return finishNanos == 0;
+        }
+
+        private void start() {
+            startNanos = System.nanoTime();
+            deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+            running.set(true);
+            activeWorkers.set(workers);
+
+            double ratePerWorker = (double) targetRate / workers;
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    try {
+                        runWorker(ratePerWorker);
+                    } finally {
+                        if (activeWorkers.decrementAndGet() == 0) {
+                            finish();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+        }
+
+        private void runWorker(double ratePerWorker) {
+            double ratePerNano = ratePerWorker / 1_000_000_000d;
+            long issued = 0;
+
+            while (running.get()) {
+                long now = System.nanoTime();
+                if (now >= deadlineNanos) {
+                    break;
+                }
+
+                long due = (long) ((now - startNanos) * ratePerNano);
+                if (issued >= due) {
+                    // Ahead of schedule - park until the next event is due
+                    long nextDueNanos = startNanos + (long) ((issued + 1) / ratePerNano);
+                    LockSupport.parkNanos(Math.min(nextDueNanos - now, MAX_PARK_NANOS));
+                    continue;
+                }
+
+                while (issued < due && running.get() && System.nanoTime() < deadlineNanos) {
+                    if (!acquirePermit()) {
+                        break;
+                    }
+                    send();
+                    issued++;
+                }
+            }
+        }
+
+        private boolean acquirePermit() {
+            try {
+                return inFlight.tryAcquire(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.set(false);
+                return false;
+            }
+        }
+
+        private void send() {
+            RideEvent event = generator.nextEvent();
+            try {
+                kafkaTemplate.send(KafkaTopics.RIDES_EVENTS, event.getCity(), event)
+                        .whenComplete((result, ex) -> {
+                            inFlight.release();
+                            if (ex == null) {
+                                acknowledged.increment();
+                            } else {
+                                failed.increment();
+                            }
+                        });
+                sent.increment();
+            } catch (Exception e) {
+                inFlight.release();
+                failed.increment();
+                log.debug("Send failed during load run", e);
+            }
+        }
+
+        private void finish() {
+            running.set(false);
+            kafkaTemplate.flush();
+            try {
+                if (inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    inFlight.release(maxInFlight);
+                } else {
+                    log.warn("Timed out waiting for {} in-flight sends", maxInFlight - inFlight.availablePermits());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finishNanos = System.nanoTime();
+            LoadTestReport report = report();
+            log.info("Load run finished: target={} events/s, achieved={} events/s ({}%), acked={}, failed={}",
+                    report.getTargetEventsPerSecond(),
+                    String.format("%.1f", report.getAchievedEventsPerSecond()),
+                    String.format("%.1f", report.getAchievedPercentOfTarget()),
+                    report.getAcknowledged(), report.getFailed());
+        }
+
+        private void stop() {
+            running.set(false);
+            try {
+                executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private LoadTestReport report() {
+            long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+            double elapsedSeconds = Math.max(end - startNanos, 1) / 1_000_000_000d;
+            long acked = acknowledged.sum();
+            double achievedRate = acked / elapsedSeconds;
+
+            return LoadTestReport.builder()
+                    .running(isActive())
+                    .workers(workers)
+                    .maxInFlight(maxInFlight)
+                    .targetEventsPerSecond(targetRate)
+                    .achievedEventsPerSecond(achievedRate)
+                    .achievedPercentOfTarget(targetRate == 0 ? 0.0 : achievedRate * 100.0 / targetRate)
+                    .sent(sent.sum())
+                    .acknowledged(acked)
+                    .failed(failed.sum())
+                    .inFlight(maxInFlight - inFlight.availablePermits())
+                    .elapsedSeconds(elapsedSeconds)
+                    .durationSeconds(durationSeconds)
+                    .build();
+        }
+    }
+}
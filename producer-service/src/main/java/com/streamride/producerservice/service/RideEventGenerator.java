@@ -1,32 +1,82 @@
 package com.streamride.producerservice.service;
 
 import com.streamride.model.RideEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
+/**
+ * Source of ride events for the producer.
+ *
+ * Events come from a set of {@link RideLifecycleSimulator} shards, so every
+ * RIDE_STARTED and RIDE_COMPLETED refers to a ride that was previously requested.
+ * Callers are mapped to a shard by thread id; each shard has its own lock, which
+ * keeps load workers from contending with each other.
+ *
+ * Each calling thread gets one reusable {@link RideEvent}; {@link #nextEvent()}
+ * overwrites and returns it. KafkaTemplate serializes the value on the sending
+ * thread before send() returns, so the instance is free again by the next call.
+ */
 @Component
 public class RideEventGenerator {
 
-    private final List<String> eventTypes = Arrays.asList(
-            "ride_requested", "ride_started", "ride_completed", "driver_location_update"
-    );
-
     public final List<String> cities = Arrays.asList(
             "Bangalore", "Hyderabad", "Mumbai", "Delhi"
     );
 
+    private final RideLifecycleSimulator[] shards;
+    private final ThreadLocal<RideEvent> reusableEvent = ThreadLocal.withInitial(RideEvent::new);
+
+    public RideEventGenerator(
+            @Value("${streamride.producer.simulator.capacity:1000000}") int capacity,
+            @Value("${streamride.producer.simulator.shards:0}") int shardCount,
+            @Value("${streamride.producer.simulator.drivers:100000}") int drivers,
+            @Value("${streamride.producer.simulator.riders:1000000}") int riders,
+            @Value("${streamride.producer.simulator.location-update-share:0.8}") double locationUpdateShare,
+            @Value("${streamride.producer.simulator.time-scale:1.0}") double timeScale) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        String[] cityArray = cities.toArray(new String[0]);
+        RideIds ids = new RideIds(drivers, riders);
+
+        this.shards = new RideLifecycleSimulator[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new RideLifecycleSimulator(cityArray, Math.max(1, capacity / count), ids,
+                    locationUpdateShare, timeScale, "RIDE-" + runId + "-" + i, System.nanoTime() + i);
+        }
+    }
+
     public List<String> getCities() {
         return cities;
     }
 
-    private final Random random = new Random();
+    /**
+     * Returns the next event of the simulated fleet.
+     * The instance is reused by the calling thread and only valid until its next call.
+     *
+     * @return the next ride event
+     */
+    public RideEvent nextEvent() {
+        RideEvent event = reusableEvent.get();
+        RideLifecycleSimulator shard = shards[(int) (Thread.currentThread().getId() % shards.length)];
+        synchronized (shard) {
+            shard.nextEvent(System.currentTimeMillis(), event);
+        }
+        return event;
+    }
 
-    public RideEvent generateRandomEvent() {
-        String eventType = eventTypes.get(random.nextInt(eventTypes.size()));
-        String city = cities.get(random.nextInt(cities.size()));
-        return RideEvent.random(eventType, city);
+    /**
+     * @return number of rides currently requested or started across all shards
+     */
+    public long ridesInFlight() {
+        long total = 0;
+        for (RideLifecycleSimulator shard : shards) {
+            synchronized (shard) {
+                total += shard.ridesInFlight();
+            }
+        }
+        return total;
     }
 }
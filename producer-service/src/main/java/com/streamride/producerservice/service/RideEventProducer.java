@@ -26,9 +26,9 @@ public class RideEventProducer {
         if (!running.get()) {
             return;
         }
-        RideEvent event = generator.generateRandomEvent();
+        RideEvent event = generator.nextEvent();
         kafkaTemplate.send(TOPIC, event.getCity(), event);
-        log.info("🚕 Produced event: {}", event);
+        log.debug("🚕 Produced event: {}", event);
     }
 
     public void start() {
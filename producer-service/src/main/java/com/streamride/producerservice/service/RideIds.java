@@ -0,0 +1,45 @@
+package com.streamride.producerservice.service;
+
+/**
+ * Shared tables of driver and rider ID strings.
+ *
+ * Entries are built on first use and then reused for every event of that driver
+ * or rider. Population is racy but benign: Strings are immutable and safely
+ * published, so at worst two threads build the same ID once each.
+ */
+final class RideIds {
+
+    private final String[] drivers;
+    private final String[] riders;
+
+    RideIds(int driverPool, int riderPool) {
+        this.drivers = new String[driverPool];
+        this.riders = new String[riderPool];
+    }
+
+    String driver(int index) {
+        String id = drivers[index];
+        if (id == null) {
+            id = "DRIVER-" + index;
+            drivers[index] = id;
+        }
+        return id;
+    }
+
+    String rider(int index) {
+        String id = riders[index];
+        if (id == null) {
+            id = "RIDER-" + index;
+            riders[index] = id;
+        }
+        return id;
+    }
+
+    int driverPool() {
+        return drivers.length;
+    }
+
+    int riderPool() {
+        return riders.length;
+    }
+}
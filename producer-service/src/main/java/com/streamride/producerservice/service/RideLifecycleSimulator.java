@@ -0,0 +1,318 @@
+package com.streamride.producerservice.service;
+
+import com.streamride.model.EventType;
+import com.streamride.model.RideEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Stateful simulator that moves rides through requested -> started -> completed.
+ *
+ * Ride state is held as parallel primitive arrays indexed by slot (under 50 bytes
+ * per ride, plus the ride's ID string), so a single shard can keep millions of
+ * rides in flight without per-ride state objects. Pending transitions sit in a hashed timing wheel with one
+ * bucket per simulated second; buckets are intrusive linked lists threaded through
+ * {@code wheelNext}, so scheduling and polling are O(1) and allocation-free.
+ *
+ * Each call to {@link #nextEvent(long, RideEvent)} emits exactly one event: a due
+ * transition if there is one, otherwise either a location update for an in-flight
+ * ride or a new ride request. Events are written into a caller-supplied instance;
+ * ride IDs are built once per ride, driver and rider IDs come from a shared
+ * {@link RideIds} table, fares from a per-minute table and timestamps from a
+ * per-second cache (the wire format has second precision), so the steady-state
+ * garbage per event is the two boxed coordinates.
+ *
+ * Not thread-safe; {@link RideEventGenerator} guards each shard.
+ */
+class RideLifecycleSimulator {
+
+    private static final byte FREE = 0;
+    private static final byte REQUESTED = 1;
+    private static final byte STARTED = 2;
+
+    private static final int NIL = -1;
+    private static final int WHEEL_SIZE = 1 << 13; // ~2.3h of simulated seconds
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // Average city speed in km per minute (~24 km/h) used to derive distance
+    private static final double KM_PER_MINUTE = 0.4;
+
+    private static final double[][] CITY_CENTERS = {
+            {12.9716, 77.5946}, // Bangalore
+            {17.3850, 78.4867}, // Hyderabad
+            {19.0760, 72.8777}, // Mumbai
+            {28.7041, 77.1025}  // Delhi
+    };
+    private static final double[] DEFAULT_CENTER = {20.5937, 78.9629};
+
+    private static final int MAX_RIDE_MINUTES = 120;
+    private static final Double[] FARES = new Double[MAX_RIDE_MINUTES + 1];
+
+    static {
+        for (int minutes = 0; minutes <= MAX_RIDE_MINUTES; minutes++) {
+            FARES[minutes] = 10 + minutes * KM_PER_MINUTE * 2.5;
+        }
+    }
+
+    private final String[] cities;
+    private final double[][] centers;
+    private final RideIds ids;
+    private final double locationUpdateShare;
+    private final double timeScale;
+    private final byte[] idBuffer;
+    private final int idPrefixLength;
+    private final SplittableRandom random;
+    private final long epochMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private long cachedSecond = Long.MIN_VALUE;
+    private LocalDateTime cachedTimestamp;
+
+    // Per-ride state, one entry per slot
+    private final String[] rideId;
+    private final byte[] phase;
+    private final byte[] city;
+    private final int[] driver;
+    private final int[] rider;
+    private final int[] startedAt;
+    private final int[] dueAt;
+    private final short[] plannedMinutes;
+    private final float[] latitude;
+    private final float[] longitude;
+
+    // Dense list of in-flight slots for O(1) random selection
+    private final int[] active;
+    private final int[] activeIndex;
+    private int activeCount;
+
+    // Stack of free slots
+    private final int[] free;
+    private int freeCount;
+
+    // Timing wheel: bucket heads plus a per-slot next pointer
+    private final int[] wheelHead = new int[WHEEL_SIZE];
+    private final int[] wheelNext;
+    private int readyHead = NIL;
+    private int cursor;
+
+    private long nextSeq;
+
+    RideLifecycleSimulator(String[] cities, int capacity, RideIds ids,
+                           double locationUpdateShare, double timeScale, String idPrefix, long seed) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.cities = cities;
+        this.centers = new double[cities.length][];
+        for (int i = 0; i < cities.length; i++) {
+            centers[i] = i < CITY_CENTERS.length ? CITY_CENTERS[i] : DEFAULT_CENTER;
+        }
+        this.ids = ids;
+        this.locationUpdateShare = locationUpdateShare;
+        this.timeScale = timeScale;
+        byte[] prefix = idPrefix.getBytes(StandardCharsets.ISO_8859_1);
+        this.idBuffer = Arrays.copyOf(prefix, prefix.length + 14); // '-' + up to 13 base-36 digits
+        this.idBuffer[prefix.length] = '-';
+        this.idPrefixLength = prefix.length + 1;
+        this.random = new SplittableRandom(seed);
+        this.epochMillis = System.currentTimeMillis();
+
+        this.rideId = new String[capacity];
+        this.phase = new byte[capacity];
+        this.city = new byte[capacity];
+        this.driver = new int[capacity];
+        this.rider = new int[capacity];
+        this.startedAt = new int[capacity];
+        this.dueAt = new int[capacity];
+        this.plannedMinutes = new short[capacity];
+        this.latitude = new float[capacity];
+        this.longitude = new float[capacity];
+        this.active = new int[capacity];
+        this.activeIndex = new int[capacity];
+        this.wheelNext = new int[capacity];
+        this.free = new int[capacity];
+
+        Arrays.fill(wheelHead, NIL);
+        for (int slot = 0; slot < capacity; slot++) {
+            free[slot] = capacity - 1 - slot;
+        }
+        freeCount = capacity;
+    }
+
+    /**
+     * Writes the next event of the simulation into {@code target}.
+     *
+     * @param nowMillis wall-clock time in epoch millis
+     * @param target    event instance to overwrite
+     */
+    void nextEvent(long nowMillis, RideEvent target) {
+        long simMillis = epochMillis + (long) ((nowMillis - epochMillis) * timeScale);
+        int nowSec = (int) ((simMillis - epochMillis) / 1000);
+
+        int slot = pollDue(nowSec);
+        if (slot != NIL) {
+            if (phase[slot] == REQUESTED) {
+                start(slot, nowSec, simMillis, target);
+            } else {
+                complete(slot, nowSec, simMillis, target);
+            }
+        } else if (activeCount > 0 && (freeCount == 0 || random.nextDouble() < locationUpdateShare)) {
+            locationUpdate(active[random.nextInt(activeCount)], simMillis, target);
+        } else {
+            request(nowSec, simMillis, target);
+        }
+    }
+
+    int ridesInFlight() {
+        return activeCount;
+    }
+
+    private void request(int nowSec, long simMillis, RideEvent target) {
+        int slot = free[--freeCount];
+        int cityIdx = random.nextInt(cities.length);
+
+        rideId[slot] = nextRideId();
+        phase[slot] = REQUESTED;
+        city[slot] = (byte) cityIdx;
+        driver[slot] = random.nextInt(ids.driverPool());
+        rider[slot] = random.nextInt(ids.riderPool());
+        plannedMinutes[slot] = (short) sampleRideMinutes();
+        latitude[slot] = (float) (centers[cityIdx][0] + random.nextGaussian() * 0.05);
+        longitude[slot] = (float) (centers[cityIdx][1] + random.nextGaussian() * 0.05);
+
+        active[activeCount] = slot;
+        activeIndex[slot] = activeCount++;
+
+        // Driver arrives after a 1-10 minute wait
+        schedule(slot, nowSec + 60 + random.nextInt(540));
+        fill(target, EventType.RIDE_REQUESTED, slot, simMillis, null, null);
+    }
+
+    private void start(int slot, int nowSec, long simMillis, RideEvent target) {
+        phase[slot] = STARTED;
+        startedAt[slot] = nowSec;
+        schedule(slot, nowSec + plannedMinutes[slot] * 60 + random.nextInt(60));
+        fill(target, EventType.RIDE_STARTED, slot, simMillis, null, null);
+    }
+
+    private void complete(int slot, int nowSec, long simMillis, RideEvent target) {
+        int minutes = Math.max(1, Math.round((nowSec - startedAt[slot]) / 60f));
+        double distance = minutes * KM_PER_MINUTE * (0.8 + random.nextDouble() * 0.4);
+        fill(target, EventType.RIDE_COMPLETED, slot, simMillis, minutes, distance);
+        release(slot);
+    }
+
+    private void locationUpdate(int slot, long simMillis, RideEvent target) {
+        // Uniform jitter of up to ~100m; cheaper than a Gaussian on the hottest path
+        latitude[slot] += (float) ((random.nextDouble() - 0.5) * 0.002);
+        longitude[slot] += (float) ((random.nextDouble() - 0.5) * 0.002);
+        fill(target, EventType.DRIVER_LOCATION_UPDATE, slot, simMillis, null, null);
+    }
+
+    private void fill(RideEvent target, EventType type, int slot, long simMillis,
+                      Integer durationMinutes, Double distance) {
+        target.setEventType(type);
+        target.setRideId(rideId[slot]);
+        target.setDriverId(ids.driver(driver[slot]));
+        target.setRiderId(ids.rider(rider[slot]));
+        target.setCity(cities[city[slot]]);
+        target.setTimestamp(timestamp(simMillis));
+        target.setLatitude((double) latitude[slot]);
+        target.setLongitude((double) longitude[slot]);
+        target.setFareEstimate(FARES[plannedMinutes[slot]]);
+        target.setDurationMinutes(durationMinutes);
+        target.setDistance(distance);
+    }
+
+    private LocalDateTime timestamp(long simMillis) {
+        long second = Math.floorDiv(simMillis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone);
+        }
+        return cachedTimestamp;
+    }
+
+    /**
+     * Formats the next sequence number as base-36 after the shard prefix.
+     * One String per ride, reused by all of its events.
+     */
+    private String nextRideId() {
+        long seq = nextSeq++;
+        int digits = 1;
+        for (long rest = seq / 36; rest > 0; rest /= 36) {
+            digits++;
+        }
+        int end = idPrefixLength + digits;
+        for (int i = end - 1; i >= idPrefixLength; i--) {
+            idBuffer[i] = (byte) Character.forDigit((int) (seq % 36), 36);
+            seq /= 36;
+        }
+        return new String(idBuffer, 0, end, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Log-normal ride length with a median of about 18 minutes, clamped to 3-120.
+     */
+    private int sampleRideMinutes() {
+        double minutes = Math.exp(Math.log(18) + random.nextGaussian() * 0.5);
+        return (int) Math.max(3, Math.min(MAX_RIDE_MINUTES, Math.round(minutes)));
+    }
+
+    private void release(int slot) {
+        int index = activeIndex[slot];
+        int moved = active[--activeCount];
+        active[index] = moved;
+        activeIndex[moved] = index;
+        phase[slot] = FREE;
+        rideId[slot] = null;
+        free[freeCount++] = slot;
+    }
+
+    private void schedule(int slot, int due) {
+        dueAt[slot] = due;
+        if (due < cursor) {
+            wheelNext[slot] = readyHead;
+            readyHead = slot;
+        } else {
+            int bucket = due & WHEEL_MASK;
+            wheelNext[slot] = wheelHead[bucket];
+            wheelHead[bucket] = slot;
+        }
+    }
+
+    /**
+     * Advances the wheel up to {@code nowSec} and returns one due slot, or NIL.
+     * Entries scheduled more than a full rotation ahead stay in their bucket.
+     */
+    private int pollDue(int nowSec) {
+        while (readyHead == NIL && cursor <= nowSec) {
+            int bucket = cursor & WHEEL_MASK;
+            int slot = wheelHead[bucket];
+            wheelHead[bucket] = NIL;
+            while (slot != NIL) {
+                int next = wheelNext[slot];
+                if (dueAt[slot] <= cursor) {
+                    wheelNext[slot] = readyHead;
+                    readyHead = slot;
+                } else {
+                    wheelNext[slot] = wheelHead[bucket];
+                    wheelHead[bucket] = slot;
+                }
+                slot = next;
+            }
+            cursor++;
+        }
+        if (readyHead == NIL) {
+            return NIL;
+        }
+        int slot = readyHead;
+        readyHead = wheelNext[slot];
+        return slot;
+    }
+}
@@ -0,0 +1,69 @@
+package com.streamride.producerservice.benchmark;
+
+import com.streamride.model.RideEvent;
+import com.streamride.producerservice.service.RideEventGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy {@link RideEvent#random(String, String)} path against the
+ * simulator's reusable-instance path. Run with the GC profiler to see the
+ * allocation rate per event:
+ *
+ * <pre>
+ * cd producer-service
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.openjdk.jmh.Main RideEventGenerationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RideEventGenerationBenchmark {
+
+    private static final String[] EVENT_TYPES = {
+            "ride_requested", "ride_started", "ride_completed", "driver_location_update"
+    };
+    private static final String[] CITIES = {"Bangalore", "Hyderabad", "Mumbai", "Delhi"};
+
+    private RideEventGenerator generator;
+
+    @Setup
+    public void setUp() {
+        // One shard per benchmark thread, fleet sized like the default deployment
+        generator = new RideEventGenerator(1_000_000, Runtime.getRuntime().availableProcessors(),
+                100_000, 1_000_000, 0.8, 60.0);
+    }
+
+    @Benchmark
+    public RideEvent legacyRandom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return RideEvent.random(EVENT_TYPES[random.nextInt(EVENT_TYPES.length)],
+                CITIES[random.nextInt(CITIES.length)]);
+    }
+
+    @Benchmark
+    public void simulatorReused(Blackhole blackhole) {
+        RideEvent event = generator.nextEvent();
+        blackhole.consume(event.getRideId());
+        blackhole.consume(event.getLatitude());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RideEventGenerationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}